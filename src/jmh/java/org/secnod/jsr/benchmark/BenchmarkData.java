@@ -0,0 +1,160 @@
+package org.secnod.jsr.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+import org.secnod.jsr.Jsr;
+import org.secnod.jsr.JsrId;
+import org.secnod.jsr.JsrMetadata;
+import org.secnod.jsr.index.JsrIndex;
+import org.secnod.jsr.store.JsrDataStore;
+import org.secnod.jsr.store.JsrMetadataStore;
+
+/**
+ * Realistic inputs for the benchmarks: the bundled JSON resources and class names from real jars.
+ */
+final class BenchmarkData {
+
+    static final int COPY_OFFSET = 10_000; // above the highest bundled JSR number
+
+    private BenchmarkData() {}
+
+    static byte[] jsrData() throws IOException {
+        return resource(JsrDataStore.class, JsrDataStore.FILENAME);
+    }
+
+    static byte[] jsrMetadata() throws IOException {
+        return resource(JsrMetadataStore.class, JsrMetadataStore.FILENAME);
+    }
+
+    static Reader reader(byte[] json) {
+        return new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8);
+    }
+
+    static JsrIndex index() throws IOException {
+        return new JsrIndex.Builder()
+                .data(JsrDataStore.loadJson())
+                .metadata(JsrMetadataStore.loadJson())
+                .build();
+    }
+
+    /**
+     * A catalogue the size of {@code copies} times the bundled data, for benchmarks of large datasets. Copy {@code k}
+     * shifts every JSR number by {@code k * }{@value #COPY_OFFSET} and prefixes every package name with
+     * {@code copyk.}, keeping the lineages, umbrellas, titles and descriptions of the bundled data.
+     *
+     * @return the data and the metadata of the catalogue
+     */
+    static Catalogue catalogue(int copies) throws IOException {
+        Catalogue catalogue = new Catalogue();
+        Collection<Jsr> data = JsrDataStore.loadJson();
+        Collection<JsrMetadata> metadata = JsrMetadataStore.loadJson();
+        for (int k = 0; k < copies; k++) {
+            int offset = k * COPY_OFFSET;
+            String prefix = k > 0 ? "copy" + k + "." : "";
+            for (Jsr original : data) {
+                Jsr jsr = new Jsr(original);
+                jsr.id = shift(jsr.id, offset);
+                jsr.succeeds = shift(jsr.succeeds, offset);
+                if (jsr.packages != null) {
+                    Set<String> packages = new LinkedHashSet<>();
+                    for (String packageName : jsr.packages)
+                        packages.add(prefix + packageName);
+                    jsr.packages = packages;
+                }
+                if (jsr.umbrella != null) {
+                    Set<JsrId> umbrella = new LinkedHashSet<>();
+                    for (JsrId id : jsr.umbrella)
+                        umbrella.add(shift(id, offset));
+                    jsr.umbrella = umbrella;
+                }
+                catalogue.data.add(jsr);
+            }
+            for (JsrMetadata original : metadata) {
+                JsrMetadata datum = new JsrMetadata();
+                datum.id = original.id + offset;
+                datum.title = original.title;
+                datum.description = original.description;
+                datum.status = original.status;
+                datum.detailsPage = original.detailsPage;
+                catalogue.metadata.add(datum);
+            }
+        }
+        return catalogue;
+    }
+
+    static class Catalogue {
+        final List<Jsr> data = new ArrayList<>();
+        final List<JsrMetadata> metadata = new ArrayList<>();
+    }
+
+    private static JsrId shift(JsrId id, int offset) {
+        return id != null ? JsrId.of(id.jsrNumber + offset, id.variant) : null;
+    }
+
+    /**
+     * @return in random but repeatable order: the fully qualified names of the classes in the {@code java.*} and
+     *         {@code javax.*} packages of the running JDK and in the jars on the class path, and a class in every
+     *         package specified by a JSR
+     */
+    static String[] classNames(JsrIndex index) throws IOException {
+        List<String> classNames = new ArrayList<>();
+        FileSystem jrt = FileSystems.getFileSystem(URI.create("jrt:/"));
+        try (Stream<Path> classFiles = Files.walk(jrt.getPath("/modules"))) {
+            classFiles.filter(p -> p.getNameCount() > 2) // /modules/<module>/<class file>
+                    .map(p -> p.subpath(2, p.getNameCount()).toString())
+                    .filter(n -> (n.startsWith("java/") || n.startsWith("javax/")) && isClassFile(n))
+                    .forEach(n -> classNames.add(className(n)));
+        }
+        for (String path : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if (!path.endsWith(".jar"))
+                continue;
+            try (JarFile jar = new JarFile(path)) {
+                for (Enumeration<JarEntry> e = jar.entries(); e.hasMoreElements();) {
+                    String name = e.nextElement().getName();
+                    if (isClassFile(name) && !name.startsWith("META-INF/"))
+                        classNames.add(className(name));
+                }
+            }
+        }
+        for (String packageName : index.findAllPackages())
+            classNames.add(packageName + ".Example");
+        Collections.shuffle(classNames, new Random(42));
+        return classNames.toArray(new String[0]);
+    }
+
+    private static boolean isClassFile(String name) {
+        return name.endsWith(".class") && !name.endsWith("module-info.class") && !name.endsWith("package-info.class");
+    }
+
+    private static String className(String classFile) {
+        return classFile.substring(0, classFile.length() - ".class".length()).replace('/', '.');
+    }
+
+    private static byte[] resource(Class<?> type, String name) throws IOException {
+        try (InputStream in = type.getResourceAsStream(name)) {
+            return in.readAllBytes();
+        }
+    }
+}
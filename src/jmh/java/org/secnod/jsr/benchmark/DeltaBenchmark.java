@@ -0,0 +1,75 @@
+package org.secnod.jsr.benchmark;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.secnod.jsr.Jsr;
+import org.secnod.jsr.JsrMetadata;
+import org.secnod.jsr.JsrStatus;
+import org.secnod.jsr.index.JsrIndex;
+
+/**
+ * Updating one JSR of a catalogue of {@code copies} times the bundled data with a delta, against building the index
+ * again. A delta resolves and indexes the affected JSRs only. Changing metadata keeps every ordinal, while adding a
+ * JSR before the others moves the ordinals of every posting, tag and status.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DeltaBenchmark {
+
+    @Param({ "1", "100" })
+    private int copies;
+
+    private BenchmarkData.Catalogue catalogue;
+    private JsrIndex index;
+    private JsrMetadata changed;
+    private Jsr added;
+
+    @Setup
+    public void load() throws IOException {
+        catalogue = BenchmarkData.catalogue(copies);
+        index = build();
+
+        changed = new JsrMetadata();
+        changed.id = 340;
+        changed.title = "Java Servlet 3.1 Specification, revised";
+        changed.description = "Revised description";
+        changed.status = JsrStatus.FINAL;
+
+        added = new Jsr(100); // before the bundled JSR numbers, moving the ordinals of every JSR
+        added.title = "A hundred servlets";
+        added.packages = Set.of("javax.hundred");
+    }
+
+    private JsrIndex build() {
+        return new JsrIndex.Builder()
+                .data(catalogue.data)
+                .metadata(catalogue.metadata)
+                .build();
+    }
+
+    @Benchmark
+    public JsrIndex changeMetadata() {
+        return index.delta().put(changed).apply();
+    }
+
+    @Benchmark
+    public JsrIndex addJsr() {
+        return index.delta().put(added).apply();
+    }
+
+    @Benchmark
+    public JsrIndex rebuild() {
+        return build();
+    }
+}
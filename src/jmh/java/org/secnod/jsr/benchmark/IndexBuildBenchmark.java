@@ -0,0 +1,44 @@
+package org.secnod.jsr.benchmark;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.secnod.jsr.Jsr;
+import org.secnod.jsr.JsrMetadata;
+import org.secnod.jsr.index.JsrIndex;
+import org.secnod.jsr.store.JsrDataStore;
+import org.secnod.jsr.store.JsrMetadataStore;
+
+/**
+ * Building the index from the parsed bundled JSON resources.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class IndexBuildBenchmark {
+
+    private Collection<Jsr> data;
+    private Collection<JsrMetadata> metadata;
+
+    @Setup
+    public void load() throws IOException {
+        data = JsrDataStore.loadJson();
+        metadata = JsrMetadataStore.loadJson();
+    }
+
+    @Benchmark
+    public JsrIndex build() {
+        return new JsrIndex.Builder()
+                .data(data)
+                .metadata(metadata)
+                .build();
+    }
+}
@@ -0,0 +1,114 @@
+package org.secnod.jsr.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.secnod.jsr.Jsr;
+import org.secnod.jsr.JsrId;
+import org.secnod.jsr.JsrMetadata;
+import org.secnod.jsr.JsrStatus;
+import org.secnod.jsr.store.BinaryMetadataStore;
+import org.secnod.jsr.store.JsrDataStore;
+import org.secnod.jsr.store.JsrMetadataStore;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Parsing the bundled JSON resources from memory. The {@code ByReflection} benchmarks parse the way the stores did
+ * before they had streaming type adapters, with a new {@code Gson} per call that fills the fields by reflection. The
+ * {@code BinaryMetadata} benchmarks open the bundled metadata converted to a {@link BinaryMetadataStore}, and decode
+ * all of it or only the titles of the JSRs in {@code JsrData.json}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JsonLoadBenchmark {
+
+    private byte[] jsrData;
+    private byte[] jsrMetadata;
+    private ByteBuffer binaryMetadata;
+    private int[] dataJsrNumbers; // of the JSRs in JsrData.json
+
+    @Setup
+    public void load() throws IOException {
+        jsrData = BenchmarkData.jsrData();
+        jsrMetadata = BenchmarkData.jsrMetadata();
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        BinaryMetadataStore.write(JsrMetadataStore.loadJson(BenchmarkData.reader(jsrMetadata)), binary);
+        binaryMetadata = ByteBuffer.allocateDirect(binary.size()).put(binary.toByteArray()).flip();
+        dataJsrNumbers = JsrDataStore.loadJson(BenchmarkData.reader(jsrData)).stream()
+                .mapToInt(jsr -> jsr.id.jsrNumber)
+                .toArray();
+    }
+
+    @Benchmark
+    public Collection<Jsr> loadJsrData() throws IOException {
+        return JsrDataStore.loadJson(BenchmarkData.reader(jsrData));
+    }
+
+    @Benchmark
+    public Collection<JsrMetadata> loadJsrMetadata() throws IOException {
+        return JsrMetadataStore.loadJson(BenchmarkData.reader(jsrMetadata));
+    }
+
+    @Benchmark
+    public void streamJsrMetadata(Blackhole blackhole) throws IOException {
+        JsrMetadataStore.readJson(BenchmarkData.reader(jsrMetadata), blackhole::consume);
+    }
+
+    @Benchmark
+    public Collection<Jsr> loadJsrDataByReflection() {
+        JsonDeserializer<JsrId> idDeserializer = (json, typeOfT, context) -> {
+            JsonPrimitive value = json.getAsJsonPrimitive();
+            return value.isNumber() ? JsrId.of(value.getAsInt()) : JsrId.of(value.getAsString());
+        };
+        Type type = new TypeToken<Collection<Jsr>>(){}.getType();
+        return new GsonBuilder()
+                .registerTypeAdapter(JsrId.class, idDeserializer)
+                .create()
+                .fromJson(BenchmarkData.reader(jsrData), type);
+    }
+
+    @Benchmark
+    public Collection<JsrMetadata> loadJsrMetadataByReflection() {
+        JsonDeserializer<JsrStatus> statusDeserializer = (json, typeOfT, context) -> JsrStatus.parse(json.getAsString());
+        Type type = new TypeToken<Collection<JsrMetadata>>(){}.getType();
+        return new GsonBuilder()
+                .registerTypeAdapter(JsrStatus.class, statusDeserializer)
+                .create()
+                .fromJson(BenchmarkData.reader(jsrMetadata), type);
+    }
+
+    @Benchmark
+    public BinaryMetadataStore openBinaryMetadata() throws IOException {
+        return BinaryMetadataStore.read(binaryMetadata);
+    }
+
+    @Benchmark
+    public void decodeBinaryMetadata(Blackhole blackhole) throws IOException {
+        for (JsrMetadata metadata : BinaryMetadataStore.read(binaryMetadata).all())
+            blackhole.consume(metadata);
+    }
+
+    @Benchmark
+    public void decodeBinaryMetadataTitles(Blackhole blackhole) throws IOException {
+        BinaryMetadataStore store = BinaryMetadataStore.read(binaryMetadata);
+        for (int jsrNumber : dataJsrNumbers)
+            blackhole.consume(store.title(jsrNumber));
+    }
+}
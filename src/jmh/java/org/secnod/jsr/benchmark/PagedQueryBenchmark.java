@@ -0,0 +1,74 @@
+package org.secnod.jsr.benchmark;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.secnod.jsr.Jsr;
+import org.secnod.jsr.index.JsrIndex;
+
+/**
+ * The first page of a query against complete query results, in a catalogue of {@code copies} times the bundled data.
+ * A page should cost about the same for every catalogue size, while complete results grow with the number of matches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PagedQueryBenchmark {
+
+    private static final int PAGE = 20;
+
+    @Param({ "1", "100" })
+    private int copies;
+
+    private JsrIndex index;
+
+    @Setup
+    public void load() throws IOException {
+        BenchmarkData.Catalogue catalogue = BenchmarkData.catalogue(copies);
+        index = new JsrIndex.Builder()
+                .data(catalogue.data)
+                .metadata(catalogue.metadata)
+                .build();
+    }
+
+    @Benchmark
+    public Collection<Jsr> queryByTitle() {
+        return List.copyOf(index.queryByTitle("java"));
+    }
+
+    @Benchmark
+    public List<Jsr> queryByTitlePage() {
+        return index.streamByTitle("java").limit(PAGE).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Jsr> search() {
+        return index.search("java specification");
+    }
+
+    @Benchmark
+    public List<Jsr> searchPage() {
+        return index.streamSearch("java specification").limit(PAGE).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Jsr> queryByTag() {
+        return List.copyOf(index.queryByTag("JavaEE7"));
+    }
+
+    @Benchmark
+    public List<Jsr> queryByTagPage() {
+        return index.queryByTag("JavaEE7").stream().limit(PAGE).collect(Collectors.toList());
+    }
+}
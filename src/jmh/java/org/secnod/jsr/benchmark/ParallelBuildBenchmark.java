@@ -0,0 +1,46 @@
+package org.secnod.jsr.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.secnod.jsr.index.JsrIndex;
+
+/**
+ * Building the index of a large catalogue on a growing number of threads. Compare the average build time of each
+ * parallelism with the build time on one thread, on a machine with at least as many cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParallelBuildBenchmark {
+
+    @Param({ "100" })
+    private int copies;
+
+    @Param({ "1", "2", "4", "8" })
+    private int parallelism;
+
+    private BenchmarkData.Catalogue catalogue;
+
+    @Setup
+    public void load() throws IOException {
+        catalogue = BenchmarkData.catalogue(copies);
+    }
+
+    @Benchmark
+    public JsrIndex build() {
+        return new JsrIndex.Builder()
+                .data(catalogue.data)
+                .metadata(catalogue.metadata)
+                .parallelism(parallelism)
+                .build();
+    }
+}
@@ -0,0 +1,72 @@
+package org.secnod.jsr.benchmark;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.secnod.jsr.Jsr;
+import org.secnod.jsr.JsrId;
+import org.secnod.jsr.index.JsrIndex;
+import org.secnod.jsr.index.PackageQueryCache;
+
+/**
+ * Queries against the index of the bundled JSON resources. Package queries cycle through class names from real jars,
+ * most of which are not specified by any JSR.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class QueryBenchmark {
+
+    private JsrIndex index;
+    private PackageQueryCache cache;
+    private String[] classNames;
+    private JsrId[] ids;
+    private int next, nextId;
+
+    @Setup
+    public void load() throws IOException {
+        index = BenchmarkData.index();
+        classNames = BenchmarkData.classNames(index);
+        cache = new PackageQueryCache(index, 1024);
+        ids = index.all().stream().map(jsr -> jsr.id).toArray(JsrId[]::new);
+    }
+
+    @Benchmark
+    public Collection<Jsr> queryAllByPackage() {
+        String className = classNames[next];
+        next = next + 1 < classNames.length ? next + 1 : 0;
+        return index.queryAllByPackage(className);
+    }
+
+    @Benchmark
+    public Collection<Jsr> cachedQueryAllByPackage() {
+        String className = classNames[next];
+        next = next + 1 < classNames.length ? next + 1 : 0;
+        return cache.queryAllByPackage(className);
+    }
+
+    @Benchmark
+    public Jsr queryById() {
+        JsrId id = ids[nextId];
+        nextId = nextId + 1 < ids.length ? nextId + 1 : 0;
+        return index.queryById(id);
+    }
+
+    @Benchmark
+    public Collection<Jsr> queryByTitle() {
+        return index.queryByTitle("servlet");
+    }
+
+    @Benchmark
+    public Collection<Jsr> queryByTag() {
+        return index.queryByTag("JavaEE7");
+    }
+}
@@ -0,0 +1,64 @@
+package org.secnod.jsr.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.secnod.jsr.Jsr;
+import org.secnod.jsr.index.JsrIndex;
+
+/**
+ * Suggestions for misspelled package names and titles, as requested on every keystroke of an interactive lookup, in a
+ * catalogue of {@code copies} times the bundled data. The trigram indexes are built before measuring.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SuggestionBenchmark {
+
+    private static final int SUGGESTIONS = 10;
+
+    @Param({ "1", "100" })
+    private int copies;
+
+    private JsrIndex index;
+
+    @Setup
+    public void load() throws IOException {
+        BenchmarkData.Catalogue catalogue = BenchmarkData.catalogue(copies);
+        index = new JsrIndex.Builder()
+                .data(catalogue.data)
+                .metadata(catalogue.metadata)
+                .build();
+        index.suggestPackages("javax", 1);
+        index.suggestByTitle("java", 1);
+    }
+
+    @Benchmark
+    public List<String> suggestPackages() {
+        return index.suggestPackages("javax.servelt", SUGGESTIONS);
+    }
+
+    @Benchmark
+    public List<String> suggestPartialPackages() {
+        return index.suggestPackages("javax.ws.r", SUGGESTIONS);
+    }
+
+    @Benchmark
+    public List<Jsr> suggestByTitle() {
+        return index.suggestByTitle("servelt", SUGGESTIONS);
+    }
+
+    @Benchmark
+    public List<Jsr> suggestByLongTitle() {
+        return index.suggestByTitle("enterprize javabeans", SUGGESTIONS);
+    }
+}
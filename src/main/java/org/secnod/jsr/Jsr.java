@@ -22,6 +22,26 @@ public class Jsr implements Comparable<Jsr> {
         id = JsrId.of(jsrNumber);
     }
 
+    public Jsr(JsrId id) {
+        this.id = id;
+    }
+
+    /**
+     * Copy constructor. The collections of the copy are independent of the collections of the original, and metadata
+     * fetched lazily by the original is fetched into the copy.
+     */
+    public Jsr(Jsr jsr) {
+        id = jsr.id;
+        title = jsr.title;
+        description = jsr.getDescription();
+        succeeds = jsr.succeeds;
+        packages = jsr.packages != null ? new LinkedHashSet<>(jsr.packages) : null;
+        status = jsr.status;
+        detailsPage = jsr.getDetailsPage();
+        umbrella = jsr.umbrella != null ? new LinkedHashSet<>(jsr.umbrella) : null;
+        tags = jsr.tags != null ? new LinkedHashSet<>(jsr.tags) : null;
+    }
+
     public Integer getJsrNumber() {
         return id.jsrNumber;
     }
@@ -30,11 +50,45 @@ public class Jsr implements Comparable<Jsr> {
         return id.variant;
     }
 
+    /**
+     * @return the description, which a JSR of an index with lazy metadata only fetches when it is first accessed, so
+     *         read it through this method rather than the field
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * @return the details page, fetched like {@link #getDescription()}
+     */
+    public URI getDetailsPage() {
+        return detailsPage;
+    }
+
     public boolean specifiesPackages() {
         return packages != null && !packages.isEmpty();
     }
 
+    /**
+     * @return if this JSR belongs to a built index. A frozen JSR rejects {@link #tag(Set)} and
+     *         {@link #merge(JsrMetadata)} and has unmodifiable collections. Its fields are public for compatibility
+     *         and must not be assigned.
+     */
+    public boolean isFrozen() {
+        return false;
+    }
+
+    private void checkNotFrozen() {
+        if (isFrozen())
+            throw new UnsupportedOperationException("JSR " + id + " is frozen in an index");
+    }
+
+    /**
+     * @throws UnsupportedOperationException
+     *             if the JSR is {@linkplain #isFrozen() frozen}
+     */
     public void tag(Set<String> tags) {
+        checkNotFrozen();
         if (this.tags == null)
             this.tags = new LinkedHashSet<>();
         this.tags.addAll(tags);
@@ -48,7 +102,12 @@ public class Jsr implements Comparable<Jsr> {
         return umbrella != null && !umbrella.isEmpty();
     }
 
+    /**
+     * @throws UnsupportedOperationException
+     *             if the JSR is {@linkplain #isFrozen() frozen}
+     */
     public void merge(JsrMetadata metadata) {
+        checkNotFrozen();
         if (metadata == null)
             return;
         if (title == null)
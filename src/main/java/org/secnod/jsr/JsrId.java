@@ -1,6 +1,5 @@
 package org.secnod.jsr;
 
-import java.util.Objects;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -22,7 +21,7 @@ public class JsrId implements Comparable<JsrId> {
 
     @Override
     public int hashCode() {
-        return Objects.hash(jsrNumber, variant);
+        return 31 * (31 + jsrNumber.hashCode()) + variant.hashCode(); // as Objects.hash(jsrNumber, variant) without an array
     }
 
     @Override
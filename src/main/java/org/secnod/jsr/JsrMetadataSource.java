@@ -0,0 +1,33 @@
+package org.secnod.jsr;
+
+import java.net.URI;
+
+/**
+ * Metadata looked up one field at a time by JSR number, for an index that only fetches the metadata of a JSR when it
+ * is shown, see {@code JsrIndex.Builder.lazyMetadata(JsrMetadataSource)}. Implementations must be safe to use from
+ * several threads.
+ */
+public interface JsrMetadataSource {
+
+    boolean contains(int jsrNumber);
+
+    /**
+     * @return the title of the JSR number, or {@code null} if it has no title or no metadata
+     */
+    String title(int jsrNumber);
+
+    /**
+     * @return the description of the JSR number, or {@code null} if it has no description or no metadata
+     */
+    String description(int jsrNumber);
+
+    /**
+     * @return the status of the JSR number, or {@code null} if it has no status or no metadata
+     */
+    JsrStatus status(int jsrNumber);
+
+    /**
+     * @return the details page of the JSR number, or {@code null} if it has no details page or no metadata
+     */
+    URI detailsPage(int jsrNumber);
+}
@@ -4,13 +4,25 @@ package org.secnod.jsr;
  * @see <a href="https://www.jcp.org/en/introduction/glossary#status">https://www.jcp.org/en/introduction/glossary#status</a>
  */
 public enum JsrStatus {
-    ACTIVE,
-    FINAL,
-    MAINTENANCE,
-    INACTIVE,
-    WITHDRAWN,
-    REJECTED,
-    DORMANT;
+    ACTIVE(0),
+    FINAL(1),
+    MAINTENANCE(2),
+    INACTIVE(3),
+    WITHDRAWN(4),
+    REJECTED(5),
+    DORMANT(6);
+
+    private static final JsrStatus[] BY_CODE = new JsrStatus[7];
+    static {
+        for (JsrStatus status : values())
+            BY_CODE[status.code] = status;
+    }
+
+    private final int code;
+
+    JsrStatus(int code) {
+        this.code = code;
+    }
 
     public static JsrStatus parse(String s) {
         if (s == null) return null;
@@ -20,6 +32,23 @@ public enum JsrStatus {
         return null;
     }
 
+    /**
+     * @return a code for the status in binary files, which never changes when statuses are added or reordered
+     */
+    public int code() {
+        return code;
+    }
+
+    /**
+     * @throws IllegalArgumentException
+     *             if no status has the code
+     */
+    public static JsrStatus ofCode(int code) {
+        if (code < 0 || code >= BY_CODE.length || BY_CODE[code] == null)
+            throw new IllegalArgumentException("Unknown JSR status code " + code);
+        return BY_CODE[code];
+    }
+
     public String label() {
         return name().charAt(0) + name().substring(1).toLowerCase();
     }
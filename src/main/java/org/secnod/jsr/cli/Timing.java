@@ -0,0 +1,80 @@
+package org.secnod.jsr.cli;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports the time to first output of a command on stderr when the tool exits, for {@code java -Dtiming ...}. Times are
+ * from the start of the JVM, as a user waits for them, and from the start of {@link Tool#main(String[])}, which leaves
+ * out JVM startup. The time the index was ready is reported for commands that load it.
+ */
+final class Timing {
+
+    private static String command; // null unless timing
+    private static long jvmStart, mainStart; // System.nanoTime()
+    private static long indexLoaded;
+    private static volatile long firstOutput;
+
+    private Timing() {}
+
+    static void start(String command) {
+        mainStart = System.nanoTime();
+        jvmStart = mainStart - TimeUnit.MILLISECONDS.toNanos(ManagementFactory.getRuntimeMXBean().getUptime());
+        Timing.command = command;
+        System.setOut(new PrintStream(new FirstOutput(System.out), true));
+        Runtime.getRuntime().addShutdownHook(new Thread(Timing::report));
+    }
+
+    static void indexLoaded() {
+        if (command != null)
+            indexLoaded = System.nanoTime();
+    }
+
+    private static void report() {
+        StringBuilder report = new StringBuilder(command).append(": ");
+        long first = firstOutput;
+        if (first != 0)
+            report.append("first output ").append(millis(jvmStart, first)).append(" ms after JVM start, ")
+                    .append(millis(mainStart, first)).append(" ms after main");
+        else
+            report.append("no output, exited ").append(millis(mainStart, System.nanoTime())).append(" ms after main");
+        if (indexLoaded != 0)
+            report.append(", index ready ").append(millis(mainStart, indexLoaded)).append(" ms after main");
+        System.err.println(report);
+    }
+
+    private static long millis(long from, long to) {
+        return TimeUnit.NANOSECONDS.toMillis(to - from);
+    }
+
+    /**
+     * Notes when the first byte is written to stdout
+     */
+    private static class FirstOutput extends FilterOutputStream {
+        FirstOutput(OutputStream out) {
+            super(out);
+        }
+
+        private void written() {
+            if (firstOutput == 0)
+                firstOutput = System.nanoTime();
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            written();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            if (len > 0)
+                written();
+        }
+    }
+}
@@ -7,22 +7,36 @@ import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.PrintStream;
 import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
 
 import org.secnod.jsr.Jsr;
 import org.secnod.jsr.JsrId;
 import org.secnod.jsr.JsrMetadata;
 import org.secnod.jsr.JsrStatus;
 import org.secnod.jsr.index.JsrIndex;
+import org.secnod.jsr.index.JsrIndexSnapshot;
+import org.secnod.jsr.index.JsrQuery;
+import org.secnod.jsr.index.TagQuery;
 import org.secnod.jsr.screenscraper.DownloadedFile;
 import org.secnod.jsr.screenscraper.JsrDownloadScreenScraper;
 import org.secnod.jsr.screenscraper.JsrMetadataScreenScraper;
@@ -30,20 +44,54 @@ import org.secnod.jsr.screenscraper.JsrZipFileInspector;
 import org.secnod.jsr.screenscraper.UrlFetcher;
 import org.secnod.jsr.store.JsrDataStore;
 import org.secnod.jsr.store.JsrMetadataStore;
+import org.secnod.jsr.store.MetadataSync;
 import org.secnod.jsr.util.StringUtils;
 
 public class Tool {
 
+    private static final int SUGGESTIONS = 10;
+
+    private static final Set<JsrStatus> DOWNLOADED_STATUSES = EnumSet.of(JsrStatus.ACTIVE, JsrStatus.FINAL,
+            JsrStatus.MAINTENANCE, JsrStatus.WITHDRAWN);
+
+    // Commands querying the index, which is only loaded for them
+    private static final Set<String> INDEX_COMMANDS = Set.of("query package", "query tag", "query tags", "query title",
+            "query status", "query text", "suggest package", "suggest title", "list", "list jsr", "list tags",
+            "list packages", "list umbrellas", "download jsr");
+
     private static JsrIndex index;
 
-    static {
+    /**
+     * Loads the bundled index snapshot, or builds the index from the JSON resources if the snapshot is missing, was
+     * built from other JSON resources or cannot be read, as the snapshot is only a cache of them. JsrData.json is
+     * parsed on this thread while JsrMetadata.json is parsed on another, and the index waits for the metadata only
+     * after resolving lineages.
+     */
+    private static JsrIndex loadIndex() throws IOException {
         try {
-            index = new JsrIndex.Builder()
-                    .data(JsrDataStore.loadJson())
-                    .metadata(JsrMetadataStore.loadJson())
-                    .build();
+            JsrIndex snapshot = JsrIndexSnapshot.isCurrent() ? JsrIndexSnapshot.load() : null;
+            if (snapshot != null)
+                return snapshot;
         } catch (IOException e) {
-            throw new ExceptionInInitializerError(e);
+            // Build from the JSON resources instead
+        }
+        CompletableFuture<List<JsrMetadata>> metadata = CompletableFuture.supplyAsync(() -> {
+            List<JsrMetadata> loaded = new ArrayList<>();
+            try {
+                JsrMetadataStore.readJson(loaded::add);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return loaded;
+        });
+        try {
+            JsrIndex.Builder builder = new JsrIndex.Builder();
+            JsrDataStore.readJson(builder::add);
+            return builder.pendingMetadata(metadata::join).build();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException)
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            throw e;
         }
     }
 
@@ -54,7 +102,17 @@ public class Tool {
         p.printf("  query <criteria> - query JSRs in JsrData.json%n");
         p.printf("      package <package or class name> - only JSRs specifying the given package%n");
         p.printf("      tag <tag> - only JSRs with a given tag%n");
+        p.printf("      tags <expression> - only JSRs with tags matching a boolean expression of AND, OR, NOT and ()%n");
         p.printf("      title <phrase> - only JSRs with a title containing the phrase%n");
+        p.printf("      status <statuses> [<package>] - only JSRs with any of the statuses, optionally under a package%n");
+        p.printf("        <statuses>: comma separated, for instance final,maintenance%n");
+        p.printf("      text <terms> - only JSRs with all terms in the title or description, ranked by relevance%n");
+        p.printf("        <terms>: words, where a word ending with '*' matches as a prefix%n");
+
+        p.printf("  suggest <criteria> - closest matches for a misspelled or partially typed name, up to -Dlimit or %d%n",
+                SUGGESTIONS);
+        p.printf("      package <package name> - package names starting with the name, allowing for typos%n");
+        p.printf("      title <phrase> - JSRs with a title containing the phrase, allowing for typos%n");
 
         p.printf("  list <filter> - list all JSRs in JsrData.json, optionally filtered%n");
         p.printf("    <filter>:%n");
@@ -71,13 +129,21 @@ public class Tool {
         p.printf("        <target>: file or directory for storing the download%n");
         p.printf("      metadata - download and print metadata for all JSRs as JSON to stdout%n");
 
+        p.printf("  sync metadata <JsrMetadata.json> - download metadata for all JSRs and merge it into the file%n");
+        p.printf("      the file is only written if metadata was added, changed or removed, which is listed by JSR%n");
+        p.printf("      a sync removing more than %d%% of the JSRs is refused unless run with -DallowRemovals%n",
+                JsrMetadataStore.MAXIMUM_REMOVALS_PERCENT);
+
         p.printf("  check <check> - sanity checks%n");
         p.printf("    <check>:%n");
         p.printf("      data missing - list all JSRs with metadata in JsrMetadata.json that are missing in JsrData.json%n");
         p.printf("      metadata missing - list all JSRs with data in JsrData.json that are missing in JsrMetadata.json%n");
+        p.printf("      snapshot - check that the bundled index snapshot was built from JsrData.json and JsrMetadata.json%n");
 
         p.println();
         p.println("System property for full stack traces: java -Dverbose ...");
+        p.println("System property for the time to first output on stderr: java -Dtiming ...");
+        p.println("System properties for a page of JSRs: java -Doffset=<JSRs to skip> -Dlimit=<max JSRs> ...");
         p.println();
 
         p.println("Examples:");
@@ -88,6 +154,10 @@ public class Tool {
         p.println();
         p.println("  List all Java EE 7 JSRs:");
         p.printf("    java %s query tag JavaEE7%n", Tool.class.getName());
+        p.println("  List the JSRs new in Java EE 7:");
+        p.printf("    java %s query tags JavaEE7 AND NOT JavaEE6%n", Tool.class.getName());
+        p.println("  List the final JSRs specifying javax.* packages:");
+        p.printf("    java %s query status final javax%n", Tool.class.getName());
 
         System.exit(status);
     }
@@ -115,20 +185,55 @@ public class Tool {
         String commands = args.length > 1 ? args[0] + " " + args[1] : args[0];
         String[] restArgs = Arrays.copyOfRange(args, Math.min(args.length, 2), args.length);
 
+        if (System.getProperty("timing") != null)
+            Timing.start(commands);
+        if (INDEX_COMMANDS.contains(commands)) {
+            index = loadIndex();
+            Timing.indexLoaded();
+        }
+
         switch (commands) {
         case "query package":
             print(index.queryAllByPackage(Objects.requireNonNull(restArgs[0], "Missing package")));
             break;
         case "query tag":
-            print(index.queryByTag(Objects.requireNonNull(restArgs[0], "Missing tag")));
+            print(index.queryByTag(Objects.requireNonNull(restArgs[0], "Missing tag")).stream());
+            break;
+        case "query tags":
+            String expression = StringUtils.toString(asList(restArgs), " ");
+            if (expression.isEmpty()) throw new RuntimeException("Missing tag expression");
+            print(index.queryByTags(TagQuery.parse(expression)).stream());
             break;
         case "query title":
             String phrase = StringUtils.toString(asList(restArgs), " ");
             if (phrase.isEmpty()) throw new RuntimeException("Missing phrase");
-            print(index.queryByTitle(phrase));
+            print(index.streamByTitle(phrase));
+            break;
+        case "query status":
+            if (restArgs.length == 0) throw new RuntimeException("Missing status");
+            JsrStatus[] statuses = parseStatuses(restArgs[0]);
+            JsrQuery query = JsrQuery.all().status(statuses[0], Arrays.copyOfRange(statuses, 1, statuses.length));
+            if (restArgs.length > 1)
+                query = query.packagePrefix(restArgs[1]);
+            print(index.query(query).stream());
+            break;
+        case "query text":
+            String terms = StringUtils.toString(asList(restArgs), " ");
+            if (terms.isBlank()) throw new RuntimeException("Missing terms");
+            print(index.streamSearch(terms));
+            break;
+        case "suggest package":
+            for (String packageName : index.suggestPackages(Objects.requireNonNull(restArgs[0], "Missing package"),
+                    Integer.getInteger("limit", SUGGESTIONS)))
+                System.out.println(packageName);
+            break;
+        case "suggest title":
+            String partialTitle = StringUtils.toString(asList(restArgs), " ");
+            if (partialTitle.isEmpty()) throw new RuntimeException("Missing phrase");
+            print(index.suggestByTitle(partialTitle, Integer.getInteger("limit", SUGGESTIONS)).stream());
             break;
         case "list":
-            print(index.all());
+            print(index.all().stream());
             break;
         case "list jsr":
             print(Objects.requireNonNull(JsrId.of(restArgs[0]), "Not a valid JSR ID: " + restArgs[0]));
@@ -140,11 +245,15 @@ public class Tool {
             printPackages();
             break;
         case "list umbrellas":
-            print(index.queryByUmbrella());
+            print(index.queryByUmbrella().stream());
             break;
         case "download metadata":
             downloadMetadata();
             break;
+        case "sync metadata":
+            if (restArgs.length == 0) throw new RuntimeException("Missing metadata file");
+            syncMetadata(Path.of(restArgs[0]));
+            break;
         case "download jsr":
             downloadJsr(Objects.requireNonNull(JsrId.of(restArgs[0]), "Not a valid JSR ID: " + restArgs[0]),
                     restArgs.length > 1 ? new File(restArgs[1]) : null);
@@ -159,6 +268,13 @@ public class Tool {
                 exitWithHelp(1, args);
             printMetadataMissing();
             break;
+        case "check snapshot":
+            if (!JsrIndexSnapshot.isCurrent()) {
+                System.err.printf("%s is missing or out of date%n", JsrIndexSnapshot.FILENAME);
+                System.exit(1);
+            }
+            System.out.printf("%s is up to date%n", JsrIndexSnapshot.FILENAME);
+            break;
         case "help":
         case "--help":
         case "-h":
@@ -171,6 +287,14 @@ public class Tool {
         }
     }
 
+    private static JsrStatus[] parseStatuses(String statuses) {
+        String[] names = statuses.split(",");
+        JsrStatus[] parsed = new JsrStatus[names.length];
+        for (int i = 0; i < names.length; i++)
+            parsed[i] = Objects.requireNonNull(JsrStatus.parse(names[i]), "Unknown status: " + names[i]);
+        return parsed;
+    }
+
     private static void printTags() {
         for (String tag : index.findAllTags())
             System.out.println(tag);
@@ -183,17 +307,16 @@ public class Tool {
 
     private static void printJsr(Jsr jsr, PrintWriter pw) {
         pw.printf("JSR %s: %s%n", jsr.id, jsr.title);
-        pw.printf("  Description: %s%n", jsr.description);
-        pw.printf("  Link: %s%n", jsr.detailsPage);
+        pw.printf("  Description: %s%n", jsr.getDescription());
+        pw.printf("  Link: %s%n", jsr.getDetailsPage());
 
         if (jsr.specifiesPackages())
             pw.printf("  Packages: %s%n", StringUtils.toString(jsr.packages, " "));
         if (jsr.isTagged())
             pw.printf("  Tags: %s%n", StringUtils.toString(jsr.tags, " "));
-        if (jsr.succeeds != null) {
-            Jsr predecessor = index.queryById(jsr.succeeds);
+        Jsr predecessor = index.succession(jsr.id).predecessor();
+        if (predecessor != null)
             pw.printf("  Succeeds: JSR %s %s%n", predecessor.id, predecessor.title);
-        }
         if (jsr.isUmbrella()) {
             pw.printf("  Components:%n");
             for (JsrId id : jsr.umbrella) {
@@ -204,12 +327,20 @@ public class Tool {
     }
 
     private static void print(Collection<Jsr> jsrs) throws IOException {
+        print(jsrs.stream());
+    }
+
+    /**
+     * Prints the page of JSRs given by the {@code offset} and {@code limit} system properties. Only the JSRs up to the
+     * end of the page are taken from the stream.
+     */
+    private static void print(Stream<Jsr> jsrs) throws IOException {
         try (PrintWriter pw = new PrintWriter(System.out)) {
-            for (Jsr jsr : jsrs) {
+            jsrs.skip(Long.getLong("offset", 0)).limit(Long.getLong("limit", Long.MAX_VALUE)).forEachOrdered(jsr -> {
                 printJsr(jsr, pw);
                 pw.println();
                 pw.flush();
-            }
+            });
         }
     }
 
@@ -278,13 +409,42 @@ public class Tool {
     }
 
     private static void downloadMetadata() throws IOException {
-        Collection<JsrMetadata> metadata = new JsrMetadataScreenScraper()
-                .query(EnumSet.of(JsrStatus.ACTIVE, JsrStatus.FINAL, JsrStatus.MAINTENANCE, JsrStatus.WITHDRAWN));
+        Collection<JsrMetadata> metadata = new JsrMetadataScreenScraper().query(DOWNLOADED_STATUSES);
         try (Writer w = new OutputStreamWriter(System.out, "UTF-8")) {
             JsrMetadataStore.writeMetadata(metadata, w);
         }
     }
 
+    /**
+     * Merges downloaded metadata into a metadata file, replacing the file only if the metadata changed.
+     */
+    private static void syncMetadata(Path metadataFile) throws IOException {
+        if (!Files.isRegularFile(metadataFile))
+            throw new IOException("No such file: " + metadataFile);
+        Collection<JsrMetadata> metadata = new JsrMetadataScreenScraper().query(DOWNLOADED_STATUSES);
+        Path synced = metadataFile.resolveSibling(metadataFile.getFileName() + ".sync");
+        try {
+            MetadataSync sync;
+            try (Reader r = Files.newBufferedReader(metadataFile, StandardCharsets.UTF_8);
+                    Writer w = Files.newBufferedWriter(synced, StandardCharsets.UTF_8)) {
+                sync = JsrMetadataStore.syncMetadata(r, metadata, w, System.getProperty("allowRemovals") != null);
+            }
+            if (sync.hasChanges())
+                Files.move(synced, metadataFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            printSync("Added", sync.added());
+            printSync("Changed", sync.changed());
+            printSync("Removed", sync.removed());
+            System.out.println(sync);
+        } finally {
+            Files.deleteIfExists(synced);
+        }
+    }
+
+    private static void printSync(String change, List<Integer> jsrNumbers) {
+        if (!jsrNumbers.isEmpty())
+            System.out.printf("%s: %s%n", change, StringUtils.toString(jsrNumbers, " "));
+    }
+
     private static void downloadJsr(JsrId jsrId, final File target) throws Exception {
         if (target != null) {
             if (target.isDirectory() && !target.canWrite()
@@ -0,0 +1,69 @@
+package org.secnod.jsr.index;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable set backed by an array, for the few packages, tags and umbrella JSR IDs of a JSR. Iterates in the order
+ * of the collection it was copied from, and uses a fraction of the memory of a {@link java.util.LinkedHashSet}.
+ * Lookups are linear scans, which is fast for small sets.
+ */
+final class ArraySet<E> extends AbstractSet<E> {
+
+    private static final ArraySet<?> EMPTY = new ArraySet<>(new Object[0]);
+
+    private final Object[] elements;
+
+    private ArraySet(Object[] elements) {
+        this.elements = elements;
+    }
+
+    /**
+     * @param elements
+     *            distinct elements, as in a set
+     */
+    @SuppressWarnings("unchecked")
+    static <E> Set<E> copyOf(Collection<? extends E> elements) {
+        if (elements instanceof ArraySet)
+            return (Set<E>) elements;
+        if (elements.isEmpty())
+            return (Set<E>) EMPTY;
+        return new ArraySet<>(elements.toArray());
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < elements.length;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (next >= elements.length)
+                    throw new NoSuchElementException();
+                return (E) elements[next++];
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return elements.length;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        for (Object element : elements)
+            if (element.equals(o))
+                return true;
+        return false;
+    }
+}
@@ -1,22 +1,50 @@
 package org.secnod.jsr.index;
 
-import java.util.Collections;
-import java.util.Set;
+import java.util.List;
 
 import org.secnod.jsr.Jsr;
 
+/**
+ * The JSRs specifying a package, as a slice of an array of JSR ordinals shared by all entries of an index.
+ */
 class IndexEntry {
 
-    final Set<Jsr> jsrs;
+    private final int[] ordinals;
+    private final int offset;
+    private final int length;
 
     /**
-     * @param jsrs
-     *            JSRs for this entry. The order of the JSRs must be from the
-     *            most recent JSR at the first position to the earliest JSR at
-     *            the last position.
+     * @param ordinals
+     *            the ordinals of the JSRs for this entry at {@code [offset, offset + length)}. The JSRs are grouped by
+     *            lineage, and the order within each lineage must be from the most recent JSR at the first position to
+     *            the earliest JSR at the last position.
      */
-    IndexEntry(Set<Jsr> jsrs) {
-        this.jsrs = Collections.unmodifiableSet(jsrs);
+    IndexEntry(int[] ordinals, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > ordinals.length)
+            throw new IndexOutOfBoundsException("Slice [" + offset + ", " + (offset + length) + ") of " + ordinals.length);
+        this.ordinals = ordinals;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    int length() {
+        return length;
+    }
+
+    int ordinal(int i) {
+        if (i < 0 || i >= length)
+            throw new IndexOutOfBoundsException(i);
+        return ordinals[offset + i];
     }
 
+    /**
+     * @param jsrs
+     *            the JSRs of the index by ordinal
+     */
+    List<Jsr> jsrs(Jsr[] jsrs) {
+        Jsr[] entry = new Jsr[length];
+        for (int i = 0; i < length; i++)
+            entry[i] = jsrs[ordinals[offset + i]];
+        return List.of(entry);
+    }
 }
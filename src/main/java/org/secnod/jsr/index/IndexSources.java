@@ -0,0 +1,36 @@
+package org.secnod.jsr.index;
+
+import java.util.List;
+import java.util.Map;
+
+import org.secnod.jsr.Jsr;
+import org.secnod.jsr.JsrId;
+import org.secnod.jsr.JsrMetadata;
+
+/**
+ * The data and metadata an index was built from, kept for {@linkplain JsrIndex.Delta updating} the index without a
+ * full rebuild. Never modified, an update copies the maps as {@linkplain OverlayMap overlays} sharing the JSRs and
+ * metadata that did not change.
+ */
+class IndexSources {
+
+    /**
+     * Copies of the JSRs as given, before metadata is merged, packages are inherited and umbrella tags are propagated
+     */
+    final Map<JsrId, Jsr> data;
+    final Map<Integer, JsrMetadata> metadata; // by JSR number
+    final Map<JsrId, List<JsrId>> successors; // the JSRs succeeding each JSR, ordered by JSR ID, without umbrella JSRs
+    /**
+     * The interner the JSRs were frozen with, shared by every index updated from the index, so that the JSRs of a
+     * delta share package names, tags and sets of them with the JSRs they did not change
+     */
+    final Interner interner;
+
+    IndexSources(Map<JsrId, Jsr> data, Map<Integer, JsrMetadata> metadata, Map<JsrId, List<JsrId>> successors,
+            Interner interner) {
+        this.data = data;
+        this.metadata = metadata;
+        this.successors = successors;
+        this.interner = interner;
+    }
+}
@@ -0,0 +1,57 @@
+package org.secnod.jsr.index;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.secnod.jsr.Jsr;
+import org.secnod.jsr.JsrId;
+
+/**
+ * A JSR of a built index, {@linkplain #isFrozen() frozen} once the index has resolved it, so that it cannot be changed
+ * behind the back of the titles, statuses, tags and words the index holds for it.
+ */
+class IndexedJsr extends Jsr {
+
+    private boolean frozen; // published by the final fields of the index
+    private boolean sharedTags; // the immutable tags of the JSR as given
+
+    IndexedJsr(JsrId id) {
+        super(id);
+    }
+
+    /**
+     * @param jsr
+     *            the JSR to copy, as given to the index with its collections interned. The copy shares the immutable
+     *            collections instead of copying them, and replaces its tags before tagging.
+     */
+    IndexedJsr(Jsr jsr) {
+        super(jsr.id);
+        title = jsr.title;
+        description = jsr.getDescription();
+        succeeds = jsr.succeeds;
+        packages = jsr.packages;
+        status = jsr.status;
+        detailsPage = jsr.getDetailsPage();
+        umbrella = jsr.umbrella;
+        tags = jsr.tags;
+        sharedTags = true;
+    }
+
+    @Override
+    public void tag(Set<String> tags) {
+        if (sharedTags && !frozen) {
+            this.tags = this.tags != null ? new LinkedHashSet<>(this.tags) : null;
+            sharedTags = false;
+        }
+        super.tag(tags);
+    }
+
+    void freeze() {
+        frozen = true;
+    }
+
+    @Override
+    public boolean isFrozen() {
+        return frozen;
+    }
+}
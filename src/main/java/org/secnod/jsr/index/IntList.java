@@ -0,0 +1,73 @@
+package org.secnod.jsr.index;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of primitive ints.
+ */
+class IntList {
+
+    private int[] values;
+    private int size;
+
+    IntList() {
+        this(4);
+    }
+
+    IntList(int capacity) {
+        values = new int[capacity];
+    }
+
+    void add(int value) {
+        if (size == values.length)
+            values = Arrays.copyOf(values, Math.max(4, size * 2));
+        values[size++] = value;
+    }
+
+    void add(int i, int value) {
+        if (i < 0 || i > size)
+            throw new IndexOutOfBoundsException(i);
+        if (size == values.length)
+            values = Arrays.copyOf(values, Math.max(4, size * 2));
+        System.arraycopy(values, i, values, i + 1, size - i);
+        values[i] = value;
+        size++;
+    }
+
+    void addAll(IntList list) {
+        if (size + list.size > values.length)
+            values = Arrays.copyOf(values, Math.max(size + list.size, size * 2));
+        list.copyTo(values, size);
+        size += list.size;
+    }
+
+    int get(int i) {
+        if (i >= size)
+            throw new IndexOutOfBoundsException(i);
+        return values[i];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Copies the values into {@code target} starting at {@code offset}.
+     */
+    void copyTo(int[] target, int offset) {
+        System.arraycopy(values, 0, target, offset, size);
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
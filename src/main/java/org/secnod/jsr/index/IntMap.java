@@ -0,0 +1,147 @@
+package org.secnod.jsr.index;
+
+import java.util.function.Consumer;
+
+/**
+ * A map from primitive int keys to non-null values, with open addressing and linear probing. Avoids the boxed keys and
+ * entry objects of a {@link java.util.HashMap}, for maps keyed by JSR number.
+ */
+final class IntMap<V> {
+
+    private int[] keys;
+    private Object[] values; // null for an empty slot
+    private int size;
+
+    IntMap() {
+        this(8);
+    }
+
+    /**
+     * @param expectedSize
+     *            the number of keys the map can hold without growing
+     */
+    IntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        keys = new int[capacity];
+        values = new Object[capacity];
+    }
+
+    /**
+     * Copy constructor.
+     */
+    IntMap(IntMap<V> map) {
+        keys = map.keys.clone();
+        values = map.values.clone();
+        size = map.size;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(int key) {
+        for (int i = slot(key);; i = (i + 1) & (keys.length - 1)) {
+            if (values[i] == null)
+                return null;
+            if (keys[i] == key)
+                return (V) values[i];
+        }
+    }
+
+    V getOrDefault(int key, V defaultValue) {
+        V value = get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * @return the previous value of the key, or {@code null} if there was none
+     */
+    @SuppressWarnings("unchecked")
+    V put(int key, V value) {
+        if (value == null)
+            throw new NullPointerException("value");
+        int i = slot(key);
+        for (; values[i] != null; i = (i + 1) & (keys.length - 1)) {
+            if (keys[i] == key) {
+                V previous = (V) values[i];
+                values[i] = value;
+                return previous;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > keys.length)
+            grow();
+        return null;
+    }
+
+    /**
+     * @return the removed value of the key, or {@code null} if there was none
+     */
+    @SuppressWarnings("unchecked")
+    V remove(int key) {
+        int mask = keys.length - 1;
+        int i = slot(key);
+        while (values[i] != null && keys[i] != key)
+            i = (i + 1) & mask;
+        if (values[i] == null)
+            return null;
+        V removed = (V) values[i];
+        // Shift later entries of the probe sequence back into the hole
+        for (int hole = i, next = (i + 1) & mask;; next = (next + 1) & mask) {
+            if (values[next] == null) {
+                values[hole] = null;
+                break;
+            }
+            int home = slot(keys[next]);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+        }
+        size--;
+        return removed;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Performs an action for each value, in no particular order.
+     */
+    @SuppressWarnings("unchecked")
+    void forEachValue(Consumer<? super V> action) {
+        for (Object value : values)
+            if (value != null)
+                action.accept((V) value);
+    }
+
+    private int slot(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ h >>> 16) & (keys.length - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void grow() {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++)
+            if (oldValues[i] != null)
+                put(oldKeys[i], (V) oldValues[i]);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] == null)
+                continue;
+            if (sb.length() > 1)
+                sb.append(", ");
+            sb.append(keys[i]).append('=').append(values[i]);
+        }
+        return sb.append('}').toString();
+    }
+}
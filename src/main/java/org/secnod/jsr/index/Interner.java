@@ -0,0 +1,48 @@
+package org.secnod.jsr.index;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Pools of strings and sets, so that JSRs share equal package names, tags and sets of them, for instance the package
+ * names a JSR inherits from its predecessor. Used while building or loading an index, and thread safe for building in
+ * parallel.
+ */
+final class Interner {
+
+    private final ConcurrentMap<String, String> strings = new ConcurrentHashMap<>();
+    private final ConcurrentMap<List<Object>, Set<?>> sets = new ConcurrentHashMap<>();
+
+    String intern(String s) {
+        if (s == null)
+            return null;
+        String pooled = strings.putIfAbsent(s, s);
+        return pooled != null ? pooled : s;
+    }
+
+    /**
+     * @return an immutable set of pooled strings or other elements, equal to and iterating in the same order as the
+     *         given set, or {@code null} for {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    <E> Set<E> intern(Set<E> set) {
+        if (set == null)
+            return null;
+        Object[] elements = set.toArray();
+        for (int i = 0; i < elements.length; i++)
+            if (elements[i] instanceof String)
+                elements[i] = intern((String) elements[i]);
+        List<Object> key = Arrays.asList(elements);
+        Set<?> pooled = sets.get(key);
+        if (pooled == null) {
+            Set<?> copy = ArraySet.copyOf(key);
+            pooled = sets.putIfAbsent(key, copy);
+            if (pooled == null)
+                pooled = copy;
+        }
+        return (Set<E>) pooled;
+    }
+}
@@ -1,20 +1,36 @@
 package org.secnod.jsr.index;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import org.secnod.jsr.Jsr;
 import org.secnod.jsr.JsrId;
 import org.secnod.jsr.JsrMetadata;
+import org.secnod.jsr.JsrMetadataSource;
+import org.secnod.jsr.JsrStatus;
+import org.secnod.jsr.util.StringUtils;
 
 /**
  * A queryable index of JSRs. Built from {@code JsrData.json} and {@code JsrMetadata.json}.
@@ -28,102 +44,375 @@ import org.secnod.jsr.JsrMetadata;
  * </p>
  * <p>
  * JSRs are organized into {@linkplain Lineage lineages} based on the chain of successors from the most recent
- * {@linkplain Lineage#heir() heir} JSR and back to the earliest ancestor.
+ * {@linkplain Lineage#heir() heir} JSR and back to the earliest ancestor. The {@linkplain #succession(JsrId)
+ * succession} of each JSR is navigated by ordinal in a graph computed when the index is built.
  * </p>
  * <p>
- * All JSRs in a lineage need not specify the same packages. When used as an {@link IndexEntry} in {@link #index} for a
- * specific package, a {@link Lineage} is {@linkplain Lineage#filterByPackage(String) turned into} one index entry for
- * each package it specifies.
+ * All JSRs in a lineage need not specify the same packages. Every JSR has an ordinal, its position in JSR ID order,
+ * and each {@link Lineage} is {@linkplain Lineage#projectPackages(Map) projected} in one pass onto the packages it
+ * specifies, giving the ordinals of its JSRs for each package.
  * </p>
  * <p>
- * Finally, this index maps packages names to multiple {@linkplain IndexEntry index entries}.
+ * An index is immutable once built. The builder works on copies of the JSRs it is given, and the JSRs of a built index
+ * are {@linkplain Jsr#isFrozen() frozen}: they reject {@link Jsr#merge} and {@link Jsr#tag} and have unmodifiable
+ * collections, so an index can be shared freely between threads. The fields of {@link Jsr} are public for
+ * compatibility, and assigning them on a JSR of an index is not detected, so it must never be done. A {@link Delta}
+ * produces an updated index from an index, and {@link JsrIndexHolder} replaces an index while it is in use.
+ * </p>
+ * <p>
+ * Finally, this index maps packages names to {@linkplain IndexEntry index entries}, slices of one shared array of
+ * ordinals. They are resolved into one list of JSRs per package name in a {@link PackageTrie}, which answers package
+ * and class name queries by longest prefix match.
  * </p>
  */
 public class JsrIndex {
 
-    private final Set<Jsr> jsrs;
-    private final Map<String, Collection<IndexEntry>> index;
+    private final Set<Jsr> jsrs; // unmodifiable
+    private final Jsr[] ordinals; // the ordinal of a JSR is its position in JSR ID order
+    private final JsrNumberTable jsrNumbers; // ordinals by JSR ID
+    private final PackageTrie packageIndex;
+    private final Map<String, BitSet> tagIndex; // ordinals of the JSRs with each tag
+    private final EnumMap<JsrStatus, BitSet> statusIndex; // ordinals of the JSRs with each status
+    private final String[] lowerCaseTitles; // by ordinal
+    private volatile TextIndex textIndex; // built on the first search with lazy metadata
+    private volatile TextIndex titleIndex; // built on the first title terms query
+    private final OrdinalSet umbrellas;
+    private final SuccessionGraph succession;
+    private final List<String> allTags; // sorted
+    private final List<String> allPackages; // sorted
+    private final IndexSources sources; // null for an index loaded from a snapshot
+    private volatile TrigramIndex packageTrigrams; // by position in allPackages, built on the first suggestion
+    private volatile TrigramIndex titleTrigrams; // by ordinal, built on the first suggestion
+
+    /**
+     * @param ordinals
+     *            frozen JSRs in JSR ID order, with metadata merged, packages inherited and tags propagated from umbrella
+     *            JSRs
+     * @param packages
+     *            the non-empty index entry of each package name
+     */
+    JsrIndex(Jsr[] ordinals, Map<String, IndexEntry> packages) {
+        this(ordinals, packages, null, null, true);
+    }
+
+    /**
+     * @param pool
+     *            the pool to index text on, or {@code null} to build the index on the calling thread
+     * @param sources
+     *            the data and metadata the index is built from, or {@code null} if the index cannot be updated
+     * @param indexText
+     *            if the text index is built now rather than on the first search, which would fetch every lazily
+     *            fetched description
+     */
+    JsrIndex(Jsr[] ordinals, Map<String, IndexEntry> packages, ForkJoinPool pool, IndexSources sources,
+            boolean indexText) {
+        this.ordinals = ordinals;
+        this.jsrNumbers = new JsrNumberTable(ordinals);
+        this.sources = sources;
+        BitSet all = new BitSet(ordinals.length);
+        all.set(0, ordinals.length);
+        this.jsrs = new OrdinalSet(ordinals, all);
+
+        this.packageIndex = new PackageTrie();
+        for (Map.Entry<String, IndexEntry> e : packages.entrySet())
+            packageIndex.put(e.getKey(), e.getValue().jsrs(ordinals));
+
+        this.tagIndex = new HashMap<>();
+        this.statusIndex = new EnumMap<>(JsrStatus.class);
+        for (int i = 0; i < ordinals.length; i++) {
+            Jsr jsr = ordinals[i];
+            if (jsr.isTagged())
+                for (String tag : jsr.tags)
+                    tagIndex.computeIfAbsent(tag, t -> new BitSet()).set(i);
+            if (jsr.status != null)
+                statusIndex.computeIfAbsent(jsr.status, t -> new BitSet()).set(i);
+        }
+
+        this.lowerCaseTitles = new String[ordinals.length];
+        for (int i = 0; i < ordinals.length; i++)
+            lowerCaseTitles[i] = ordinals[i].title != null ? ordinals[i].title.toLowerCase() : "";
+        this.textIndex = indexText ? new TextIndex(ordinals, pool, true) : null;
+
+        BitSet umbrellaOrdinals = new BitSet(ordinals.length);
+        for (int i = 0; i < ordinals.length; i++)
+            if (ordinals[i].isUmbrella())
+                umbrellaOrdinals.set(i);
+        this.umbrellas = new OrdinalSet(ordinals, umbrellaOrdinals);
+        this.succession = new SuccessionGraph(ordinals);
+        this.allTags = List.copyOf(new TreeSet<>(tagIndex.keySet()));
+        this.allPackages = List.copyOf(new TreeSet<>(packages.keySet()));
+    }
+
+    /**
+     * An updated index, see {@link Delta}
+     */
+    private JsrIndex(Jsr[] ordinals, JsrNumberTable jsrNumbers, PackageTrie packageIndex, Map<String, BitSet> tagIndex,
+            EnumMap<JsrStatus, BitSet> statusIndex, String[] lowerCaseTitles, TextIndex textIndex, TextIndex titleIndex,
+            BitSet umbrellaOrdinals, SuccessionGraph succession, List<String> allTags, List<String> allPackages,
+            IndexSources sources) {
+        this.ordinals = ordinals;
+        this.jsrNumbers = jsrNumbers;
+        BitSet all = new BitSet(ordinals.length);
+        all.set(0, ordinals.length);
+        this.jsrs = new OrdinalSet(ordinals, all);
+        this.packageIndex = packageIndex;
+        this.tagIndex = tagIndex;
+        this.statusIndex = statusIndex;
+        this.lowerCaseTitles = lowerCaseTitles;
+        this.textIndex = textIndex;
+        this.titleIndex = titleIndex;
+        this.umbrellas = new OrdinalSet(ordinals, umbrellaOrdinals);
+        this.succession = succession;
+        this.allTags = allTags;
+        this.allPackages = allPackages;
+        this.sources = sources;
+    }
 
-    private JsrIndex(Collection<Jsr> jsrs, Map<String, Collection<IndexEntry>> index) {
-        this.jsrs = new TreeSet<>(jsrs);
-        this.index = index;
+    /**
+     * @return all JSRs indexed by their ordinal. Must not be modified.
+     */
+    Jsr[] ordinals() {
+        return ordinals;
     }
 
+    /**
+     * @return all JSRs ordered by JSR ID, as an unmodifiable set
+     */
     public Set<Jsr> all() {
-        return new TreeSet<>(jsrs);
+        return jsrs;
     }
 
     public Jsr queryById(JsrId id) {
-        for (Jsr jsr : jsrs)
-            if (id.equals(jsr.id)) return jsr;
-        return null;
+        int ordinal = ordinalOf(id);
+        return ordinal >= 0 ? ordinals[ordinal] : null;
+    }
+
+    /**
+     * @return the ordinal of the JSR with the given ID, or a negative number if there is none
+     */
+    int ordinalOf(JsrId id) {
+        return jsrNumbers.ordinalOf(ordinals, id);
+    }
+
+    /**
+     * @return the place of the JSR in its lineage, or {@code null} if there is no JSR with the ID
+     */
+    public Succession succession(JsrId id) {
+        int ordinal = ordinalOf(id);
+        return ordinal >= 0 ? new Succession(ordinals, succession, ordinal) : null;
+    }
+
+    SuccessionGraph successionGraph() {
+        return succession;
     }
 
+    /**
+     * @return the JSR with the given ID first, if any, followed by the other variants of its JSR number
+     */
     public Collection<Jsr> queryAllByIdOrNumber(JsrId id) {
-        List<Jsr> matches = new ArrayList<>();
-        List<Jsr> partialMatches = new ArrayList<>();
-        for (Jsr jsr : jsrs) {
-            if (id.equals(jsr.id))
+        List<Jsr> variants = variants(id.jsrNumber);
+        if (variants.isEmpty())
+            return List.of();
+        Jsr exact = queryById(id);
+        if (exact == null || variants.get(0) == exact)
+            return variants;
+        List<Jsr> matches = new ArrayList<>(variants.size());
+        matches.add(exact);
+        for (Jsr jsr : variants)
+            if (jsr != exact)
                 matches.add(jsr);
-            else if (id.jsrNumber.equals(jsr.id.jsrNumber))
-                partialMatches.add(jsr);
-        }
-        matches.addAll(partialMatches);
         return matches;
     }
 
-    public Jsr queryByPackage(String packageName) {
-        Collection<Jsr> jsrs = queryAllByPackage(packageName);
-        return jsrs != null && !jsrs.isEmpty() ? jsrs.iterator().next() : null;
+    public Jsr queryByPackage(CharSequence packageName) {
+        List<Jsr> jsrs = packageIndex.longestMatch(packageName);
+        return !jsrs.isEmpty() ? jsrs.get(0) : null;
     }
 
-    public Collection<Jsr> queryAllByPackage(String packageName) {
-        while (packageName != null) {
-            Collection<IndexEntry> entries = index.get(packageName);
-            if (entries == null) {
-                packageName = levelUp(packageName);
-                continue;
-            }
+    /**
+     * @param packageName
+     *            a package or fully qualified class name
+     * @return the JSRs specifying the given package or its closest specified parent package, with the most recent JSR
+     *         of each lineage first. The returned list is immutable.
+     */
+    public List<Jsr> queryAllByPackage(CharSequence packageName) {
+        return packageIndex.longestMatch(packageName);
+    }
 
-            List<Jsr> matches = new ArrayList<>();
-            for (IndexEntry r : entries) {
-                matches.addAll(r.jsrs);
-            }
+    public Collection<Jsr> queryByTag(String tag) {
+        return queryByTags(TagQuery.tag(tag));
+    }
 
-            if (matches.isEmpty()) {
-                packageName = levelUp(packageName);
-                continue;
-            }
+    /**
+     * @return the JSRs matching the tag query, ordered by JSR ID. Tags inherited from umbrella JSRs are included. The
+     *         set is a view of the matching ordinals, and its stream is lazy.
+     */
+    public Set<Jsr> queryByTags(TagQuery query) {
+        return new OrdinalSet(ordinals, tagged(query));
+    }
+
+    /**
+     * @return the ordinals of the JSRs matching the tag query, owned by the caller
+     */
+    BitSet tagged(TagQuery query) {
+        return query.evaluate(tagIndex, ordinals.length);
+    }
 
-            return matches;
+    /**
+     * @return an upper bound of the number of JSRs matching the tag query, without evaluating it
+     */
+    int countTagged(TagQuery query) {
+        return query.estimate(tagIndex, ordinals.length);
+    }
+
+    /**
+     * @return the JSRs with any of the statuses, ordered by JSR ID. JSRs without metadata have no status.
+     */
+    public Set<Jsr> queryByStatus(JsrStatus status, JsrStatus... more) {
+        return new OrdinalSet(ordinals, withStatus(EnumSet.of(status, more)));
+    }
+
+    /**
+     * @return the ordinals of the JSRs with any of the statuses, owned by the caller
+     */
+    BitSet withStatus(Set<JsrStatus> statuses) {
+        BitSet ordinals = new BitSet();
+        for (JsrStatus status : statuses) {
+            BitSet withStatus = statusIndex.get(status);
+            if (withStatus != null)
+                ordinals.or(withStatus);
         }
-        return List.of();
+        return ordinals;
     }
 
-    public Collection<Jsr> queryByTag(String tag) {
-        Set<Jsr> matches = new TreeSet<>();
-        for (Jsr jsr : jsrs)
-            if (jsr.isTagged() && jsr.tags.contains(tag))
-                matches.add(jsr);
-        return matches;
+    /**
+     * @return the number of JSRs with any of the statuses
+     */
+    int countWithStatus(Set<JsrStatus> statuses) {
+        int count = 0;
+        for (JsrStatus status : statuses) {
+            BitSet withStatus = statusIndex.get(status);
+            if (withStatus != null)
+                count += withStatus.cardinality();
+        }
+        return count;
+    }
+
+    /**
+     * @return the JSRs matching every predicate of the query, ordered by JSR ID
+     * @see #explain(JsrQuery)
+     */
+    public Set<Jsr> query(JsrQuery query) {
+        return new OrdinalSet(ordinals, QueryPlan.plan(this, query).execute());
+    }
+
+    /**
+     * @return the plan {@link #query(JsrQuery)} evaluates the query with, from estimates of the number of JSRs each
+     *         predicate matches
+     */
+    public QueryPlan explain(JsrQuery query) {
+        return QueryPlan.plan(this, query);
     }
 
     public Collection<Jsr> queryByTitle(String phrase) {
         String searchTerm = phrase.toLowerCase();
-        Set<Jsr> matches = new TreeSet<>();
-        for (Jsr jsr : jsrs)
-            if (jsr.title.toLowerCase().contains(searchTerm))
-                matches.add(jsr);
-        return matches;
+        BitSet matches = new BitSet(ordinals.length);
+        for (int i = 0; i < ordinals.length; i++)
+            if (lowerCaseTitles[i].contains(searchTerm))
+                matches.set(i);
+        return new OrdinalSet(ordinals, matches);
+    }
+
+    /**
+     * The lazy form of {@link #queryByTitle(String)}. Titles are only matched as far as the stream is consumed, so
+     * {@code streamByTitle(phrase).skip(offset).limit(limit)} stops at the last JSR of the page.
+     *
+     * @return the JSRs with a title containing the phrase, ordered by JSR ID
+     */
+    public Stream<Jsr> streamByTitle(String phrase) {
+        String searchTerm = phrase.toLowerCase();
+        return IntStream.range(0, ordinals.length)
+                .filter(i -> lowerCaseTitles[i].contains(searchTerm))
+                .mapToObj(i -> ordinals[i]);
+    }
+
+    /**
+     * Full text search in the titles and descriptions of the JSRs. Words are matched case insensitively, and a query
+     * term ending with {@code *} matches every word starting with the term.
+     *
+     * @param query
+     *            space separated terms that must all be present in either the title or the description
+     * @return the matching JSRs, ranked by relevance with title matches scoring higher than description matches
+     */
+    public List<Jsr> search(String query) {
+        int[] ranked = textIndex().search(query);
+        Jsr[] matches = new Jsr[ranked.length];
+        for (int i = 0; i < ranked.length; i++)
+            matches[i] = ordinals[ranked[i]];
+        return List.of(matches);
+    }
+
+    /**
+     * The lazy form of {@link #search(String)}. The matching JSRs are found up front, but only ranked as far as the
+     * stream is consumed, so a page of {@code k} JSRs from {@code m} matches is ranked in {@code O(m + k log m)}
+     * rather than {@code O(m log m)} time.
+     *
+     * @return the matching JSRs in the same order as {@link #search(String)}
+     */
+    public Stream<Jsr> streamSearch(String query) {
+        return textIndex().searchLazily(query).mapToObj(i -> ordinals[i]);
+    }
+
+    /**
+     * Suggests package names for a misspelled or partially typed package name, for instance {@code javax.servlet} for
+     * {@code javax.servelt}. Suggestions are found through an index of the trigrams in the package names, built on the
+     * first suggestion, and only the package names sharing enough trigrams with the name are compared with it. This
+     * keeps suggesting fast enough for every keystroke in an interactive lookup.
+     *
+     * @param name
+     *            at least three characters of a package name, compared case insensitively
+     * @param limit
+     *            the maximum number of suggestions
+     * @return the package names sharing a trigram with the name and starting with it within an edit distance of one
+     *         per four characters of the name, closest first, then sharing the most trigrams with the name and then in
+     *         sorted order
+     */
+    public List<String> suggestPackages(String name, int limit) {
+        TrigramIndex trigrams = packageTrigrams;
+        if (trigrams == null)
+            packageTrigrams = trigrams = new TrigramIndex(allPackages.toArray(new String[0]), false);
+        int[] closest = trigrams.closest(name, limit);
+        String[] suggestions = new String[closest.length];
+        for (int i = 0; i < closest.length; i++)
+            suggestions[i] = allPackages.get(closest[i]);
+        return List.of(suggestions);
+    }
+
+    /**
+     * Suggests JSRs for a misspelled or partially typed phrase of their title, for instance the Java Servlet JSRs for
+     * {@code servelt}. Like {@link #suggestPackages(String, int)}, but the phrase may match anywhere in the title.
+     *
+     * @param phrase
+     *            at least three characters of a title, compared case insensitively
+     * @param limit
+     *            the maximum number of suggestions
+     * @return the JSRs with a title sharing a trigram with the phrase and containing it within an edit distance of
+     *         one per four characters of the phrase, closest first, then sharing the most trigrams with the phrase and
+     *         then by JSR ID
+     */
+    public List<Jsr> suggestByTitle(String phrase, int limit) {
+        TrigramIndex trigrams = titleTrigrams;
+        if (trigrams == null)
+            titleTrigrams = trigrams = new TrigramIndex(lowerCaseTitles, true);
+        int[] closest = trigrams.closest(phrase, limit);
+        Jsr[] suggestions = new Jsr[closest.length];
+        for (int i = 0; i < closest.length; i++)
+            suggestions[i] = ordinals[closest[i]];
+        return List.of(suggestions);
     }
 
     public Collection<Jsr> queryByUmbrella() {
-        Set<Jsr> umbrellas = new TreeSet<>();
-        for (Jsr jsr : jsrs)
-            if (jsr.isUmbrella())
-                umbrellas.add(jsr);
         return umbrellas;
-
     }
 
     public Jsr jsrNumberForPackage(String packageName) {
@@ -131,137 +420,888 @@ public class JsrIndex {
     }
 
     public Collection<JsrId> jsrNumbersForPackage(String packageName) {
-        List<JsrId> jsrIds = new ArrayList<>();
-        Collection<Jsr> matches = queryAllByPackage(packageName);
-        for (Jsr jsr : matches) {
-            jsrIds.add(jsr.id);
+        return packageIndex.longestMatchIds(packageName);
+    }
+
+    /**
+     * Resolves many package or fully qualified class names at once, for instance every class referenced by an
+     * application. Each distinct package is only looked up once.
+     *
+     * @param names
+     *            package or class names, where class names are recognized by segments starting with an upper case
+     *            letter
+     */
+    public PackageResolution resolveAll(Stream<? extends CharSequence> names) {
+        Map<String, List<JsrId>> resolvedPackages = new HashMap<>();
+        Map<String, List<JsrId>> resolved = new LinkedHashMap<>();
+        Set<String> unresolved = new LinkedHashSet<>();
+        names.forEach(n -> {
+            String name = n.toString();
+            if (resolved.containsKey(name))
+                return;
+            List<JsrId> ids = resolvedPackages.computeIfAbsent(packageOf(name), packageIndex::longestMatchIds);
+            if (ids.isEmpty())
+                unresolved.add(name);
+            else
+                resolved.put(name, ids);
+        });
+        return new PackageResolution(resolved, new ArrayList<>(unresolved));
+    }
+
+    /**
+     * @see #resolveAll(Stream)
+     */
+    public PackageResolution resolveAll(String... names) {
+        return resolveAll(Arrays.stream(names));
+    }
+
+    /**
+     * @return the package of a fully qualified class name, including nested classes, or the name itself if it is not
+     *         a class name
+     */
+    static String packageOf(String name) {
+        int length = packageLength(name);
+        return length < name.length() ? name.substring(0, length) : name;
+    }
+
+    /**
+     * @return the length of the {@linkplain #packageOf(String) package} at the start of a name
+     */
+    static int packageLength(CharSequence name) {
+        for (int segmentStart = 0; segmentStart < name.length();) {
+            if (Character.isUpperCase(name.charAt(segmentStart)))
+                return segmentStart > 0 ? segmentStart - 1 : name.length();
+            int dot = segmentStart;
+            while (dot < name.length() && name.charAt(dot) != '.')
+                dot++;
+            segmentStart = dot + 1;
         }
-        return jsrIds;
+        return name.length();
     }
 
-    public Collection<String> findAllTags() {
-        Set<String> tags = new TreeSet<>();
-        for (Jsr jsr : jsrs)
-            if (jsr.isTagged())
-                tags.addAll(jsr.tags);
-        return tags;
+    /**
+     * @return all tags in sorted order, as an unmodifiable list
+     */
+    public List<String> findAllTags() {
+        return allTags;
+    }
+
+    /**
+     * @return all package names specified by a JSR in sorted order, as an unmodifiable list
+     */
+    public List<String> findAllPackages() {
+        return allPackages;
+    }
+
+    /**
+     * @return the package names equal to or under a package, in sorted order
+     */
+    List<String> findAllPackages(String packageName) {
+        int from = Collections.binarySearch(allPackages, packageName);
+        if (from < 0)
+            from = -(from + 1);
+        List<String> packageNames = new ArrayList<>();
+        for (String name : allPackages.subList(from, allPackages.size())) {
+            if (!name.startsWith(packageName))
+                break; // names starting with the package name are adjacent
+            if (isPackageUnder(name, packageName))
+                packageNames.add(name);
+        }
+        return packageNames;
+    }
+
+    /**
+     * @return if the package name is equal to or a subpackage of the parent package name
+     */
+    static boolean isPackageUnder(String packageName, String parent) {
+        return packageName.startsWith(parent)
+                && (packageName.length() == parent.length() || parent.isEmpty()
+                        || packageName.charAt(parent.length()) == '.');
+    }
+
+    /**
+     * @return the JSRs specifying exactly this package, in the order of {@link #queryAllByPackage(CharSequence)}
+     */
+    List<Jsr> packageJsrs(String packageName) {
+        return packageIndex.get(packageName);
+    }
+
+    /**
+     * @return the variants of a JSR number, ordered by JSR ID, which are adjacent in JSR ID order
+     */
+    List<Jsr> variants(int jsrNumber) {
+        int first = jsrNumbers.firstOrdinalOf(jsrNumber);
+        if (first < 0)
+            return List.of();
+        int end = first + 1;
+        while (end < ordinals.length && ordinals[end].id.jsrNumber == jsrNumber)
+            end++;
+        return List.of(Arrays.copyOfRange(ordinals, first, end));
     }
 
-    public Collection<String> findAllPackages() {
-        Set<String> packages = new TreeSet<>();
-        for (Jsr jsr : jsrs)
-            if (jsr.specifiesPackages())
-                packages.addAll(jsr.packages);
-        return packages;
+    TextIndex textIndex() {
+        TextIndex index = textIndex;
+        if (index == null)
+            textIndex = index = new TextIndex(ordinals);
+        return index;
     }
 
-    private static String levelUp(String packageName) {
-        int pos = packageName.lastIndexOf('.');
-        return pos != -1 ? packageName.substring(0, pos) : null;
+    /**
+     * @return an index of the words in titles only, which never fetches lazily fetched descriptions
+     */
+    TextIndex titleIndex() {
+        TextIndex index = titleIndex;
+        if (index == null)
+            titleIndex = index = new TextIndex(ordinals, null, false);
+        return index;
+    }
+
+    /**
+     * @return an empty delta to update this index with
+     * @throws IllegalStateException
+     *             if this index was loaded from a {@linkplain JsrIndexSnapshot snapshot} or built with
+     *             {@linkplain Builder#lazyMetadata(JsrMetadataSource) lazy metadata}, which do not keep the data and
+     *             metadata needed for updating
+     */
+    public Delta delta() {
+        if (sources == null)
+            throw new IllegalStateException("An index loaded from a snapshot or with lazy metadata cannot be updated");
+        return new Delta(this);
     }
 
     public static class Builder {
-        private SortedMap<JsrId, Jsr> entries = new TreeMap<>(); // ordering by JSR number used as a heuristic for indexing
-        private Map<String, Collection<IndexEntry>> index = new HashMap<>();
-        private Collection<JsrMetadata> metadata = List.of();
+        private SortedMap<JsrId, Jsr> entries = new TreeMap<>(); // copies as given, ordered by JSR ID
 
-        private Map<Integer, JsrMetadata> metadataIndex = new HashMap<>();
+        private IntMap<JsrMetadata> metadataIndex = new IntMap<>(); // by JSR number
+        private JsrMetadataSource lazyMetadata;
+        private Supplier<? extends Collection<JsrMetadata>> pendingMetadata;
+        private final Interner interner = new Interner();
 
-        private Map<JsrId, Lineage> lineages = new HashMap<>(); // the newest JSR of each lineage
-        private Map<Integer, Set<Jsr>> variantIndex = new HashMap<>(); // variants of each JSR number
-        private Set<Jsr> umbrellas = new HashSet<>();
+        private List<Lineage> lineages = new ArrayList<>(); // in JSR ID order of the earliest ancestor
+        private IntMap<List<Jsr>> variantIndex = new IntMap<>(); // variants of each JSR number
+        private List<Jsr> umbrellas = new ArrayList<>(); // in JSR ID order
+        private int parallelism = 1;
 
         public Builder() {}
 
+        /**
+         * @param jsrs
+         *            JSRs to index. The index is built from copies, the given JSRs are not modified.
+         */
         public Builder data(Collection<Jsr> jsrs) {
-            for (Jsr jsr : jsrs)
-                entries.put(jsr.id, jsr);
+            for (Jsr jsr : jsrs) {
+                Jsr copy = new Jsr(jsr);
+                freeze(copy, interner);
+                entries.put(jsr.id, copy);
+            }
+            return this;
+        }
+
+        /**
+         * Adds a JSR without a defensive copy, for reading JSRs straight into the builder, as in
+         * {@code JsrDataStore.readJson(reader, builder::add)}. The builder takes ownership of the JSR, which must not be
+         * modified afterwards: its collections are interned in place and the JSR is kept as given for updating the
+         * index. The index resolves a copy of it that shares those collections.
+         */
+        public Builder add(Jsr jsr) {
+            freeze(jsr, interner);
+            entries.put(jsr.id, jsr);
             return this;
         }
 
         public Builder metadata(Collection<JsrMetadata> metadata) {
             if (metadata != null)
-                this.metadata = metadata;
+                for (JsrMetadata datum : metadata)
+                    add(datum);
+            return this;
+        }
+
+        /**
+         * Adds the metadata of a JSR number, as in {@code JsrMetadataStore.readJson(reader, builder::add)}.
+         */
+        public Builder add(JsrMetadata metadata) {
+            metadataIndex.put(metadata.id, metadata);
+            return this;
+        }
+
+        /**
+         * Adds metadata that is still being loaded, for instance on another thread as in
+         * {@code builder.pendingMetadata(future::join)}. Resolving lineages and projecting them onto packages needs no
+         * metadata, so the supplier is only called after that, and loading the metadata overlaps with building the
+         * index.
+         */
+        public Builder pendingMetadata(Supplier<? extends Collection<JsrMetadata>> metadata) {
+            this.pendingMetadata = metadata;
+            return this;
+        }
+
+        /**
+         * Fetches metadata from a source when it is accessed instead of merging it into every JSR when the index is
+         * built, for instance from a memory mapped {@code BinaryMetadataStore}, so that only the metadata of the JSRs
+         * that are shown is ever decoded. Titles and statuses are still merged when the index is built, to be queried
+         * on, while descriptions and details pages are fetched by {@link Jsr#getDescription()} and
+         * {@link Jsr#getDetailsPage()} and are not set in the fields of the JSRs. The text index of descriptions is
+         * built on the first search.
+         * <p>
+         * The source takes precedence over metadata {@linkplain #add(JsrMetadata) added} for the same JSR number. An
+         * index with lazy metadata cannot be updated with a {@link Delta}.
+         * </p>
+         */
+        public Builder lazyMetadata(JsrMetadataSource source) {
+            this.lazyMetadata = source;
+            return this;
+        }
+
+        /**
+         * Builds the index on a fork-join pool of this many threads, for datasets far larger than the bundled data.
+         * Merging metadata, resolving lineages, projecting lineages onto packages and indexing text are split into
+         * shards of JSRs or lineages, and the shards are merged in order. The index is identical to an index built
+         * on one thread.
+         *
+         * @param parallelism
+         *            the number of threads, or 1, the default, to build the index on the calling thread
+         */
+        public Builder parallelism(int parallelism) {
+            if (parallelism < 1)
+                throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+            this.parallelism = parallelism;
             return this;
         }
 
         public JsrIndex build() {
+            if (parallelism == 1)
+                return build(null);
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                return build(pool);
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        private JsrIndex build(ForkJoinPool pool) {
             for (Jsr jsr : entries.values())
                 if (jsr.succeeds != null && !entries.containsKey(jsr.succeeds))
                     throw new IllegalStateException("JSR " + jsr + " succeeds unknown JSR " + jsr.succeeds);
 
-            for (JsrMetadata datum : metadata)
-                metadataIndex.put(datum.id, datum);
+            Map<JsrId, List<JsrId>> successors = new HashMap<>();
+            List<Jsr> ancestors = new ArrayList<>();
+            int lineageMembers = 0;
+
+            // Resolved by ordinal from copies of the entries, which are kept as given for updating the index
+            Jsr[] given = entries.values().toArray(new Jsr[0]);
+            Jsr[] jsrs = given.clone();
+            Map<JsrId, Integer> ordinals = new HashMap<>();
+            for (int i = 0; i < jsrs.length; i++)
+                ordinals.put(jsrs[i].id, i);
 
-            var pendingSuccessor = new ArrayList<Jsr>();
+            Shards.run(pool, jsrs.length, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    if (lazyMetadata != null && lazyMetadata.contains(jsrs[i].id.jsrNumber))
+                        jsrs[i] = new LazyMetadataJsr(jsrs[i], lazyMetadata);
+                    else
+                        jsrs[i] = new IndexedJsr(jsrs[i]); // metadata is merged once lineages are resolved
+                }
+            });
 
-            for (Jsr jsr : entries.values()) {
-                Set<Jsr> variants = variantIndex.get(jsr.id.jsrNumber); // For tagging umbrella JSRs
+            for (Jsr jsr : jsrs) {
+                List<Jsr> variants = variantIndex.get(jsr.id.jsrNumber); // For tagging umbrella JSRs
                 if (variants == null) {
-                    variants = new HashSet<>();
+                    variants = new ArrayList<>(1);
                     variantIndex.put(jsr.id.jsrNumber, variants);
                 }
                 variants.add(jsr);
 
-                JsrMetadata metadata = metadataIndex.get(jsr.id.jsrNumber);
-                jsr.merge(metadata);
-
                 if (jsr.isUmbrella()) {
                     umbrellas.add(jsr);
                     // Umbrella JSRs do not specify package names directly.
                     continue;
                 }
 
-                if (jsr.succeeds != null && !lineages.containsKey(jsr.succeeds)) {
-                    // Handle succeeding JSR before preceding later
-                    pendingSuccessor.add(jsr);
-                    continue;
-                }
-
-                if (jsr.succeeds != null && lineages.containsKey(jsr.succeeds)) {
-                    Lineage kin = lineages.get(jsr.succeeds);
-                    kin.add(jsr);
+                lineageMembers++;
+                if (jsr.succeeds != null) {
+                    if (entries.get(jsr.succeeds).isUmbrella())
+                        throw new IllegalStateException("JSR " + jsr + " succeeds umbrella JSR " + jsr.succeeds);
+                    successors.computeIfAbsent(jsr.succeeds, id -> new ArrayList<>(1)).add(jsr.id);
                 } else {
-                    if (!jsr.isUmbrella() && !jsr.specifiesPackages())
+                    if (!jsr.specifiesPackages())
                         throw new IllegalStateException("Missing package names for " + jsr.id);
-                    lineages.put(jsr.id, new Lineage(jsr, lineages));
+                    ancestors.add(jsr);
                 }
             }
 
-            while (!pendingSuccessor.isEmpty()) {
-                for (Iterator<Jsr> i = pendingSuccessor.iterator(); i.hasNext();) {
-                    Jsr jsr = i.next();
-                    Lineage kin = lineages.get(jsr.succeeds);
-                    if (kin == null)
-                        continue;
-                    kin.add(jsr);
-                    i.remove();
-                }
+            // One topological pass over the succession graph, from each earliest ancestor to its successors
+            for (List<Lineage> shard : Shards.map(pool, ancestors.size(), (from, to) -> {
+                List<Lineage> resolved = new ArrayList<>(to - from);
+                for (Jsr ancestor : ancestors.subList(from, to))
+                    resolved.add(Lineage.resolve(ancestor, successors, jsrs, ordinals::get));
+                return resolved;
+            })) {
+                for (Lineage kin : shard)
+                    lineageMembers -= kin.size();
+                lineages.addAll(shard);
             }
 
-            // Tag inheritance from umbrella JSRs
+            if (lineageMembers > 0) {
+                // Every JSR not reached from an ancestor is in or succeeds a cycle
+                for (Jsr jsr : entries.values())
+                    if (!jsr.isUmbrella() && jsr.succeeds != null)
+                        checkAcyclic(jsr, entries);
+                throw new IllegalStateException("Unresolved succession of " + lineageMembers + " JSRs");
+            }
+
+            // Tag inheritance from umbrella JSRs, of the tags given to each umbrella JSR and in JSR ID order
             for (Jsr umbrella : umbrellas) {
+                Set<String> tags = entries.get(umbrella.id).tags;
                 for (JsrId jsrId : umbrella.umbrella) {
-                    Set<Jsr> targets = variantIndex.get(jsrId.jsrNumber); // umbrells all variants of a JSR number
+                    List<Jsr> targets = variantIndex.get(jsrId.jsrNumber); // umbrells all variants of a JSR number
                     if (targets == null || targets.isEmpty())
                         throw new IllegalStateException(umbrella + " is umbrella for missing JSR " + jsrId);
-                    for (Jsr jsr : targets)
-                        jsr.tag(umbrella.tags);
+                    if (tags != null)
+                        for (Jsr jsr : targets)
+                            jsr.tag(tags);
+                }
+            }
+
+            // One pass over every lineage member and its packages
+            Map<String, IntList> projections = null;
+            for (Map<String, IntList> shard : Shards.map(pool, lineages.size(), (from, to) -> {
+                Map<String, IntList> projected = new TreeMap<>();
+                for (Lineage kin : lineages.subList(from, to))
+                    kin.projectPackages(projected);
+                return projected;
+            })) {
+                if (projections == null) {
+                    projections = shard;
+                } else {
+                    for (Map.Entry<String, IntList> e : shard.entrySet())
+                        projections.computeIfAbsent(e.getKey(), p -> new IntList()).addAll(e.getValue());
+                }
+            }
+
+            if (pendingMetadata != null) {
+                metadata(pendingMetadata.get());
+                pendingMetadata = null;
+            }
+            Shards.run(pool, jsrs.length, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    if (!(jsrs[i] instanceof LazyMetadataJsr))
+                        jsrs[i].merge(metadataIndex.get(jsrs[i].id.jsrNumber));
+                    freeze((IndexedJsr) jsrs[i], given[i], interner);
+                }
+            });
+
+            for (Map.Entry<JsrId, List<JsrId>> e : successors.entrySet())
+                e.setValue(List.copyOf(e.getValue()));
+            if (lazyMetadata != null)
+                return new JsrIndex(jsrs, slice(projections), pool, null, false);
+            Map<Integer, JsrMetadata> metadata = new HashMap<>(metadataIndex.size() * 2);
+            metadataIndex.forEachValue(datum -> metadata.put(datum.id, datum));
+            IndexSources sources = new IndexSources(new HashMap<>(entries), metadata, successors, interner);
+
+            return new JsrIndex(jsrs, slice(projections), pool, sources, true);
+        }
+
+        /**
+         * @return an index entry for every package, all sharing one array of ordinals
+         */
+        static Map<String, IndexEntry> slice(Map<String, IntList> projections) {
+            int size = 0;
+            for (IntList ordinals : projections.values())
+                size += ordinals.size();
+            int[] pool = new int[size];
+            Map<String, IndexEntry> index = new HashMap<>(projections.size() * 2);
+            int offset = 0;
+            for (Map.Entry<String, IntList> e : projections.entrySet()) {
+                IntList ordinals = e.getValue();
+                ordinals.copyTo(pool, offset);
+                index.put(e.getKey(), new IndexEntry(pool, offset, ordinals.size()));
+                offset += ordinals.size();
+            }
+            return index;
+        }
+
+        /**
+         * @throws IllegalStateException
+         *             if the JSR is in or succeeds a cycle of successors in {@code data}
+         */
+        static void checkAcyclic(Jsr jsr, Map<JsrId, Jsr> data) {
+            Set<JsrId> chain = new LinkedHashSet<>();
+            for (Jsr predecessor = jsr; predecessor.succeeds != null; predecessor = data.get(predecessor.succeeds)) {
+                if (!chain.add(predecessor.id)) {
+                    List<JsrId> cycle = new ArrayList<>(chain);
+                    cycle = cycle.subList(cycle.indexOf(predecessor.id), cycle.size());
+                    throw new IllegalStateException("Cyclic succession: JSR " + StringUtils.toString(cycle, " succeeds JSR ")
+                            + " succeeds JSR " + predecessor.id);
+                }
+            }
+        }
+
+        /**
+         * Replaces the collections of a JSR with immutable sets from the pools of the interner, shared with every other
+         * JSR with equal package names, umbrella JSR IDs or tags.
+         */
+        static void freeze(Jsr jsr, Interner interner) {
+            jsr.packages = interner.intern(jsr.packages);
+            jsr.umbrella = interner.intern(jsr.umbrella);
+            jsr.tags = interner.intern(jsr.tags);
+        }
+
+        /**
+         * Freezes a resolved JSR, interning only the collections it no longer shares with the JSR it was copied from,
+         * whose collections are interned already: package names inherited from a predecessor and inherited tags.
+         */
+        static void freeze(IndexedJsr jsr, Jsr given, Interner interner) {
+            if (jsr.packages != given.packages)
+                jsr.packages = interner.intern(jsr.packages);
+            if (jsr.tags != given.tags)
+                jsr.tags = interner.intern(jsr.tags);
+            jsr.freeze();
+        }
+    }
+
+    /**
+     * Added, changed and removed JSRs and metadata, applied to an index to produce an updated index without a full
+     * rebuild. The updated index is the same as an index built from the updated data and metadata.
+     * <p>
+     * Only the lineages of changed JSRs, the JSRs of JSR numbers with changed metadata and the JSRs tagged by changed
+     * umbrella JSRs are resolved again, and only their packages, tags and words are indexed again. All other JSRs and
+     * the query results of all other packages are shared with the previous index. So are the JSRs of each tag and the
+     * postings of each word, unless JSRs are added or removed, which moves the ordinals of the JSRs after them. The
+     * previous index is not modified.
+     * </p>
+     * <p>
+     * The data and metadata kept for the next delta are {@linkplain OverlayMap overlays} of the changes over the data
+     * and metadata of an earlier index. When every JSR keeps its ordinal, the only other copies are the arrays of JSRs
+     * and titles by ordinal, and the posting lists of the words of changed JSRs are spliced around the postings of the
+     * changed JSRs, or shared if those did not change. Adding or removing JSRs moves the ordinals of the JSRs after
+     * them, so it still moves the ordinals of every posting, tag and status. See {@code DeltaBenchmark} for the cost
+     * against a rebuild.
+     * </p>
+     */
+    public static class Delta {
+        private final JsrIndex index;
+        private final Map<JsrId, Jsr> changes = new TreeMap<>(); // null for a removed JSR
+        private final Map<Integer, JsrMetadata> metadataChanges = new HashMap<>(); // null for removed metadata
+        private final Interner interner;
+
+        private Delta(JsrIndex index) {
+            this.index = index;
+            this.interner = index.sources.interner;
+        }
+
+        /**
+         * Adds a JSR, or replaces the JSR with the same ID. The index is updated with a copy, the given JSR is not
+         * modified.
+         */
+        public Delta put(Jsr jsr) {
+            Jsr copy = new Jsr(jsr);
+            Builder.freeze(copy, interner);
+            changes.put(jsr.id, copy);
+            return this;
+        }
+
+        public Delta remove(JsrId id) {
+            if (!index.sources.data.containsKey(id) && changes.get(id) == null)
+                throw new IllegalArgumentException("Unknown JSR " + id);
+            changes.put(id, null);
+            return this;
+        }
+
+        /**
+         * Adds or replaces the metadata of a JSR number.
+         */
+        public Delta put(JsrMetadata metadata) {
+            metadataChanges.put(metadata.id, metadata);
+            return this;
+        }
+
+        public Delta removeMetadata(int jsrNumber) {
+            metadataChanges.put(jsrNumber, null);
+            return this;
+        }
+
+        /**
+         * @return the updated index
+         * @throws IllegalStateException
+         *             for updated data an index cannot be built from, see {@link Builder#build()}
+         */
+        public JsrIndex apply() {
+            IndexSources previous = index.sources;
+            Map<JsrId, Jsr> data = new OverlayMap<>(previous.data);
+            for (Map.Entry<JsrId, Jsr> e : changes.entrySet()) {
+                if (e.getValue() != null)
+                    data.put(e.getKey(), e.getValue());
+                else
+                    data.remove(e.getKey());
+            }
+            Map<Integer, JsrMetadata> metadata = new OverlayMap<>(previous.metadata);
+            for (Map.Entry<Integer, JsrMetadata> e : metadataChanges.entrySet()) {
+                if (e.getValue() != null)
+                    metadata.put(e.getKey(), e.getValue());
+                else
+                    metadata.remove(e.getKey());
+            }
+
+            Map<JsrId, List<JsrId>> successors = new OverlayMap<>(previous.successors);
+            List<JsrId> umbrellas = new ArrayList<>(index.umbrellas.size() + changes.size()); // in JSR ID order
+            for (Jsr umbrella : index.umbrellas)
+                umbrellas.add(umbrella.id);
+            for (JsrId id : changes.keySet()) {
+                Jsr before = previous.data.get(id), after = data.get(id);
+                if (before != null && before.succeeds != null && !before.isUmbrella())
+                    successors.computeIfPresent(before.succeeds, (predecessor, ids) -> without(ids, id));
+                if (after != null && after.succeeds != null && !after.isUmbrella())
+                    successors.compute(after.succeeds, (predecessor, ids) -> with(ids, id));
+                int u = Collections.binarySearch(umbrellas, id);
+                if (u >= 0 && (after == null || !after.isUmbrella()))
+                    umbrellas.remove(u);
+                else if (u < 0 && after != null && after.isUmbrella())
+                    umbrellas.add(-(u + 1), id);
+            }
+            check(data, successors, umbrellas);
+
+            // The changed JSRs, the variants of JSR numbers with changed metadata or umbrella JSRs, and their lineages
+            Set<Integer> jsrNumbers = new HashSet<>(metadataChanges.keySet());
+            for (JsrId id : changes.keySet())
+                for (Jsr umbrella : Arrays.asList(previous.data.get(id), data.get(id)))
+                    if (umbrella != null && umbrella.isUmbrella())
+                        for (JsrId jsrId : umbrella.umbrella)
+                            jsrNumbers.add(jsrId.jsrNumber);
+            SortedSet<JsrId> affected = new TreeSet<>(changes.keySet());
+            for (Integer jsrNumber : jsrNumbers)
+                affected.addAll(variants(jsrNumber, data));
+            SortedSet<JsrId> ancestors = new TreeSet<>(); // of the lineages to resolve
+            Set<JsrId> previousAncestors = new HashSet<>();
+            var pending = new ArrayDeque<JsrId>(affected);
+            while (!pending.isEmpty()) {
+                JsrId id = pending.remove();
+                Jsr before = previous.data.get(id), after = data.get(id);
+                if (before != null && !before.isUmbrella()) {
+                    JsrId ancestor = ancestorOf(before, previous.data);
+                    if (previousAncestors.add(ancestor))
+                        for (JsrId member : lineage(ancestor, previous.successors))
+                            if (affected.add(member))
+                                pending.add(member);
+                }
+                if (after != null && !after.isUmbrella()) {
+                    JsrId ancestor = ancestorOf(after, data);
+                    if (ancestors.add(ancestor))
+                        for (JsrId member : lineage(ancestor, successors))
+                            if (affected.add(member))
+                                pending.add(member);
                 }
             }
 
-            for (Lineage kin : lineages.values()) {
-                for (String packageName : kin.allPackageNames()) {
-                    IndexEntry indexEntry = kin.filterByPackage(packageName);
-                    Collection<IndexEntry> existing = index.get(packageName);
-                    if (existing != null)
-                        existing.add(indexEntry);
+            // Ordinals, where the ordinals of the JSRs after added or removed JSRs move. The JSRs between affected JSRs
+            // are copied in bulk.
+            Jsr[] previousOrdinals = index.ordinals;
+            int[] previousPositions = new int[affected.size()]; // of each affected JSR, as by Arrays.binarySearch
+            int length = previousOrdinals.length, p = 0;
+            boolean shifted = false; // unless JSRs are added or removed, every JSR keeps its ordinal
+            for (JsrId id : affected) {
+                int o = index.jsrNumbers.ordinalOf(previousOrdinals, id);
+                previousPositions[p++] = o >= 0 ? o : Arrays.binarySearch(previousOrdinals, new Jsr(id));
+                length += (data.containsKey(id) ? 1 : 0) - (o >= 0 ? 1 : 0);
+                shifted |= data.containsKey(id) != o >= 0;
+            }
+            Jsr[] ordinals = shifted ? new Jsr[length] : previousOrdinals.clone();
+            int[] moved = new int[previousOrdinals.length]; // only of stale ordinals unless shifted
+            BitSet stale = new BitSet(previousOrdinals.length);
+            BitSet fresh = new BitSet(length);
+            int from = 0, to = 0;
+            p = 0;
+            for (JsrId id : affected) {
+                int o = previousPositions[p++];
+                int kept = (o >= 0 ? o : -(o + 1)) - from;
+                if (shifted) {
+                    System.arraycopy(previousOrdinals, from, ordinals, to, kept);
+                    for (int i = from; i < from + kept; i++)
+                        moved[i] = i + to - from;
+                }
+                from += kept;
+                to += kept;
+                if (data.containsKey(id)) {
+                    fresh.set(to);
+                    ordinals[to++] = new IndexedJsr(data.get(id));
+                }
+                if (o >= 0) {
+                    stale.set(o);
+                    moved[o] = data.containsKey(id) ? to - 1 : -1;
+                    from++;
+                }
+            }
+            if (shifted) {
+                System.arraycopy(previousOrdinals, from, ordinals, to, previousOrdinals.length - from);
+                for (int i = from; i < previousOrdinals.length; i++)
+                    moved[i] = i + to - from;
+            }
+
+            // Resolve the affected JSRs as the builder does
+            Map<JsrId, Integer> freshOrdinals = new HashMap<>();
+            for (int o = fresh.nextSetBit(0); o >= 0; o = fresh.nextSetBit(o + 1)) {
+                freshOrdinals.put(ordinals[o].id, o);
+                ordinals[o].merge(metadata.get(ordinals[o].id.jsrNumber));
+            }
+            Map<JsrId, Map<String, IntList>> projections = new TreeMap<>(); // of each resolved lineage
+            for (JsrId ancestor : ancestors) {
+                Jsr jsr = ordinals[freshOrdinals.get(ancestor)];
+                Map<String, IntList> projected = new HashMap<>();
+                Lineage.resolve(jsr, successors, ordinals, freshOrdinals::get).projectPackages(projected);
+                projections.put(ancestor, projected);
+            }
+            // Tags of umbrella JSRs in JSR ID order of the umbrella JSRs, in one pass over the umbrella JSRs
+            IntMap<List<Jsr>> freshVariants = new IntMap<>();
+            for (int o = fresh.nextSetBit(0); o >= 0; o = fresh.nextSetBit(o + 1)) {
+                List<Jsr> variants = freshVariants.get(ordinals[o].id.jsrNumber);
+                if (variants == null)
+                    freshVariants.put(ordinals[o].id.jsrNumber, variants = new ArrayList<>(1));
+                variants.add(ordinals[o]);
+            }
+            for (JsrId umbrellaId : umbrellas) {
+                Jsr umbrella = data.get(umbrellaId);
+                if (umbrella.tags != null)
+                    for (JsrId jsrId : umbrella.umbrella)
+                        for (Jsr jsr : freshVariants.getOrDefault(jsrId.jsrNumber, List.of()))
+                            jsr.tag(umbrella.tags);
+            }
+            for (int o = fresh.nextSetBit(0); o >= 0; o = fresh.nextSetBit(o + 1))
+                Builder.freeze((IndexedJsr) ordinals[o], data.get(ordinals[o].id), interner);
+
+            // Query results of the packages of the affected JSRs, grouped by lineage in JSR ID order of the ancestor
+            Set<String> packageNames = new TreeSet<>();
+            for (int o = stale.nextSetBit(0); o >= 0; o = stale.nextSetBit(o + 1))
+                if (previousOrdinals[o].packages != null)
+                    packageNames.addAll(previousOrdinals[o].packages);
+            for (int o = fresh.nextSetBit(0); o >= 0; o = fresh.nextSetBit(o + 1))
+                if (ordinals[o].packages != null)
+                    packageNames.addAll(ordinals[o].packages);
+            PackageTrie packageIndex = index.packageIndex;
+            boolean packagesChanged = false;
+            for (String packageName : packageNames) {
+                List<Jsr> before = index.packageIndex.get(packageName);
+                SortedMap<JsrId, List<Jsr>> lineages = new TreeMap<>();
+                for (Jsr jsr : before)
+                    if (!affected.contains(jsr.id))
+                        lineages.computeIfAbsent(ancestorOf(jsr, data), a -> new ArrayList<>()).add(jsr);
+                for (Map.Entry<JsrId, Map<String, IntList>> e : projections.entrySet()) {
+                    IntList projected = e.getValue().get(packageName);
+                    if (projected != null) {
+                        List<Jsr> members = new ArrayList<>(projected.size());
+                        for (int k = 0; k < projected.size(); k++)
+                            members.add(ordinals[projected.get(k)]);
+                        lineages.put(e.getKey(), members);
+                    }
+                }
+                List<Jsr> after = new ArrayList<>();
+                for (List<Jsr> members : lineages.values())
+                    after.addAll(members);
+                packageIndex = packageIndex.with(packageName, after);
+                packagesChanged |= before.isEmpty() != after.isEmpty();
+            }
+            List<String> allPackages = index.allPackages;
+            if (packagesChanged) {
+                SortedSet<String> names = new TreeSet<>(allPackages);
+                for (String packageName : packageNames)
+                    if (!packageIndex.get(packageName).isEmpty())
+                        names.add(packageName);
                     else
-                        index.put(packageName, new ArrayList<>(List.of(indexEntry)));
+                        names.remove(packageName);
+                allPackages = List.copyOf(names);
+            }
+
+            Set<String> tags = new HashSet<>();
+            for (JsrId id : affected) {
+                Jsr before = index.queryById(id);
+                if (before != null && before.isTagged())
+                    tags.addAll(before.tags);
+            }
+            for (int o = fresh.nextSetBit(0); o >= 0; o = fresh.nextSetBit(o + 1))
+                if (ordinals[o].isTagged())
+                    tags.addAll(ordinals[o].tags);
+
+            Map<String, BitSet> tagIndex = new HashMap<>(index.tagIndex);
+            if (shifted)
+                tagIndex.replaceAll((tag, tagged) -> move(tagged, moved));
+            for (String tag : tags) {
+                BitSet tagged = tagIndex.get(tag);
+                tagged = tagged == null ? new BitSet() : shifted ? tagged : (BitSet) tagged.clone();
+                for (int o = stale.nextSetBit(0); o >= 0; o = stale.nextSetBit(o + 1))
+                    if (moved[o] >= 0)
+                        tagged.clear(moved[o]);
+                for (int o = fresh.nextSetBit(0); o >= 0; o = fresh.nextSetBit(o + 1))
+                    if (ordinals[o].isTagged() && ordinals[o].tags.contains(tag))
+                        tagged.set(o);
+                if (tagged.isEmpty())
+                    tagIndex.remove(tag);
+                else
+                    tagIndex.put(tag, tagged);
+            }
+            Set<JsrStatus> statuses = EnumSet.noneOf(JsrStatus.class); // of the changed JSRs
+            for (int o = stale.nextSetBit(0); o >= 0; o = stale.nextSetBit(o + 1))
+                if (previousOrdinals[o].status != null)
+                    statuses.add(previousOrdinals[o].status);
+            for (int o = fresh.nextSetBit(0); o >= 0; o = fresh.nextSetBit(o + 1))
+                if (ordinals[o].status != null)
+                    statuses.add(ordinals[o].status);
+            EnumMap<JsrStatus, BitSet> statusIndex = new EnumMap<>(JsrStatus.class);
+            for (Map.Entry<JsrStatus, BitSet> e : index.statusIndex.entrySet()) {
+                if (!shifted && !statuses.contains(e.getKey())) {
+                    statusIndex.put(e.getKey(), e.getValue());
+                    continue;
+                }
+                BitSet withStatus = shifted ? move(e.getValue(), moved) : (BitSet) e.getValue().clone();
+                for (int o = stale.nextSetBit(0); o >= 0; o = stale.nextSetBit(o + 1))
+                    if (moved[o] >= 0)
+                        withStatus.clear(moved[o]);
+                statusIndex.put(e.getKey(), withStatus);
+            }
+            for (int o = fresh.nextSetBit(0); o >= 0; o = fresh.nextSetBit(o + 1))
+                if (ordinals[o].status != null)
+                    statusIndex.computeIfAbsent(ordinals[o].status, t -> new BitSet()).set(o);
+            statusIndex.values().removeIf(BitSet::isEmpty);
+
+            List<String> allTags = tagIndex.keySet().equals(index.tagIndex.keySet())
+                    ? index.allTags
+                    : List.copyOf(new TreeSet<>(tagIndex.keySet()));
+
+            String[] lowerCaseTitles;
+            if (shifted) {
+                lowerCaseTitles = new String[ordinals.length];
+                for (int i = 0; i < previousOrdinals.length; i++)
+                    if (moved[i] >= 0)
+                        lowerCaseTitles[moved[i]] = index.lowerCaseTitles[i];
+            } else {
+                lowerCaseTitles = index.lowerCaseTitles.clone();
+            }
+            for (int o = fresh.nextSetBit(0); o >= 0; o = fresh.nextSetBit(o + 1))
+                lowerCaseTitles[o] = ordinals[o].title != null ? ordinals[o].title.toLowerCase() : "";
+
+            BitSet umbrellaOrdinals = index.umbrellas.ordinals();
+            umbrellaOrdinals = shifted ? move(umbrellaOrdinals, moved) : (BitSet) umbrellaOrdinals.clone();
+            for (int o = stale.nextSetBit(0); o >= 0; o = stale.nextSetBit(o + 1))
+                if (moved[o] >= 0)
+                    umbrellaOrdinals.clear(moved[o]);
+            for (int o = fresh.nextSetBit(0); o >= 0; o = fresh.nextSetBit(o + 1))
+                if (ordinals[o].isUmbrella())
+                    umbrellaOrdinals.set(o);
+
+            TextIndex textIndex = index.textIndex().update(previousOrdinals, stale, shifted ? moved : null, ordinals,
+                    fresh);
+            TextIndex titleIndex = index.titleIndex;
+            if (titleIndex != null)
+                titleIndex = titleIndex.update(previousOrdinals, stale, shifted ? moved : null, ordinals, fresh);
+
+            // The graph only depends on the predecessor of each ordinal
+            boolean successionChanged = shifted;
+            for (int o = fresh.nextSetBit(0); o >= 0 && !successionChanged; o = fresh.nextSetBit(o + 1))
+                successionChanged = !Objects.equals(predecessorOf(previousOrdinals[o]), predecessorOf(ordinals[o]));
+            SuccessionGraph succession = successionChanged ? new SuccessionGraph(ordinals) : index.succession;
+
+            return new JsrIndex(ordinals, shifted ? new JsrNumberTable(ordinals) : index.jsrNumbers, packageIndex,
+                    tagIndex, statusIndex, lowerCaseTitles, textIndex, titleIndex, umbrellaOrdinals, succession,
+                    allTags, allPackages, new IndexSources(data, metadata, successors, interner));
+        }
+
+        /**
+         * @return the ID of the JSR the JSR succeeds in the succession graph, or {@code null} if it starts a chain
+         */
+        private static JsrId predecessorOf(Jsr jsr) {
+            return jsr.succeeds != null && !jsr.isUmbrella() ? jsr.succeeds : null;
+        }
+
+        /**
+         * Checks the changed JSRs and their successors as the builder checks all JSRs.
+         */
+        private void check(Map<JsrId, Jsr> data, Map<JsrId, List<JsrId>> successors, List<JsrId> umbrellas) {
+            for (JsrId id : changes.keySet()) {
+                Jsr jsr = data.get(id);
+                List<JsrId> successorIds = successors.get(id);
+                if (jsr == null) {
+                    if (successorIds != null)
+                        throw new IllegalStateException("JSR " + successorIds.get(0) + " succeeds unknown JSR " + id);
+                    for (JsrId umbrella : umbrellas)
+                        if (isUmbrellaFor(data.get(umbrella), id.jsrNumber) && variants(id.jsrNumber, data).isEmpty())
+                            throw new IllegalStateException(umbrella + " is umbrella for missing JSR " + id);
+                } else if (jsr.succeeds != null && !data.containsKey(jsr.succeeds)) {
+                    throw new IllegalStateException("JSR " + jsr + " succeeds unknown JSR " + jsr.succeeds);
+                } else if (jsr.isUmbrella()) {
+                    if (successorIds != null)
+                        throw new IllegalStateException("JSR " + successorIds.get(0) + " succeeds umbrella JSR " + id);
+                    for (JsrId jsrId : jsr.umbrella)
+                        if (variants(jsrId.jsrNumber, data).isEmpty())
+                            throw new IllegalStateException(jsr + " is umbrella for missing JSR " + jsrId);
+                } else if (jsr.succeeds != null) {
+                    if (data.get(jsr.succeeds).isUmbrella())
+                        throw new IllegalStateException("JSR " + jsr + " succeeds umbrella JSR " + jsr.succeeds);
+                } else if (!jsr.specifiesPackages()) {
+                    throw new IllegalStateException("Missing package names for " + jsr.id);
                 }
             }
+        }
+
+        /**
+         * @return the IDs of the variants of a JSR number in the updated data
+         */
+        private Set<JsrId> variants(int jsrNumber, Map<JsrId, Jsr> data) {
+            Set<JsrId> variants = new TreeSet<>();
+            for (Jsr jsr : index.variants(jsrNumber))
+                if (data.containsKey(jsr.id))
+                    variants.add(jsr.id);
+            for (Map.Entry<JsrId, Jsr> e : changes.entrySet())
+                if (e.getKey().jsrNumber == jsrNumber && e.getValue() != null)
+                    variants.add(e.getKey());
+            return variants;
+        }
+
+        private static boolean isUmbrellaFor(Jsr umbrella, int jsrNumber) {
+            for (JsrId jsrId : umbrella.umbrella)
+                if (jsrId.jsrNumber == jsrNumber)
+                    return true;
+            return false;
+        }
+
+        private static JsrId ancestorOf(Jsr jsr, Map<JsrId, Jsr> data) {
+            Jsr ancestor = jsr;
+            for (int generations = 0; ancestor.succeeds != null; generations++) {
+                if (generations > data.size())
+                    Builder.checkAcyclic(jsr, data);
+                ancestor = data.get(ancestor.succeeds);
+            }
+            return ancestor.id;
+        }
+
+        /**
+         * @return the IDs of the JSRs of the lineage of an earliest ancestor
+         */
+        private static List<JsrId> lineage(JsrId ancestor, Map<JsrId, List<JsrId>> successors) {
+            List<JsrId> lineage = new ArrayList<>();
+            lineage.add(ancestor);
+            for (int i = 0; i < lineage.size(); i++)
+                lineage.addAll(successors.getOrDefault(lineage.get(i), List.of()));
+            return lineage;
+        }
+
+        private static List<JsrId> with(List<JsrId> ids, JsrId id) {
+            List<JsrId> result = ids != null ? new ArrayList<>(ids) : new ArrayList<>(1);
+            int i = Collections.binarySearch(result, id);
+            if (i < 0)
+                result.add(-(i + 1), id);
+            return List.copyOf(result);
+        }
+
+        private static List<JsrId> without(List<JsrId> ids, JsrId id) {
+            List<JsrId> result = new ArrayList<>(ids);
+            result.remove(id);
+            return !result.isEmpty() ? List.copyOf(result) : null;
+        }
 
-            return new JsrIndex(entries.values(), index);
+        private static BitSet move(BitSet ordinals, int[] moved) {
+            BitSet result = new BitSet();
+            for (int o = ordinals.nextSetBit(0); o >= 0; o = ordinals.nextSetBit(o + 1))
+                if (moved[o] >= 0)
+                    result.set(moved[o]);
+            return result;
         }
     }
 }
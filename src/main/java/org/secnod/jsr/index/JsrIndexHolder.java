@@ -0,0 +1,56 @@
+package org.secnod.jsr.index;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.secnod.jsr.Jsr;
+import org.secnod.jsr.JsrMetadata;
+
+/**
+ * Publishes the current {@link JsrIndex} to concurrent readers.
+ * <p>
+ * Readers call {@link #get()} once per unit of work and query the returned index, which is immutable. A new index
+ * is built off to the side and swapped in atomically, so readers see either the old or the new index in full and
+ * never wait for a rebuild.
+ * </p>
+ */
+public class JsrIndexHolder {
+
+    private final AtomicReference<JsrIndex> current;
+
+    public JsrIndexHolder(JsrIndex index) {
+        current = new AtomicReference<>(Objects.requireNonNull(index, "index"));
+    }
+
+    /**
+     * @return the current index
+     */
+    public JsrIndex get() {
+        return current.get();
+    }
+
+    /**
+     * Replaces the current index.
+     *
+     * @return the previous index
+     */
+    public JsrIndex set(JsrIndex index) {
+        return current.getAndSet(Objects.requireNonNull(index, "index"));
+    }
+
+    /**
+     * Builds a new index from data and metadata, for instance from a new {@code JsrData.json} and
+     * {@code JsrMetadata.json}, and replaces the current index with it. If building fails the current index is kept.
+     *
+     * @return the new index
+     */
+    public JsrIndex reload(Collection<Jsr> data, Collection<JsrMetadata> metadata) {
+        JsrIndex index = new JsrIndex.Builder()
+                .data(data)
+                .metadata(metadata)
+                .build();
+        current.set(index);
+        return index;
+    }
+}
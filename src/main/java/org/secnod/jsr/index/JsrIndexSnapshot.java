@@ -0,0 +1,393 @@
+package org.secnod.jsr.index;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.secnod.jsr.Jsr;
+import org.secnod.jsr.JsrId;
+import org.secnod.jsr.JsrStatus;
+import org.secnod.jsr.store.JsrDataStore;
+import org.secnod.jsr.store.JsrMetadataStore;
+
+/**
+ * A compact binary snapshot of a fully built {@link JsrIndex}.
+ * <p>
+ * The Maven build writes a snapshot of the bundled {@code JsrData.json} and {@code JsrMetadata.json} to the resource
+ * {@value #FILENAME} next to this class. Loading a snapshot reads the resolved JSRs and the query result of every
+ * package in one sequential pass, skipping JSON parsing, metadata merging, lineage resolution and umbrella tag
+ * propagation.
+ * </p>
+ * <p>
+ * A snapshot records a SHA-256 digest of the JSON sources it was built from, see {@link #isCurrent()}.
+ * </p>
+ *
+ * <pre>
+ * snapshot = magic:int version:int digest:byte[32] jsrCount:int jsr* packageCount:int package*
+ * jsr      = id title:string description:string succeeds:id packages:strings status:byte detailsPage:string
+ *            umbrella:ids tags:strings
+ * package  = name:string ordinalCount:int ordinal:int*
+ * id       = jsrNumber:int variant:string, jsrNumber -1 for none
+ * string   = byteCount:int utf8:byte*, byteCount -1 for null
+ * strings  = count:int string*, count -1 for null
+ * ids      = count:int id*, count -1 for null
+ * status   = JsrStatus.code(), -1 for null
+ * </pre>
+ */
+public final class JsrIndexSnapshot {
+
+    public static final String FILENAME = "JsrIndex.bin";
+
+    private static final int MAGIC = 0x4A535258; // "JSRX"
+    private static final int VERSION = 1;
+    private static final int DIGEST_LENGTH = 32;
+    private static final int JSR_MIN_BYTES = 37; // an id with a variant and the lengths and counts of a jsr
+    private static final int PACKAGE_MIN_BYTES = 8; // the lengths of a name and of its ordinals
+
+    private JsrIndexSnapshot() {}
+
+    /**
+     * @param sourceDigest
+     *            the digest of the JSON sources of the index, see {@link #digest(InputStream...)}
+     */
+    public static void write(JsrIndex index, byte[] sourceDigest, OutputStream target) throws IOException {
+        if (sourceDigest.length != DIGEST_LENGTH)
+            throw new IllegalArgumentException("Not a SHA-256 digest: " + sourceDigest.length + " bytes");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(target));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.write(sourceDigest);
+
+        Jsr[] jsrs = index.ordinals();
+        out.writeInt(jsrs.length);
+        for (Jsr jsr : jsrs) {
+            writeId(out, jsr.id);
+            writeString(out, jsr.title);
+            writeString(out, jsr.getDescription());
+            writeId(out, jsr.succeeds);
+            writeStrings(out, jsr.packages);
+            out.writeByte(jsr.status != null ? jsr.status.code() : -1);
+            writeString(out, jsr.getDetailsPage() != null ? jsr.getDetailsPage().toString() : null);
+            writeIds(out, jsr.umbrella);
+            writeStrings(out, jsr.tags);
+        }
+
+        List<String> packageNames = index.findAllPackages();
+        out.writeInt(packageNames.size());
+        for (String packageName : packageNames) {
+            Collection<Jsr> matches = index.queryAllByPackage(packageName);
+            writeString(out, packageName);
+            out.writeInt(matches.size());
+            for (Jsr jsr : matches)
+                out.writeInt(Arrays.binarySearch(jsrs, jsr));
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads a snapshot in one sequential pass from the current position of the buffer.
+     *
+     * @throws IOException
+     *             if the buffer does not hold a valid snapshot
+     */
+    public static JsrIndex read(ByteBuffer buffer) throws IOException {
+        readHeader(buffer);
+        buffer.position(buffer.position() + DIGEST_LENGTH);
+        try {
+            return readIndex(new Reader(buffer));
+        } catch (BufferUnderflowException | IllegalArgumentException | IllegalStateException e) {
+            // Truncated, or an invalid URI, JSR ID or succession
+            throw new IOException("Corrupt JSR index snapshot", e);
+        }
+    }
+
+    private static JsrIndex readIndex(Reader reader) throws IOException {
+        ByteBuffer buffer = reader.buffer;
+        Jsr[] jsrs = new Jsr[reader.readCount(JSR_MIN_BYTES)];
+        for (int i = 0; i < jsrs.length; i++) {
+            JsrId id = reader.readId();
+            if (id == null || i > 0 && id.compareTo(jsrs[i - 1].id) <= 0)
+                throw new IOException("JSR " + id + " out of order in JSR index snapshot");
+            IndexedJsr jsr = new IndexedJsr(id);
+            jsr.title = reader.readString(false);
+            jsr.description = reader.readString(false);
+            jsr.succeeds = reader.readId();
+            jsr.packages = reader.readStrings();
+            jsr.status = readStatus(buffer.get());
+            String detailsPage = reader.readString(false);
+            jsr.detailsPage = detailsPage != null ? URI.create(detailsPage) : null;
+            jsr.umbrella = reader.readIds();
+            jsr.tags = reader.readStrings();
+            jsr.freeze();
+            jsrs[i] = jsr;
+        }
+
+        int packageCount = reader.readCount(PACKAGE_MIN_BYTES);
+        String[] packageNames = new String[packageCount];
+        int[] offsets = new int[packageCount + 1];
+        IntList pool = new IntList();
+        for (int i = 0; i < packageCount; i++) {
+            packageNames[i] = reader.readString(true);
+            if (packageNames[i] == null)
+                throw new IOException("Package without a name in JSR index snapshot");
+            for (int k = reader.readCount(4); k > 0; k--) {
+                int ordinal = buffer.getInt();
+                if (ordinal < 0 || ordinal >= jsrs.length)
+                    throw new IOException("Ordinal " + ordinal + " of " + packageNames[i] + " out of range in JSR index"
+                            + " snapshot of " + jsrs.length + " JSRs");
+                pool.add(ordinal);
+            }
+            offsets[i + 1] = pool.size();
+        }
+        int[] ordinals = pool.toArray();
+        Map<String, IndexEntry> packages = new HashMap<>(packageCount * 2);
+        for (int i = 0; i < packageCount; i++)
+            packages.put(packageNames[i], new IndexEntry(ordinals, offsets[i], offsets[i + 1] - offsets[i]));
+        return new JsrIndex(jsrs, packages);
+    }
+
+    /**
+     * Loads a snapshot by memory mapping a file.
+     */
+    public static JsrIndex load(File snapshot) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshot.toPath(), StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Loads the snapshot of the bundled JSON resources. The snapshot is memory mapped unless it is packaged in an
+     * archive.
+     *
+     * @return the index, or {@code null} if there is no bundled snapshot
+     */
+    public static JsrIndex load() throws IOException {
+        URL resource = JsrIndexSnapshot.class.getResource(FILENAME);
+        if (resource == null)
+            return null;
+        if ("file".equals(resource.getProtocol())) {
+            try {
+                return load(Path.of(resource.toURI()).toFile());
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+        }
+        try (InputStream in = resource.openStream()) {
+            return read(ByteBuffer.wrap(in.readAllBytes()));
+        }
+    }
+
+    /**
+     * Checks that the bundled snapshot was built from the bundled {@code JsrData.json} and {@code JsrMetadata.json}.
+     *
+     * @return {@code false} if the snapshot is missing or was built from other JSON sources
+     */
+    public static boolean isCurrent() throws IOException {
+        try (InputStream snapshot = JsrIndexSnapshot.class.getResourceAsStream(FILENAME)) {
+            if (snapshot == null)
+                return false;
+            ByteBuffer header = ByteBuffer.wrap(snapshot.readNBytes(8 + DIGEST_LENGTH));
+            readHeader(header);
+            byte[] snapshotDigest = new byte[DIGEST_LENGTH];
+            header.get(snapshotDigest);
+            return Arrays.equals(snapshotDigest, bundledSourceDigest());
+        }
+    }
+
+    /**
+     * @return the SHA-256 digest of the concatenated content of the sources
+     */
+    public static byte[] digest(InputStream... sources) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[8192];
+        for (InputStream source : sources)
+            for (int n; (n = source.read(buffer)) != -1;)
+                digest.update(buffer, 0, n);
+        return digest.digest();
+    }
+
+    private static byte[] bundledSourceDigest() throws IOException {
+        try (InputStream data = JsrDataStore.class.getResourceAsStream(JsrDataStore.FILENAME);
+                InputStream metadata = JsrMetadataStore.class.getResourceAsStream(JsrMetadataStore.FILENAME)) {
+            return digest(data, metadata);
+        }
+    }
+
+    private static JsrStatus readStatus(byte code) throws IOException {
+        if (code < 0)
+            return null;
+        try {
+            return JsrStatus.ofCode(code);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private static void readHeader(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < 8 + DIGEST_LENGTH || buffer.getInt() != MAGIC)
+            throw new IOException("Not a JSR index snapshot");
+        int version = buffer.getInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported JSR index snapshot version " + version + ", expected " + VERSION);
+    }
+
+    private static void writeId(DataOutputStream out, JsrId id) throws IOException {
+        if (id == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(id.jsrNumber);
+            writeString(out, id.variant);
+        }
+    }
+
+    private static void writeIds(DataOutputStream out, Set<JsrId> ids) throws IOException {
+        out.writeInt(ids != null ? ids.size() : -1);
+        if (ids != null)
+            for (JsrId id : ids)
+                writeId(out, id);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = s.getBytes(UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, Set<String> strings) throws IOException {
+        out.writeInt(strings != null ? strings.size() : -1);
+        if (strings != null)
+            for (String s : strings)
+                writeString(out, s);
+    }
+
+    private static class Reader {
+        final ByteBuffer buffer;
+        private final Interner interner = new Interner(); // shares package names, tags and sets of them between JSRs
+        private byte[] bytes = new byte[256];
+
+        Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * @param minBytes
+         *            the fewest bytes each of the counted items takes
+         * @return a count, checked against the bytes left before anything is allocated for it
+         */
+        int readCount(int minBytes) throws IOException {
+            return checkCount(buffer.getInt(), minBytes);
+        }
+
+        /**
+         * @return a count, or -1 for {@code null}
+         */
+        private int readNullableCount(int minBytes) throws IOException {
+            int count = buffer.getInt();
+            return count != -1 ? checkCount(count, minBytes) : -1;
+        }
+
+        private int checkCount(int count, int minBytes) throws IOException {
+            if (count < 0 || (long) count * minBytes > buffer.remaining())
+                throw new IOException("Invalid count " + count + " in JSR index snapshot");
+            return count;
+        }
+
+        String readString(boolean pooled) throws IOException {
+            int length = readNullableCount(1);
+            if (length < 0)
+                return null;
+            if (bytes.length < length)
+                bytes = new byte[Math.max(length, bytes.length * 2)];
+            buffer.get(bytes, 0, length);
+            String s = new String(bytes, 0, length, UTF_8);
+            return pooled ? interner.intern(s) : s;
+        }
+
+        Set<String> readStrings() throws IOException {
+            int count = readNullableCount(4);
+            if (count < 0)
+                return null;
+            Set<String> strings = new LinkedHashSet<>(count * 2);
+            for (int i = 0; i < count; i++)
+                strings.add(readString(true));
+            return interner.intern(strings);
+        }
+
+        JsrId readId() throws IOException {
+            int jsrNumber = buffer.getInt();
+            if (jsrNumber < -1)
+                throw new IOException("Invalid JSR number " + jsrNumber + " in JSR index snapshot");
+            if (jsrNumber < 0)
+                return null;
+            String variant = readString(false);
+            if (variant == null)
+                throw new IOException("JSR " + jsrNumber + " without a variant in JSR index snapshot");
+            return JsrId.of(jsrNumber, variant);
+        }
+
+        Set<JsrId> readIds() throws IOException {
+            int count = readNullableCount(8);
+            if (count < 0)
+                return null;
+            Set<JsrId> ids = new LinkedHashSet<>(count * 2);
+            for (int i = 0; i < count; i++)
+                ids.add(readId());
+            return interner.intern(ids);
+        }
+    }
+
+    /**
+     * Writes a snapshot of the bundled {@code JsrData.json} and {@code JsrMetadata.json}. Run by the Maven build.
+     *
+     * @param args
+     *            the snapshot file to write
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.printf("Usage: java %s <snapshot file>%n", JsrIndexSnapshot.class.getName());
+            System.exit(1);
+        }
+        JsrIndex.Builder builder = new JsrIndex.Builder();
+        JsrDataStore.readJson(builder::add);
+        JsrMetadataStore.readJson(builder::add);
+        JsrIndex index = builder.build();
+        File target = new File(args[0]);
+        if (target.getParentFile() != null && !target.getParentFile().isDirectory() && !target.getParentFile().mkdirs())
+            throw new IOException("Could not create directory " + target.getParentFile());
+        try (OutputStream out = new FileOutputStream(target)) {
+            write(index, bundledSourceDigest(), out);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.secnod.jsr.index;
+
+import org.secnod.jsr.Jsr;
+import org.secnod.jsr.JsrId;
+
+/**
+ * The ordinal of the first variant of each JSR number of an index, with open addressing and linear probing as in
+ * {@link IntMap} but without boxing the ordinals. The other variants of a JSR number follow the first in JSR ID order,
+ * so finding a JSR ID is one probe sequence and a scan of a few variants.
+ * <p>
+ * A table only holds ordinals, so it is shared by an updated index whose JSRs kept their ordinals.
+ * </p>
+ */
+final class JsrNumberTable {
+
+    private final int[] keys;
+    private final int[] firstOrdinals; // plus one, 0 for an empty slot
+
+    /**
+     * @param ordinals
+     *            the JSRs of an index by ordinal
+     */
+    JsrNumberTable(Jsr[] ordinals) {
+        int capacity = Integer.highestOneBit(Math.max(4, ordinals.length * 2 - 1)) << 1;
+        keys = new int[capacity];
+        firstOrdinals = new int[capacity];
+        for (int o = 0; o < ordinals.length; o++) {
+            int jsrNumber = ordinals[o].id.jsrNumber;
+            if (o > 0 && ordinals[o - 1].id.jsrNumber == jsrNumber)
+                continue;
+            int i = slot(jsrNumber);
+            while (firstOrdinals[i] != 0)
+                i = (i + 1) & (keys.length - 1);
+            keys[i] = jsrNumber;
+            firstOrdinals[i] = o + 1;
+        }
+    }
+
+    /**
+     * @param ordinals
+     *            the JSRs of the index the table was built for, or of an updated index with the same JSR IDs by
+     *            ordinal
+     * @return the ordinal of the JSR with the given ID, or -1 if there is none
+     */
+    int ordinalOf(Jsr[] ordinals, JsrId id) {
+        int jsrNumber = id.jsrNumber;
+        int first = firstOrdinalOf(jsrNumber);
+        if (first < 0)
+            return -1;
+        for (int o = first; o < ordinals.length && ordinals[o].id.jsrNumber == jsrNumber; o++)
+            if (ordinals[o].id.variant.equals(id.variant))
+                return o;
+        return -1;
+    }
+
+    /**
+     * @return the ordinal of the first variant of a JSR number, or -1 if there is none
+     */
+    int firstOrdinalOf(int jsrNumber) {
+        for (int i = slot(jsrNumber);; i = (i + 1) & (keys.length - 1)) {
+            if (firstOrdinals[i] == 0)
+                return -1;
+            if (keys[i] == jsrNumber)
+                return firstOrdinals[i] - 1;
+        }
+    }
+
+    private int slot(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ h >>> 16) & (keys.length - 1);
+    }
+}
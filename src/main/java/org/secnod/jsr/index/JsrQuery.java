@@ -0,0 +1,374 @@
+package org.secnod.jsr.index;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import org.secnod.jsr.Jsr;
+import org.secnod.jsr.JsrId;
+import org.secnod.jsr.JsrStatus;
+
+/**
+ * A query for the JSRs matching every one of its predicates, for instance the final JSRs tagged {@code JavaEE7} that
+ * specify a package under {@code javax.ws}:
+ *
+ * <pre>
+ * JsrQuery.all().packagePrefix("javax.ws").tag("JavaEE7").status(JsrStatus.FINAL)
+ * </pre>
+ * <p>
+ * Queries are immutable, every predicate returns a new query. They are evaluated by {@link JsrIndex#query(JsrQuery)}
+ * with a {@link QueryPlan} that starts from the most selective index and intersects the ordinals of the other indexed
+ * predicates, or filters the remaining JSRs by them once few enough are left.
+ * </p>
+ */
+public final class JsrQuery {
+
+    private static final JsrQuery ALL = new JsrQuery(List.of());
+
+    private final List<Predicate> predicates;
+
+    private JsrQuery(List<Predicate> predicates) {
+        this.predicates = predicates;
+    }
+
+    /**
+     * @return a query matching all JSRs, to be narrowed down by predicates
+     */
+    public static JsrQuery all() {
+        return ALL;
+    }
+
+    /**
+     * Matches the JSRs specifying the package or a package under it, including packages inherited from a predecessor.
+     */
+    public JsrQuery packagePrefix(String packageName) {
+        return and(new PackagePrefix(Objects.requireNonNull(packageName, "packageName")));
+    }
+
+    /**
+     * Matches the JSRs with the tag, including tags inherited from umbrella JSRs.
+     */
+    public JsrQuery tag(String tag) {
+        return tags(TagQuery.tag(tag));
+    }
+
+    /**
+     * Matches the JSRs matching the tag query, including tags inherited from umbrella JSRs.
+     */
+    public JsrQuery tags(TagQuery query) {
+        return and(new Tags(Objects.requireNonNull(query, "query")));
+    }
+
+    /**
+     * Matches the JSRs with any of the statuses.
+     */
+    public JsrQuery status(JsrStatus status, JsrStatus... more) {
+        return and(new Status(EnumSet.of(Objects.requireNonNull(status, "status"), more)));
+    }
+
+    /**
+     * Matches the JSRs with every term in the title. Terms are words compared case insensitively, and a term ending
+     * with {@code *} matches every word starting with the term, as in {@link JsrIndex#search(String)}.
+     */
+    public JsrQuery titleTerms(String terms) {
+        if (TextIndex.tokenize(Objects.requireNonNull(terms, "terms")).isEmpty())
+            throw new IllegalArgumentException("No title terms: " + terms);
+        return and(new TitleTerms(terms));
+    }
+
+    /**
+     * Matches the JSRs an umbrella JSR consists of, every variant of each JSR number of the umbrella JSR.
+     */
+    public JsrQuery memberOf(JsrId umbrella) {
+        return and(new MemberOf(Objects.requireNonNull(umbrella, "umbrella")));
+    }
+
+    /**
+     * Matches the JSRs succeeding a JSR, directly or through other successors.
+     */
+    public JsrQuery succeeds(JsrId predecessor) {
+        return and(new Succeeds(Objects.requireNonNull(predecessor, "predecessor")));
+    }
+
+    private JsrQuery and(Predicate predicate) {
+        List<Predicate> and = new ArrayList<>(predicates.size() + 1);
+        and.addAll(predicates);
+        and.add(predicate);
+        return new JsrQuery(Collections.unmodifiableList(and));
+    }
+
+    List<Predicate> predicates() {
+        return predicates;
+    }
+
+    @Override
+    public String toString() {
+        if (predicates.isEmpty())
+            return "all";
+        StringBuilder sb = new StringBuilder();
+        for (Predicate predicate : predicates)
+            sb.append(sb.length() > 0 ? " AND " : "").append(predicate);
+        return sb.toString();
+    }
+
+    /**
+     * A predicate on JSRs, answered by an index of the JSRs or by testing each JSR.
+     */
+    abstract static class Predicate {
+
+        /**
+         * @return an upper bound of the number of matching JSRs, cheap to compute from the index
+         */
+        abstract int estimate(JsrIndex index);
+
+        /**
+         * @return the ordinals of the matching JSRs, owned by the caller
+         */
+        abstract BitSet ordinals(JsrIndex index);
+
+        abstract boolean test(JsrIndex index, Jsr jsr);
+    }
+
+    private static class PackagePrefix extends Predicate {
+        private final String prefix;
+
+        PackagePrefix(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        int estimate(JsrIndex index) {
+            int estimate = 0;
+            for (String packageName : index.findAllPackages(prefix))
+                estimate += index.packageJsrs(packageName).size();
+            return estimate;
+        }
+
+        @Override
+        BitSet ordinals(JsrIndex index) {
+            BitSet ordinals = new BitSet();
+            for (String packageName : index.findAllPackages(prefix))
+                for (Jsr jsr : index.packageJsrs(packageName))
+                    ordinals.set(index.ordinalOf(jsr.id));
+            return ordinals;
+        }
+
+        @Override
+        boolean test(JsrIndex index, Jsr jsr) {
+            if (jsr.packages != null)
+                for (String packageName : jsr.packages)
+                    if (JsrIndex.isPackageUnder(packageName, prefix))
+                        return true;
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return "package " + prefix;
+        }
+    }
+
+    private static class Tags extends Predicate {
+        private final TagQuery query;
+
+        Tags(TagQuery query) {
+            this.query = query;
+        }
+
+        @Override
+        int estimate(JsrIndex index) {
+            return index.countTagged(query);
+        }
+
+        @Override
+        BitSet ordinals(JsrIndex index) {
+            return index.tagged(query);
+        }
+
+        @Override
+        boolean test(JsrIndex index, Jsr jsr) {
+            return query.matches(jsr.tags);
+        }
+
+        @Override
+        public String toString() {
+            return "tags " + query;
+        }
+    }
+
+    private static class Status extends Predicate {
+        private final Set<JsrStatus> statuses;
+
+        Status(Set<JsrStatus> statuses) {
+            this.statuses = statuses;
+        }
+
+        @Override
+        int estimate(JsrIndex index) {
+            return index.countWithStatus(statuses);
+        }
+
+        @Override
+        BitSet ordinals(JsrIndex index) {
+            return index.withStatus(statuses);
+        }
+
+        @Override
+        boolean test(JsrIndex index, Jsr jsr) {
+            return jsr.status != null && statuses.contains(jsr.status);
+        }
+
+        @Override
+        public String toString() {
+            return "status " + statuses;
+        }
+    }
+
+    private static class TitleTerms extends Predicate {
+        private final String terms;
+        private final List<String> words;
+        private final BitSet prefixes; // positions of the words matching as a prefix
+
+        /**
+         * Tokenized as by {@link TextIndex}: the last word of each token ending with {@code *} is a prefix.
+         */
+        TitleTerms(String terms) {
+            this.terms = terms.trim();
+            List<String> words = new ArrayList<>();
+            BitSet prefixes = new BitSet();
+            for (String token : this.terms.split("\\s+")) {
+                boolean prefix = token.endsWith("*");
+                words.addAll(TextIndex.tokenize(prefix ? token.substring(0, token.length() - 1) : token));
+                if (prefix && !words.isEmpty())
+                    prefixes.set(words.size() - 1);
+            }
+            this.words = words;
+            this.prefixes = prefixes;
+        }
+
+        @Override
+        int estimate(JsrIndex index) {
+            return index.titleIndex().estimate(terms);
+        }
+
+        @Override
+        BitSet ordinals(JsrIndex index) {
+            BitSet ordinals = new BitSet();
+            for (int ordinal : index.titleIndex().matches(terms))
+                ordinals.set(ordinal);
+            return ordinals;
+        }
+
+        @Override
+        boolean test(JsrIndex index, Jsr jsr) {
+            List<String> titleWords = TextIndex.tokenize(jsr.title);
+            for (int w = 0; w < words.size(); w++) {
+                String word = words.get(w);
+                if (prefixes.get(w) ? !startsAny(titleWords, word) : !titleWords.contains(word))
+                    return false;
+            }
+            return true;
+        }
+
+        private static boolean startsAny(List<String> words, String prefix) {
+            for (String word : words)
+                if (word.startsWith(prefix))
+                    return true;
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return "title " + terms;
+        }
+    }
+
+    private static class MemberOf extends Predicate {
+        private final JsrId umbrella;
+
+        MemberOf(JsrId umbrella) {
+            this.umbrella = umbrella;
+        }
+
+        private Set<JsrId> components(JsrIndex index) {
+            Jsr jsr = index.queryById(umbrella);
+            return jsr != null && jsr.isUmbrella() ? jsr.umbrella : Set.of();
+        }
+
+        @Override
+        int estimate(JsrIndex index) {
+            int estimate = 0;
+            for (JsrId component : components(index))
+                estimate += index.variants(component.jsrNumber).size();
+            return estimate;
+        }
+
+        @Override
+        BitSet ordinals(JsrIndex index) {
+            BitSet ordinals = new BitSet();
+            for (JsrId component : components(index))
+                for (Jsr jsr : index.variants(component.jsrNumber))
+                    ordinals.set(index.ordinalOf(jsr.id));
+            return ordinals;
+        }
+
+        @Override
+        boolean test(JsrIndex index, Jsr jsr) {
+            for (JsrId component : components(index))
+                if (component.jsrNumber.equals(jsr.id.jsrNumber))
+                    return true;
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return "member of " + umbrella;
+        }
+    }
+
+    private static class Succeeds extends Predicate {
+        private final JsrId predecessor;
+
+        Succeeds(JsrId predecessor) {
+            this.predecessor = predecessor;
+        }
+
+        @Override
+        int estimate(JsrIndex index) {
+            int ordinal = index.ordinalOf(predecessor);
+            return ordinal >= 0 ? index.successionGraph().descendantCount(ordinal) : 0;
+        }
+
+        @Override
+        BitSet ordinals(JsrIndex index) {
+            BitSet ordinals = new BitSet();
+            int ordinal = index.ordinalOf(predecessor);
+            if (ordinal >= 0)
+                for (int descendant : index.successionGraph().descendants(ordinal))
+                    ordinals.set(descendant);
+            return ordinals;
+        }
+
+        /**
+         * Follows the predecessors in the succession graph, up to the earliest ancestor of the lineage.
+         */
+        @Override
+        boolean test(JsrIndex index, Jsr jsr) {
+            SuccessionGraph graph = index.successionGraph();
+            int ancestor = index.ordinalOf(predecessor);
+            for (int o = graph.predecessor(index.ordinalOf(jsr.id)); o >= 0; o = graph.predecessor(o))
+                if (o == ancestor)
+                    return true;
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return "succeeds " + predecessor;
+        }
+    }
+}
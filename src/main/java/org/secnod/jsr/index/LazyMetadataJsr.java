@@ -0,0 +1,57 @@
+package org.secnod.jsr.index;
+
+import java.net.URI;
+
+import org.secnod.jsr.Jsr;
+import org.secnod.jsr.JsrMetadataSource;
+
+/**
+ * A JSR of an index with lazy metadata. The title and status are merged when the index is built, since titles and
+ * statuses are indexed, while the description and details page are fetched from the metadata source when they are
+ * first accessed and then kept. Their fields are left {@code null}.
+ * <p>
+ * Two threads accessing a field for the first time may both fetch it, which is harmless as the source returns equal
+ * values.
+ * </p>
+ */
+class LazyMetadataJsr extends IndexedJsr {
+
+    private static final Object UNFETCHED = new Object();
+
+    private final JsrMetadataSource source;
+    private volatile Object fetchedDescription = UNFETCHED;
+    private volatile Object fetchedDetailsPage = UNFETCHED;
+
+    /**
+     * @param jsr
+     *            the JSR to copy, without metadata
+     * @param source
+     *            a source with metadata for the JSR number
+     */
+    LazyMetadataJsr(Jsr jsr, JsrMetadataSource source) {
+        super(jsr);
+        this.source = source;
+        int jsrNumber = id.jsrNumber;
+        if (title == null)
+            title = source.title(jsrNumber);
+        status = source.status(jsrNumber);
+        description = null;
+        detailsPage = null;
+    }
+
+    @Override
+    public String getDescription() {
+        Object fetched = fetchedDescription;
+        if (fetched == UNFETCHED)
+            fetchedDescription = fetched = source.description(id.jsrNumber);
+        return (String) fetched;
+    }
+
+    @Override
+    public URI getDetailsPage() {
+        Object fetched = fetchedDetailsPage;
+        if (fetched == UNFETCHED)
+            fetchedDetailsPage = fetched = source.detailsPage(id.jsrNumber);
+        return (URI) fetched;
+    }
+}
@@ -1,11 +1,11 @@
 package org.secnod.jsr.index;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.LinkedHashSet;
-import java.util.ListIterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.ToIntFunction;
 
 import org.secnod.jsr.Jsr;
 import org.secnod.jsr.JsrId;
@@ -14,58 +14,96 @@ import static java.lang.String.format;
 
 class Lineage {
     private final ArrayList<Jsr> jsrs = new ArrayList<>(); // oldest JSR first
-    private final Map<JsrId, Lineage> lineages;
+    private final IntList ordinals = new IntList(); // of each JSR in jsrs
 
-    Lineage(Jsr jsr, Map<JsrId, Lineage> lineages) {
-        jsrs.add(jsr);
-        this.lineages = lineages;
-        this.lineages.put(jsr.id, this);
+    /**
+     * @param ancestor
+     *            the earliest JSR of the lineage
+     * @param ordinal
+     *            the ordinal of the JSR in the index
+     */
+    Lineage(Jsr ancestor, int ordinal) {
+        jsrs.add(ancestor);
+        ordinals.add(ordinal);
     }
 
     /**
-     * Replace the heir of this lineage
+     * Resolves the lineage of an earliest ancestor in one breadth-first pass over its successors.
      *
-     * @param heir the newest JSR in this lineage
+     * @param successors
+     *            the IDs of the JSRs succeeding each JSR, ordered by JSR ID
+     * @param jsrs
+     *            the JSRs of the index by ordinal
+     * @param ordinals
+     *            the ordinal of each JSR ID
      */
-    private void newHeir(Jsr heir) {
-        lineages.remove(heir.succeeds);
-        lineages.put(heir.id, this);
+    static Lineage resolve(Jsr ancestor, Map<JsrId, List<JsrId>> successors, Jsr[] jsrs,
+            ToIntFunction<JsrId> ordinals) {
+        Lineage kin = new Lineage(ancestor, ordinals.applyAsInt(ancestor.id));
+        var pending = new ArrayDeque<JsrId>();
+        pending.add(ancestor.id);
+        while (!pending.isEmpty()) {
+            for (JsrId successor : successors.getOrDefault(pending.remove(), List.of())) {
+                int ordinal = ordinals.applyAsInt(successor);
+                kin.add(jsrs[ordinal], ordinal);
+                pending.add(successor);
+            }
+        }
+        return kin;
     }
 
-    void add(Jsr jsr) {
+    /**
+     * @param jsr
+     *            a JSR succeeding a JSR already in this lineage
+     * @param ordinal
+     *            the ordinal of the JSR in the index
+     */
+    void add(Jsr jsr, int ordinal) {
         if (jsr.succeeds == null)
             throw new IllegalArgumentException(format("The JSR %s has no predecessor", jsr));
-        for (ListIterator<Jsr> i = jsrs.listIterator(); i.hasNext();) {
-            Jsr predecessor = i.next();
+        Jsr last = jsrs.get(jsrs.size() - 1);
+        if (last.id.equals(jsr.succeeds)) {
+            // The common case of a chain of successors added in order
+            inheritPackageNames(jsr, last);
+            jsrs.add(jsr);
+            ordinals.add(ordinal);
+            return;
+        }
+        for (int i = 0; i < jsrs.size(); i++) {
+            Jsr predecessor = jsrs.get(i);
             if (predecessor.id.equals(jsr.succeeds)) {
-                if (!jsr.specifiesPackages())
-                    // Inheriting package names from earlier revision.
-                    jsr.packages = packageNamesFor(predecessor);
-                i.add(jsr);
-                if (!i.hasNext())
-                    newHeir(jsr);
+                inheritPackageNames(jsr, predecessor);
+                jsrs.add(i + 1, jsr);
+                ordinals.add(i + 1, ordinal);
                 return;
             }
         }
         throw new IllegalStateException(format("JSR %s succeeds unknown JSR %s", jsr, jsr.succeeds));
     }
 
-    IndexEntry filterByPackage(String packageName) {
-        var filtered = new LinkedHashSet<Jsr>();
+    private void inheritPackageNames(Jsr jsr, Jsr predecessor) {
+        if (!jsr.specifiesPackages())
+            // Inheriting package names from earlier revision.
+            jsr.packages = packageNamesFor(predecessor);
+    }
+
+    /**
+     * Projects this lineage onto the packages of its JSRs in one pass, appending the ordinal of every JSR to the
+     * ordinals of each package it specifies, most recent JSR first.
+     *
+     * @param projections
+     *            the ordinals of the JSRs specifying each package, lineage by lineage
+     */
+    void projectPackages(Map<String, IntList> projections) {
         for (int i = jsrs.size() - 1; i >= 0; i--) {
-            Jsr jsr = jsrs.get(i);
-            if (jsr.packages.contains(packageName))
-                filtered.add(jsr);
+            int ordinal = ordinals.get(i);
+            for (String packageName : jsrs.get(i).packages)
+                projections.computeIfAbsent(packageName, p -> new IntList()).add(ordinal);
         }
-        return new IndexEntry(filtered);
     }
 
-    Set<String> allPackageNames() {
-        Set<String> packageNames = new HashSet<>();
-        for (Jsr jsr : jsrs) {
-            packageNames.addAll(jsr.packages);
-        }
-        return packageNames;
+    int size() {
+        return jsrs.size();
     }
 
     Jsr findJsr(JsrId jsrId) {
@@ -88,7 +126,7 @@ class Lineage {
     }
 
     Jsr heir() {
-        return jsrs.get(jsrs.size());
+        return jsrs.get(jsrs.size() - 1);
     }
 
     @Override
@@ -0,0 +1,79 @@
+package org.secnod.jsr.index;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+import org.secnod.jsr.Jsr;
+
+/**
+ * An immutable set of JSRs represented by a bitset of ordinals into the JSRs of an index. Iterates in JSR ID order.
+ */
+class OrdinalSet extends AbstractSet<Jsr> {
+
+    private final Jsr[] jsrs; // all JSRs of the index, ordered by JSR ID
+    private final BitSet ordinals;
+    private final int size;
+
+    /**
+     * @param ordinals
+     *            ordinals into {@code jsrs}, owned by this set from now on
+     */
+    OrdinalSet(Jsr[] jsrs, BitSet ordinals) {
+        this.jsrs = jsrs;
+        this.ordinals = ordinals;
+        this.size = ordinals.cardinality();
+    }
+
+    @Override
+    public Iterator<Jsr> iterator() {
+        return new Iterator<Jsr>() {
+            private int next = ordinals.nextSetBit(0);
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public Jsr next() {
+                if (next < 0)
+                    throw new NoSuchElementException();
+                Jsr jsr = jsrs[next];
+                next = next == Integer.MAX_VALUE ? -1 : ordinals.nextSetBit(next + 1);
+                return jsr;
+            }
+        };
+    }
+
+    /**
+     * @return the JSRs in JSR ID order, found lazily from the bitset as the stream is consumed
+     */
+    @Override
+    public Stream<Jsr> stream() {
+        return ordinals.stream().mapToObj(o -> jsrs[o]);
+    }
+
+    /**
+     * @return the ordinals of the JSRs in the set, not to be modified
+     */
+    BitSet ordinals() {
+        return ordinals;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof Jsr))
+            return false;
+        int ordinal = Arrays.binarySearch(jsrs, o);
+        return ordinal >= 0 && ordinals.get(ordinal);
+    }
+}
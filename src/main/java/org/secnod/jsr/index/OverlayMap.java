@@ -0,0 +1,99 @@
+package org.secnod.jsr.index;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * A map of changes over a base map that is never modified, for the data an index keeps for {@linkplain JsrIndex.Delta
+ * updating} it. Copying an overlay copies its changes and shares the base, so a delta does not copy the data of every
+ * JSR. Once the changes outgrow the square root of the size of the base, a copy merges them into a new base, which
+ * bounds the cost of a copy to {@code O(sqrt(n))} amortized and keeps lookups at two hash lookups at most.
+ */
+final class OverlayMap<K, V> extends AbstractMap<K, V> {
+
+    private final Map<K, V> base;
+    private final Map<K, V> changes; // null for a removed key
+    private int size;
+
+    /**
+     * Copy constructor, sharing the base of an overlay.
+     */
+    OverlayMap(Map<K, V> map) {
+        if (map instanceof OverlayMap) {
+            OverlayMap<K, V> overlay = (OverlayMap<K, V>) map;
+            if ((long) overlay.changes.size() * overlay.changes.size() <= overlay.base.size()) {
+                base = overlay.base;
+                changes = new HashMap<>(overlay.changes);
+            } else {
+                base = new HashMap<>(overlay);
+                changes = new HashMap<>();
+            }
+            size = overlay.size;
+        } else {
+            base = map;
+            changes = new HashMap<>();
+            size = map.size();
+        }
+    }
+
+    @Override
+    public V get(Object key) {
+        V value = changes.get(key);
+        if (value != null || changes.containsKey(key))
+            return value;
+        return base.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        V previous = get(key);
+        changes.put(key, Objects.requireNonNull(value, "value"));
+        if (previous == null)
+            size++;
+        return previous;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        V previous = get(key);
+        if (previous != null) {
+            changes.put((K) key, null);
+            size--;
+        }
+        return previous;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return Stream.concat(
+                        base.entrySet().stream().filter(e -> !changes.containsKey(e.getKey())),
+                        changes.entrySet().stream().filter(e -> e.getValue() != null)).iterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+}
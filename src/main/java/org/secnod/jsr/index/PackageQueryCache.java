@@ -0,0 +1,187 @@
+package org.secnod.jsr.index;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.secnod.jsr.Jsr;
+
+/**
+ * A bounded, thread safe, least recently used cache of package queries against the current index of a
+ * {@link JsrIndexHolder}.
+ * <p>
+ * Class names are cached by their package, and packages that no JSR specifies are cached as well, so repeated lookups
+ * of for instance {@code com.google.*} classes are answered without climbing the package hierarchy again. A cached
+ * package is looked up by its position in the class name, so a hit allocates nothing. When the holder swaps in
+ * another index the cache is cleared on the next query. The counters help sizing the cache.
+ * </p>
+ */
+public class PackageQueryCache {
+
+    private final JsrIndexHolder holder;
+    private final int maximumSize;
+    private final LinkedHashMap<PackageKey, List<Jsr>> cache;
+    private final PackageKey probe = new PackageKey(); // guarded by cache
+    private JsrIndex index; // the index of the cached queries, guarded by cache
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param maximumSize
+     *            the maximum number of packages to cache
+     */
+    public PackageQueryCache(JsrIndexHolder holder, int maximumSize) {
+        if (maximumSize < 1)
+            throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+        this.holder = holder;
+        this.maximumSize = maximumSize;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PackageKey, List<Jsr>> eldest) {
+                if (size() <= PackageQueryCache.this.maximumSize)
+                    return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * A cache of queries against an index that is never replaced.
+     *
+     * @param maximumSize
+     *            the maximum number of packages to cache
+     */
+    public PackageQueryCache(JsrIndex index, int maximumSize) {
+        this(new JsrIndexHolder(index), maximumSize);
+    }
+
+    /**
+     * @see JsrIndex#queryAllByPackage(CharSequence)
+     */
+    public List<Jsr> queryAllByPackage(String packageName) {
+        int length = JsrIndex.packageLength(packageName);
+        JsrIndex current = holder.get();
+        synchronized (cache) {
+            if (index != current) {
+                cache.clear();
+                index = current;
+            }
+            List<Jsr> cached = cache.get(probe.of(packageName, length));
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+        // The index is immutable, so a concurrent lookup of the same package computes the same result
+        String key = length < packageName.length() ? packageName.substring(0, length) : packageName;
+        List<Jsr> jsrs = current.queryAllByPackage(key);
+        synchronized (cache) {
+            if (index == current)
+                cache.put(new PackageKey().of(key, key.length()), jsrs);
+        }
+        return jsrs;
+    }
+
+    /**
+     * @see JsrIndex#queryByPackage(CharSequence)
+     */
+    public Jsr queryByPackage(String packageName) {
+        List<Jsr> jsrs = queryAllByPackage(packageName);
+        return !jsrs.isEmpty() ? jsrs.get(0) : null;
+    }
+
+    public JsrIndexHolder holder() {
+        return holder;
+    }
+
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * @return the number of cached packages, including packages no JSR specifies
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * @return the number of queries answered from the cache
+     */
+    public long hitCount() {
+        synchronized (cache) {
+            return hits;
+        }
+    }
+
+    /**
+     * @return the number of queries passed on to the index
+     */
+    public long missCount() {
+        synchronized (cache) {
+            return misses;
+        }
+    }
+
+    /**
+     * @return the number of packages removed from the cache to make room for others
+     */
+    public long evictionCount() {
+        synchronized (cache) {
+            return evictions;
+        }
+    }
+
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    @Override
+    public String toString() {
+        synchronized (cache) {
+            return String.format("%d/%d packages, %d hits, %d misses, %d evictions",
+                    cache.size(), maximumSize, hits, misses, evictions);
+        }
+    }
+
+    /**
+     * The first {@code length} characters of a name, hashed like the {@link String} of those characters.
+     */
+    private static final class PackageKey {
+        private String name;
+        private int length;
+        private int hash;
+
+        PackageKey of(String name, int length) {
+            int h = 0;
+            for (int i = 0; i < length; i++)
+                h = 31 * h + name.charAt(i);
+            this.name = name;
+            this.length = length;
+            this.hash = h;
+            return this;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof PackageKey))
+                return false;
+            PackageKey other = (PackageKey) obj;
+            return hash == other.hash && length == other.length && name.regionMatches(0, other.name, 0, length);
+        }
+    }
+}
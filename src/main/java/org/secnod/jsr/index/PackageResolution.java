@@ -0,0 +1,44 @@
+package org.secnod.jsr.index;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.secnod.jsr.JsrId;
+
+/**
+ * The result of resolving many package or class names at once with {@link JsrIndex#resolveAll(java.util.stream.Stream)}.
+ * <p>
+ * Names in the same package share the same immutable list of JSR IDs.
+ * </p>
+ */
+public class PackageResolution {
+
+    private final Map<String, List<JsrId>> resolved;
+    private final List<String> unresolved;
+
+    PackageResolution(Map<String, List<JsrId>> resolved, List<String> unresolved) {
+        this.resolved = Collections.unmodifiableMap(resolved);
+        this.unresolved = Collections.unmodifiableList(unresolved);
+    }
+
+    /**
+     * @return each distinct name specified by a JSR mapped to the IDs of the JSRs specifying it, in the order of
+     *         {@link JsrIndex#queryAllByPackage(CharSequence)}. The map iterates in input order.
+     */
+    public Map<String, List<JsrId>> resolved() {
+        return resolved;
+    }
+
+    /**
+     * @return each distinct name not specified by any JSR, in input order
+     */
+    public List<String> unresolved() {
+        return unresolved;
+    }
+
+    @Override
+    public String toString() {
+        return resolved.size() + " resolved, " + unresolved.size() + " unresolved";
+    }
+}
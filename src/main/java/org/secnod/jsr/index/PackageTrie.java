@@ -0,0 +1,229 @@
+package org.secnod.jsr.index;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.secnod.jsr.Jsr;
+import org.secnod.jsr.JsrId;
+
+/**
+ * A radix tree over package names for longest prefix matching of package and class names.
+ * <p>
+ * Every node for a package name holds the precomputed, immutable lists of JSRs and JSR IDs for that package. A lookup
+ * walks the tree in one pass over the input without creating any intermediate strings.
+ * </p>
+ * <p>
+ * A trie is filled with {@link #put(String, List)} while building an index, and is not modified after that.
+ * {@link #with(String, List)} returns a changed copy sharing every node off the path to the changed package.
+ * </p>
+ */
+class PackageTrie {
+
+    private final Node root;
+
+    PackageTrie() {
+        this(new Node());
+    }
+
+    private PackageTrie(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * @param jsrs
+     *            the non-empty JSRs specifying the package, in query order
+     */
+    void put(String packageName, List<Jsr> jsrs) {
+        if (packageName.isEmpty())
+            throw new IllegalArgumentException("Empty package name");
+        Node node = root;
+        int pos = 0;
+        while (pos < packageName.length()) {
+            int i = node.indexOf(packageName.charAt(pos));
+            if (i < 0) {
+                node = node.addChild(i, packageName.substring(pos), new Node());
+                pos = packageName.length();
+                break;
+            }
+            String label = node.labels[i];
+            int common = commonPrefixLength(label, packageName, pos);
+            if (common < label.length()) {
+                Node split = new Node();
+                split.addChild(-1, label.substring(common), node.children[i]);
+                node.labels[i] = label.substring(0, common);
+                node.children[i] = split;
+            }
+            node = node.children[i];
+            pos += common;
+        }
+        node.set(jsrs);
+    }
+
+    /**
+     * @param jsrs
+     *            the JSRs specifying the package, in query order, or an empty list to remove the package
+     * @return a copy of this trie with the JSRs of one package replaced
+     */
+    PackageTrie with(String packageName, List<Jsr> jsrs) {
+        if (packageName.isEmpty())
+            throw new IllegalArgumentException("Empty package name");
+        return new PackageTrie(with(root, packageName, 0, jsrs));
+    }
+
+    private static Node with(Node node, String packageName, int pos, List<Jsr> jsrs) {
+        if (pos == packageName.length()) {
+            Node copy = node.copy();
+            copy.set(jsrs);
+            return copy;
+        }
+        int i = node.indexOf(packageName.charAt(pos));
+        if (i < 0) {
+            if (jsrs.isEmpty())
+                return node;
+            Node copy = node.copy();
+            copy.addChild(i, packageName.substring(pos), new Node()).set(jsrs);
+            return copy;
+        }
+        String label = node.labels[i];
+        int common = commonPrefixLength(label, packageName, pos);
+        if (common < label.length() && jsrs.isEmpty())
+            return node;
+        Node copy = node.copy();
+        Node child = copy.children[i];
+        if (common < label.length()) {
+            child = new Node();
+            child.addChild(-1, label.substring(common), copy.children[i]);
+            copy.labels[i] = label.substring(0, common);
+        }
+        copy.children[i] = with(child, packageName, pos + common, jsrs);
+        return copy;
+    }
+
+    /**
+     * @return the JSRs of exactly this package name, or an empty list if no JSR specifies it
+     */
+    List<Jsr> get(String packageName) {
+        Node node = root;
+        int pos = 0;
+        while (pos < packageName.length()) {
+            int i = node.indexOf(packageName.charAt(pos));
+            if (i < 0 || !packageName.startsWith(node.labels[i], pos))
+                return List.of();
+            pos += node.labels[i].length();
+            node = node.children[i];
+        }
+        return node.jsrs != null ? node.jsrs : List.of();
+    }
+
+    /**
+     * @param name
+     *            a package or fully qualified class name
+     * @return the JSRs of the longest package name that is equal to or a parent package of {@code name}, or an empty
+     *         list if there is no such package name
+     */
+    List<Jsr> longestMatch(CharSequence name) {
+        Node match = longestMatchNode(name);
+        return match != null ? match.jsrs : List.of();
+    }
+
+    /**
+     * @return the IDs of the JSRs returned by {@link #longestMatch(CharSequence)}
+     */
+    List<JsrId> longestMatchIds(CharSequence name) {
+        Node match = longestMatchNode(name);
+        return match != null ? match.ids : List.of();
+    }
+
+    private Node longestMatchNode(CharSequence name) {
+        Node match = null;
+        Node node = root;
+        int pos = 0;
+        int length = name.length();
+        while (pos < length) {
+            char c = name.charAt(pos);
+            if (c == '.' && node.jsrs != null)
+                match = node;
+            int i = node.indexOf(c);
+            if (i < 0)
+                return match;
+            String label = node.labels[i];
+            if (length - pos < label.length())
+                return match;
+            for (int k = 1; k < label.length(); k++)
+                if (name.charAt(pos + k) != label.charAt(k))
+                    return match;
+            node = node.children[i];
+            pos += label.length();
+        }
+        return node.jsrs != null ? node : match;
+    }
+
+    private static int commonPrefixLength(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i))
+            i++;
+        return i;
+    }
+
+    private static class Node {
+        private char[] firstChars = {}; // sorted, for binary search
+        private String[] labels = {};
+        private Node[] children = {};
+        private List<Jsr> jsrs;
+        private List<JsrId> ids;
+
+        Node copy() {
+            Node copy = new Node();
+            copy.firstChars = firstChars.clone();
+            copy.labels = labels.clone();
+            copy.children = children.clone();
+            copy.jsrs = jsrs;
+            copy.ids = ids;
+            return copy;
+        }
+
+        /**
+         * @param jsrs
+         *            the JSRs of the package of this node, or an empty list if the node is not a package
+         */
+        void set(List<Jsr> jsrs) {
+            if (jsrs.isEmpty()) {
+                // The node stays in the tree, where it never matches
+                this.jsrs = null;
+                this.ids = null;
+                return;
+            }
+            this.jsrs = List.copyOf(jsrs);
+            JsrId[] ids = new JsrId[jsrs.size()];
+            for (int i = 0; i < ids.length; i++)
+                ids[i] = jsrs.get(i).id;
+            this.ids = List.of(ids);
+        }
+
+        int indexOf(char c) {
+            return Arrays.binarySearch(firstChars, c);
+        }
+
+        /**
+         * @param i
+         *            the negative insertion point returned by {@link #indexOf(char)}
+         */
+        Node addChild(int i, String label, Node child) {
+            int insertAt = -(i + 1);
+            if (i >= 0 || insertAt > firstChars.length)
+                throw new IllegalArgumentException("Invalid insertion point " + i);
+            int n = firstChars.length;
+            firstChars = Arrays.copyOf(firstChars, n + 1);
+            labels = Arrays.copyOf(labels, n + 1);
+            children = Arrays.copyOf(children, n + 1);
+            System.arraycopy(firstChars, insertAt, firstChars, insertAt + 1, n - insertAt);
+            System.arraycopy(labels, insertAt, labels, insertAt + 1, n - insertAt);
+            System.arraycopy(children, insertAt, children, insertAt + 1, n - insertAt);
+            firstChars[insertAt] = label.charAt(0);
+            labels[insertAt] = label;
+            children[insertAt] = child;
+            return child;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.secnod.jsr.index;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import org.secnod.jsr.Jsr;
+
+/**
+ * The plan for evaluating a {@link JsrQuery} against an index, as chosen by {@link JsrIndex#explain(JsrQuery)}.
+ * <p>
+ * Predicates are ordered by their estimated number of matches. The plan scans the ordinals of the most selective one,
+ * or all JSRs if there are no predicates. It then intersects the ordinals of the next predicate, unless the predicate
+ * matches many times more JSRs than are left or few JSRs are left, in which case it filters the remaining JSRs by
+ * testing each one instead.
+ * </p>
+ */
+public final class QueryPlan {
+
+    /**
+     * Filter rather than intersect once this few JSRs are left
+     */
+    static final int FILTER_BELOW = 16;
+    /**
+     * Filter rather than intersect a predicate matching this many times more JSRs than are left
+     */
+    static final int FILTER_RATIO = 8;
+
+    private final JsrIndex index;
+    private final List<Step> steps;
+
+    private QueryPlan(JsrIndex index, List<Step> steps) {
+        this.index = index;
+        this.steps = steps;
+    }
+
+    static QueryPlan plan(JsrIndex index, JsrQuery query) {
+        List<Step> estimated = new ArrayList<>();
+        for (JsrQuery.Predicate predicate : query.predicates())
+            estimated.add(new Step(Operation.FILTER, predicate, predicate.estimate(index)));
+        estimated.sort((a, b) -> Integer.compare(a.estimate, b.estimate)); // stable for equal estimates
+
+        List<Step> steps = new ArrayList<>(estimated.size() + 1);
+        int remaining;
+        if (estimated.isEmpty()) {
+            remaining = index.ordinals().length;
+            steps.add(new Step(Operation.SCAN, null, remaining));
+        } else {
+            Step first = estimated.get(0);
+            remaining = first.estimate;
+            steps.add(new Step(Operation.SCAN, first.predicate, first.estimate));
+        }
+        for (Step step : estimated.subList(Math.min(1, estimated.size()), estimated.size())) {
+            boolean filter = remaining < FILTER_BELOW || step.estimate / FILTER_RATIO > remaining;
+            steps.add(new Step(filter ? Operation.FILTER : Operation.INTERSECT, step.predicate, step.estimate));
+            remaining = Math.min(remaining, step.estimate);
+        }
+        return new QueryPlan(index, Collections.unmodifiableList(steps));
+    }
+
+    /**
+     * @return the ordinals of the matching JSRs
+     */
+    BitSet execute() {
+        Jsr[] jsrs = index.ordinals();
+        BitSet ordinals = null;
+        for (Step step : steps) {
+            switch (step.operation) {
+            case SCAN:
+                if (step.predicate != null) {
+                    ordinals = step.predicate.ordinals(index);
+                } else {
+                    ordinals = new BitSet(jsrs.length);
+                    ordinals.set(0, jsrs.length);
+                }
+                break;
+            case INTERSECT:
+                ordinals.and(step.predicate.ordinals(index));
+                break;
+            case FILTER:
+                for (int o = ordinals.nextSetBit(0); o >= 0; o = ordinals.nextSetBit(o + 1))
+                    if (!step.predicate.test(index, jsrs[o]))
+                        ordinals.clear(o);
+                break;
+            }
+            if (ordinals.isEmpty())
+                break;
+        }
+        return ordinals;
+    }
+
+    /**
+     * @return the steps of the plan in order of evaluation, for instance {@code scan tags JavaEE7 (estimate 33)}
+     */
+    public List<String> steps() {
+        List<String> descriptions = new ArrayList<>(steps.size());
+        for (Step step : steps)
+            descriptions.add(step.toString());
+        return descriptions;
+    }
+
+    @Override
+    public String toString() {
+        return String.join("\n", steps());
+    }
+
+    private enum Operation {
+        SCAN, INTERSECT, FILTER
+    }
+
+    private static class Step {
+        final Operation operation;
+        final JsrQuery.Predicate predicate; // null to scan all JSRs
+        final int estimate;
+
+        Step(Operation operation, JsrQuery.Predicate predicate, int estimate) {
+            this.operation = operation;
+            this.predicate = predicate;
+            this.estimate = estimate;
+        }
+
+        @Override
+        public String toString() {
+            return operation.name().toLowerCase() + " " + (predicate != null ? predicate : "all") + " (estimate "
+                    + estimate + ")";
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.secnod.jsr.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Splits work over a range of indexes into contiguous shards run on a fork-join pool.
+ * <p>
+ * The results are returned in shard order, so merging them in order gives the same result as doing all the work in
+ * one shard. Without a pool all the work is done in one shard on the calling thread.
+ * </p>
+ */
+final class Shards {
+
+    /**
+     * Shards per thread of the pool, to even out shards of uneven cost
+     */
+    private static final int SHARDS_PER_THREAD = 4;
+
+    interface Work<T> {
+        /**
+         * @return the result of the work on the indexes in {@code [from, to)}
+         */
+        T apply(int from, int to);
+    }
+
+    interface Action {
+        /**
+         * Does the work on the indexes in {@code [from, to)}.
+         */
+        void run(int from, int to);
+    }
+
+    private Shards() {}
+
+    /**
+     * @param pool
+     *            the pool to run the shards on, or {@code null} to do all the work on the calling thread
+     * @param size
+     *            the number of indexes
+     * @return the result of each shard, in order
+     */
+    static <T> List<T> map(ForkJoinPool pool, int size, Work<T> work) {
+        int shards = pool != null ? Math.min(size, pool.getParallelism() * SHARDS_PER_THREAD) : 1;
+        if (shards <= 1)
+            return Collections.singletonList(work.apply(0, size));
+        List<ForkJoinTask<T>> tasks = new ArrayList<>(shards);
+        for (int shard = 0; shard < shards; shard++) {
+            int from = (int) ((long) size * shard / shards);
+            int to = (int) ((long) size * (shard + 1) / shards);
+            tasks.add(pool.submit(() -> work.apply(from, to)));
+        }
+        List<T> results = new ArrayList<>(shards);
+        for (ForkJoinTask<T> task : tasks)
+            results.add(task.join());
+        return results;
+    }
+
+    /**
+     * Like {@link #map(ForkJoinPool, int, Work)} for work without a result.
+     */
+    static void run(ForkJoinPool pool, int size, Action action) {
+        map(pool, size, (from, to) -> {
+            action.run(from, to);
+            return null;
+        });
+    }
+}
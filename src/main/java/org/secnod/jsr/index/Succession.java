@@ -0,0 +1,86 @@
+package org.secnod.jsr.index;
+
+import java.util.List;
+
+import org.secnod.jsr.Jsr;
+
+/**
+ * The place of a JSR in its lineage, from {@link JsrIndex#succession(org.secnod.jsr.JsrId)}. Every method is answered
+ * in constant time, or in time proportional to the JSRs returned, from arrays indexed by the ordinals of the index.
+ * <p>
+ * A lineage is a chain from the earliest ancestor where every JSR comes after the JSR it succeeds. When several JSRs
+ * succeed the same JSR, the chain visits each of them and their successors in turn, in JSR ID order. Umbrella JSRs
+ * have no lineage, and are chains of one JSR.
+ * </p>
+ */
+public final class Succession {
+
+    private final Jsr[] ordinals;
+    private final SuccessionGraph graph;
+    private final int ordinal;
+
+    Succession(Jsr[] ordinals, SuccessionGraph graph, int ordinal) {
+        this.ordinals = ordinals;
+        this.graph = graph;
+        this.ordinal = ordinal;
+    }
+
+    public Jsr jsr() {
+        return ordinals[ordinal];
+    }
+
+    /**
+     * @return the JSR this JSR succeeds, or {@code null} for the earliest ancestor
+     */
+    public Jsr predecessor() {
+        int predecessor = graph.predecessor(ordinal);
+        return predecessor >= 0 ? ordinals[predecessor] : null;
+    }
+
+    /**
+     * @return the JSRs directly succeeding this JSR, ordered by JSR ID
+     */
+    public List<Jsr> successors() {
+        return jsrs(graph.successors(ordinal));
+    }
+
+    /**
+     * @return the most recent JSR of the lineage, the last JSR of the chain
+     */
+    public Jsr heir() {
+        return ordinals[graph.heir(ordinal)];
+    }
+
+    /**
+     * @return the JSRs of the lineage, earliest ancestor first
+     */
+    public List<Jsr> chain() {
+        return jsrs(graph.chain(ordinal));
+    }
+
+    /**
+     * @return the position of this JSR in the {@linkplain #chain() chain}, 0 for the earliest ancestor
+     */
+    public int position() {
+        return graph.position(ordinal);
+    }
+
+    /**
+     * @return the JSRs succeeding this JSR directly or indirectly, in chain order
+     */
+    public List<Jsr> descendants() {
+        return jsrs(graph.descendants(ordinal));
+    }
+
+    private List<Jsr> jsrs(int[] ordinals) {
+        Jsr[] jsrs = new Jsr[ordinals.length];
+        for (int i = 0; i < jsrs.length; i++)
+            jsrs[i] = this.ordinals[ordinals[i]];
+        return List.of(jsrs);
+    }
+
+    @Override
+    public String toString() {
+        return jsr() + " at " + position() + " in " + chain();
+    }
+}
@@ -0,0 +1,152 @@
+package org.secnod.jsr.index;
+
+import java.util.Arrays;
+
+import org.secnod.jsr.Jsr;
+import org.secnod.jsr.JsrId;
+
+/**
+ * The succession of the JSRs of an index as arrays indexed by ordinal, computed once per index.
+ * <p>
+ * Each lineage is laid out as a chain in depth-first order from its earliest ancestor, visiting successors in JSR ID
+ * order. Every JSR comes after its predecessor, the JSRs succeeding a JSR directly or indirectly directly follow it,
+ * and the last JSR of the chain is the {@linkplain #heir(int) heir} reached by following the last successor of each
+ * JSR. Umbrella JSRs are not in any lineage, and form a chain of their own.
+ * </p>
+ */
+class SuccessionGraph {
+
+    private final int[] predecessors; // by ordinal, -1 for an earliest ancestor
+    private final int[] successorOffsets; // successors of ordinal o are successors[successorOffsets[o]..[o + 1])
+    private final int[] successors; // ascending within each JSR
+    private final int[] chainOffsets; // chain c is chains[chainOffsets[c]..[c + 1])
+    private final int[] chains; // ordinals of every chain in depth-first order
+    private final int[] chainOf; // by ordinal
+    private final int[] positions; // in the chain, by ordinal
+    private final int[] descendantsEnd; // position after the last JSR succeeding each JSR, by ordinal
+
+    /**
+     * @param jsrs
+     *            the JSRs of an index by ordinal, with every JSR they succeed
+     */
+    SuccessionGraph(Jsr[] jsrs) {
+        int n = jsrs.length;
+        predecessors = new int[n];
+        successorOffsets = new int[n + 1];
+        for (int o = 0; o < n; o++) {
+            predecessors[o] = jsrs[o].succeeds != null && !jsrs[o].isUmbrella() ? ordinalOf(jsrs, jsrs[o].succeeds) : -1;
+            if (predecessors[o] >= 0)
+                successorOffsets[predecessors[o] + 1]++;
+        }
+        for (int o = 0; o < n; o++)
+            successorOffsets[o + 1] += successorOffsets[o];
+        successors = new int[successorOffsets[n]];
+        int[] next = Arrays.copyOf(successorOffsets, n);
+        for (int o = 0; o < n; o++) // ascending ordinals keep the successors of each JSR in JSR ID order
+            if (predecessors[o] >= 0)
+                successors[next[predecessors[o]]++] = o;
+
+        chains = new int[n];
+        chainOf = new int[n];
+        positions = new int[n];
+        descendantsEnd = new int[n];
+        IntList offsets = new IntList();
+        int[] stack = new int[n];
+        int position = 0;
+        for (int ancestor = 0; ancestor < n; ancestor++) {
+            if (predecessors[ancestor] >= 0)
+                continue;
+            int chain = offsets.size(), chainStart = position;
+            offsets.add(chainStart);
+            // Depth-first, pushing successors in reverse to visit them in JSR ID order
+            int depth = 0;
+            stack[depth++] = ancestor;
+            while (depth > 0) {
+                int o = stack[--depth];
+                chains[position] = o;
+                chainOf[o] = chain;
+                positions[o] = position++ - chainStart;
+                for (int s = successorOffsets[o + 1] - 1; s >= successorOffsets[o]; s--)
+                    stack[depth++] = successors[s];
+            }
+            // Every JSR succeeding a JSR is visited right after it, before the next JSR at the same depth or above
+            for (int p = position - 1; p >= chainStart; p--) {
+                int o = chains[p];
+                int end = p + 1 - chainStart;
+                for (int s = successorOffsets[o]; s < successorOffsets[o + 1]; s++)
+                    end = Math.max(end, descendantsEnd[successors[s]]);
+                descendantsEnd[o] = end;
+            }
+        }
+        if (position != n)
+            throw new IllegalStateException("Cyclic succession of " + (n - position) + " JSRs");
+        offsets.add(position);
+        chainOffsets = offsets.toArray();
+    }
+
+    private static int ordinalOf(Jsr[] jsrs, JsrId id) {
+        int low = 0, high = jsrs.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int c = jsrs[mid].id.compareTo(id);
+            if (c < 0)
+                low = mid + 1;
+            else if (c > 0)
+                high = mid - 1;
+            else
+                return mid;
+        }
+        throw new IllegalStateException("Unknown predecessor " + id);
+    }
+
+    /**
+     * @return the ordinal of the JSR the JSR succeeds, or {@code -1}
+     */
+    int predecessor(int ordinal) {
+        return predecessors[ordinal];
+    }
+
+    /**
+     * @return the ordinals of the JSRs succeeding the JSR directly, ascending
+     */
+    int[] successors(int ordinal) {
+        return Arrays.copyOfRange(successors, successorOffsets[ordinal], successorOffsets[ordinal + 1]);
+    }
+
+    /**
+     * @return the ordinal of the last JSR of the chain of the JSR
+     */
+    int heir(int ordinal) {
+        return chains[chainOffsets[chainOf[ordinal] + 1] - 1];
+    }
+
+    /**
+     * @return the ordinals of the chain of the JSR, earliest ancestor first
+     */
+    int[] chain(int ordinal) {
+        int chain = chainOf[ordinal];
+        return Arrays.copyOfRange(chains, chainOffsets[chain], chainOffsets[chain + 1]);
+    }
+
+    /**
+     * @return the position of the JSR in its chain, 0 for the earliest ancestor
+     */
+    int position(int ordinal) {
+        return positions[ordinal];
+    }
+
+    /**
+     * @return the ordinals of the JSRs succeeding the JSR directly or indirectly, in chain order
+     */
+    int[] descendants(int ordinal) {
+        int chainStart = chainOffsets[chainOf[ordinal]];
+        return Arrays.copyOfRange(chains, chainStart + positions[ordinal] + 1, chainStart + descendantsEnd[ordinal]);
+    }
+
+    /**
+     * @return the number of JSRs succeeding the JSR directly or indirectly
+     */
+    int descendantCount(int ordinal) {
+        return descendantsEnd[ordinal] - positions[ordinal] - 1;
+    }
+}
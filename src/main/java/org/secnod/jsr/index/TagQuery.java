@@ -0,0 +1,303 @@
+package org.secnod.jsr.index;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A boolean query over JSR tags, for instance {@code JavaEE7 AND NOT JavaEE6}.
+ * <p>
+ * Queries are evaluated by {@link JsrIndex#queryByTags(TagQuery)} with word level operations on one bitset per tag.
+ * </p>
+ */
+public abstract class TagQuery {
+
+    TagQuery() {}
+
+    public static TagQuery tag(String tag) {
+        return new Tag(Objects.requireNonNull(tag, "tag"));
+    }
+
+    public static TagQuery not(TagQuery query) {
+        return new Not(Objects.requireNonNull(query, "query"));
+    }
+
+    public TagQuery and(TagQuery other) {
+        return new And(this, Objects.requireNonNull(other, "other"));
+    }
+
+    public TagQuery or(TagQuery other) {
+        return new Or(this, Objects.requireNonNull(other, "other"));
+    }
+
+    public TagQuery andNot(TagQuery other) {
+        return and(not(other));
+    }
+
+    /**
+     * Parses a tag query expression. The operators are {@code AND}, {@code OR} and {@code NOT}, in order of increasing
+     * precedence, and can be grouped with parentheses. Operators are case insensitive, tags are not.
+     *
+     * @param expression
+     *            for instance {@code JavaEE7 AND NOT (JavaEE6 OR JavaEE5)}
+     * @throws IllegalArgumentException
+     *             if the expression is not a valid tag query
+     */
+    public static TagQuery parse(String expression) {
+        return new Parser(expression).parse();
+    }
+
+    /**
+     * @param tagIndex
+     *            the ordinals of the JSRs with each tag
+     * @param size
+     *            the number of JSRs in the index
+     * @return the ordinals of the matching JSRs. The caller owns the returned bitset.
+     */
+    abstract BitSet evaluate(Map<String, BitSet> tagIndex, int size);
+
+    /**
+     * @param tagIndex
+     *            the ordinals of the JSRs with each tag
+     * @param size
+     *            the number of JSRs in the index
+     * @return an upper bound of the number of matching JSRs, from the number of JSRs with each tag without combining
+     *         their bitsets
+     */
+    abstract int estimate(Map<String, BitSet> tagIndex, int size);
+
+    /**
+     * @param tags
+     *            the tags of one JSR, or {@code null}
+     */
+    abstract boolean matches(Set<String> tags);
+
+    private static class Tag extends TagQuery {
+        private final String tag;
+
+        Tag(String tag) {
+            this.tag = tag;
+        }
+
+        @Override
+        BitSet evaluate(Map<String, BitSet> tagIndex, int size) {
+            BitSet ordinals = tagIndex.get(tag);
+            return ordinals != null ? (BitSet) ordinals.clone() : new BitSet();
+        }
+
+        @Override
+        int estimate(Map<String, BitSet> tagIndex, int size) {
+            BitSet ordinals = tagIndex.get(tag);
+            return ordinals != null ? ordinals.cardinality() : 0;
+        }
+
+        @Override
+        boolean matches(Set<String> tags) {
+            return tags != null && tags.contains(tag);
+        }
+
+        @Override
+        public String toString() {
+            return tag;
+        }
+    }
+
+    private static class Not extends TagQuery {
+        private final TagQuery operand;
+
+        Not(TagQuery operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        BitSet evaluate(Map<String, BitSet> tagIndex, int size) {
+            BitSet ordinals = operand.evaluate(tagIndex, size);
+            ordinals.flip(0, size);
+            return ordinals;
+        }
+
+        @Override
+        int estimate(Map<String, BitSet> tagIndex, int size) {
+            // Only the count of a single tag is exact, the counts of other operands are upper bounds
+            return operand instanceof Tag ? size - operand.estimate(tagIndex, size) : size;
+        }
+
+        @Override
+        boolean matches(Set<String> tags) {
+            return !operand.matches(tags);
+        }
+
+        @Override
+        public String toString() {
+            return "NOT " + operand;
+        }
+    }
+
+    private static class And extends TagQuery {
+        private final TagQuery left;
+        private final TagQuery right;
+
+        And(TagQuery left, TagQuery right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        BitSet evaluate(Map<String, BitSet> tagIndex, int size) {
+            BitSet ordinals = left.evaluate(tagIndex, size);
+            if (right instanceof Not)
+                // No need to complement the right operand over all JSRs
+                ordinals.andNot(((Not) right).operand.evaluate(tagIndex, size));
+            else
+                ordinals.and(right.evaluate(tagIndex, size));
+            return ordinals;
+        }
+
+        @Override
+        int estimate(Map<String, BitSet> tagIndex, int size) {
+            return Math.min(left.estimate(tagIndex, size), right.estimate(tagIndex, size));
+        }
+
+        @Override
+        boolean matches(Set<String> tags) {
+            return left.matches(tags) && right.matches(tags);
+        }
+
+        @Override
+        public String toString() {
+            return "(" + left + " AND " + right + ")";
+        }
+    }
+
+    private static class Or extends TagQuery {
+        private final TagQuery left;
+        private final TagQuery right;
+
+        Or(TagQuery left, TagQuery right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        BitSet evaluate(Map<String, BitSet> tagIndex, int size) {
+            BitSet ordinals = left.evaluate(tagIndex, size);
+            ordinals.or(right.evaluate(tagIndex, size));
+            return ordinals;
+        }
+
+        @Override
+        int estimate(Map<String, BitSet> tagIndex, int size) {
+            return Math.min(size, left.estimate(tagIndex, size) + right.estimate(tagIndex, size));
+        }
+
+        @Override
+        boolean matches(Set<String> tags) {
+            return left.matches(tags) || right.matches(tags);
+        }
+
+        @Override
+        public String toString() {
+            return "(" + left + " OR " + right + ")";
+        }
+    }
+
+    /**
+     * Recursive descent parser for the grammar:
+     *
+     * <pre>
+     * or  = and ("OR" and)*
+     * and = not ("AND" not)*
+     * not = "NOT" not | "(" or ")" | tag
+     * </pre>
+     */
+    private static class Parser {
+        private final String expression;
+        private final List<String> tokens;
+        private int pos;
+
+        Parser(String expression) {
+            this.expression = Objects.requireNonNull(expression, "expression");
+            this.tokens = tokenize(expression);
+        }
+
+        TagQuery parse() {
+            if (tokens.isEmpty())
+                throw new IllegalArgumentException("Empty tag query");
+            TagQuery query = parseOr();
+            if (pos < tokens.size())
+                throw error("Unexpected '" + tokens.get(pos) + "'");
+            return query;
+        }
+
+        private TagQuery parseOr() {
+            TagQuery query = parseAnd();
+            while (accept("OR"))
+                query = query.or(parseAnd());
+            return query;
+        }
+
+        private TagQuery parseAnd() {
+            TagQuery query = parseNot();
+            while (accept("AND"))
+                query = query.and(parseNot());
+            return query;
+        }
+
+        private TagQuery parseNot() {
+            if (accept("NOT"))
+                return not(parseNot());
+            if (accept("(")) {
+                TagQuery query = parseOr();
+                if (!accept(")"))
+                    throw error("Missing ')'");
+                return query;
+            }
+            if (pos == tokens.size())
+                throw error("Missing tag");
+            String token = tokens.get(pos);
+            if (isOperator(token) || token.equals(")"))
+                throw error("Expected tag but got '" + token + "'");
+            pos++;
+            return tag(token);
+        }
+
+        private boolean accept(String token) {
+            if (pos < tokens.size() && tokens.get(pos).equalsIgnoreCase(token)) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " in tag query: " + expression);
+        }
+
+        private static boolean isOperator(String token) {
+            return token.equalsIgnoreCase("AND") || token.equalsIgnoreCase("OR") || token.equalsIgnoreCase("NOT");
+        }
+
+        private static List<String> tokenize(String expression) {
+            List<String> tokens = new ArrayList<>();
+            int start = -1;
+            for (int i = 0; i < expression.length(); i++) {
+                char c = expression.charAt(i);
+                if (Character.isWhitespace(c) || c == '(' || c == ')') {
+                    if (start >= 0)
+                        tokens.add(expression.substring(start, i));
+                    start = -1;
+                    if (!Character.isWhitespace(c))
+                        tokens.add(String.valueOf(c));
+                } else if (start < 0) {
+                    start = i;
+                }
+            }
+            if (start >= 0)
+                tokens.add(expression.substring(start));
+            return tokens;
+        }
+    }
+}
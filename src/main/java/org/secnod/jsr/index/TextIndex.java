@@ -0,0 +1,557 @@
+package org.secnod.jsr.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+import org.secnod.jsr.Jsr;
+
+/**
+ * An inverted index over the words in the titles and descriptions of JSRs, or in the titles only.
+ * <p>
+ * Words are maximal runs of letters and digits, compared case insensitively. Each word maps to a posting list of JSR
+ * ordinals in ascending order, with a weight for every posting. Scores are weights times the inverse document
+ * frequency of the term, computed when querying so that an {@linkplain #update updated} index can share the posting
+ * lists of unchanged terms. A query only touches the posting lists of its terms.
+ * </p>
+ */
+class TextIndex {
+
+    private static final float TITLE_WEIGHT = 2f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+
+    private final boolean descriptions; // if descriptions are indexed along with titles
+    private final String[] terms; // sorted, for exact and prefix lookup
+    private final int[][] postings; // ordinals of the JSRs containing each term, ascending
+    private final float[][] weights; // term frequency weight of each posting
+    private final float[] idf; // inverse document frequency of each term
+
+    /**
+     * @param jsrs
+     *            the JSRs to index, where the position of a JSR is its ordinal
+     */
+    TextIndex(Jsr[] jsrs) {
+        this(jsrs, null, true);
+    }
+
+    /**
+     * @param pool
+     *            the pool to tokenize shards of JSRs on, or {@code null} to tokenize on the calling thread
+     * @param descriptions
+     *            if descriptions are indexed, rather than titles only, which fetches every lazily fetched description
+     */
+    TextIndex(Jsr[] jsrs, ForkJoinPool pool, boolean descriptions) {
+        this.descriptions = descriptions;
+        Map<String, PostingsBuilder> index = null;
+        for (Map<String, PostingsBuilder> shard : Shards.map(pool, jsrs.length, (from, to) -> {
+            Map<String, PostingsBuilder> postings = new TreeMap<>();
+            for (int ordinal = from; ordinal < to; ordinal++) {
+                Jsr jsr = jsrs[ordinal];
+                for (String term : tokenize(jsr.title))
+                    postings.computeIfAbsent(term, t -> new PostingsBuilder()).add(ordinal, TITLE_WEIGHT);
+                if (descriptions)
+                    for (String term : tokenize(jsr.getDescription()))
+                        postings.computeIfAbsent(term, t -> new PostingsBuilder()).add(ordinal, DESCRIPTION_WEIGHT);
+            }
+            return postings;
+        })) {
+            if (index == null) {
+                index = shard;
+            } else {
+                // Shards cover ascending ranges of ordinals, so appending keeps every posting list ascending
+                for (Map.Entry<String, PostingsBuilder> e : shard.entrySet())
+                    index.computeIfAbsent(e.getKey(), t -> new PostingsBuilder()).appendAll(e.getValue());
+            }
+        }
+
+        terms = new String[index.size()];
+        postings = new int[index.size()][];
+        weights = new float[index.size()][];
+        int i = 0;
+        for (Map.Entry<String, PostingsBuilder> e : index.entrySet()) {
+            PostingsBuilder builder = e.getValue();
+            terms[i] = e.getKey();
+            postings[i] = Arrays.copyOf(builder.ordinals, builder.size);
+            weights[i] = Arrays.copyOf(builder.weights, builder.size);
+            i++;
+        }
+        idf = idf(postings, jsrs.length);
+    }
+
+    private TextIndex(boolean descriptions, String[] terms, int[][] postings, float[][] weights, int documents) {
+        this.descriptions = descriptions;
+        this.terms = terms;
+        this.postings = postings;
+        this.weights = weights;
+        this.idf = idf(postings, documents);
+    }
+
+    private static float[] idf(int[][] postings, int documents) {
+        float[] idf = new float[postings.length];
+        for (int i = 0; i < idf.length; i++)
+            idf[i] = (float) Math.log(1 + (double) documents / postings[i].length);
+        return idf;
+    }
+
+    /**
+     * Indexes changed JSRs without indexing all JSRs again. The posting lists of terms not in the changed JSRs are
+     * shared with this index when no ordinals moved, and only have their ordinals moved otherwise.
+     *
+     * @param previous
+     *            the JSRs of this index by ordinal
+     * @param stale
+     *            the ordinals in {@code previous} of the JSRs that changed or were removed
+     * @param moved
+     *            the ordinal in {@code jsrs} of each ordinal in {@code previous}, -1 for a removed JSR, or {@code null}
+     *            if every JSR kept its ordinal
+     * @param jsrs
+     *            the JSRs of the updated index by ordinal
+     * @param fresh
+     *            the ordinals in {@code jsrs} of the JSRs that changed or were added
+     * @return the updated index
+     */
+    TextIndex update(Jsr[] previous, BitSet stale, int[] moved, Jsr[] jsrs, BitSet fresh) {
+        Map<String, PostingsBuilder> additions = new TreeMap<>();
+        for (int ordinal = fresh.nextSetBit(0); ordinal >= 0; ordinal = fresh.nextSetBit(ordinal + 1)) {
+            for (String term : tokenize(jsrs[ordinal].title))
+                additions.computeIfAbsent(term, t -> new PostingsBuilder()).add(ordinal, TITLE_WEIGHT);
+            if (descriptions)
+                for (String term : tokenize(jsrs[ordinal].getDescription()))
+                    additions.computeIfAbsent(term, t -> new PostingsBuilder()).add(ordinal, DESCRIPTION_WEIGHT);
+        }
+        Set<String> removals = new HashSet<>();
+        for (int ordinal = stale.nextSetBit(0); ordinal >= 0; ordinal = stale.nextSetBit(ordinal + 1)) {
+            removals.addAll(tokenize(previous[ordinal].title));
+            if (descriptions)
+                removals.addAll(tokenize(previous[ordinal].getDescription()));
+        }
+
+        List<String> updatedTerms = new ArrayList<>(terms.length + additions.size());
+        List<int[]> updatedPostings = new ArrayList<>(terms.length + additions.size());
+        List<float[]> updatedWeights = new ArrayList<>(terms.length + additions.size());
+        Iterator<Map.Entry<String, PostingsBuilder>> added = additions.entrySet().iterator();
+        Map.Entry<String, PostingsBuilder> addition = added.hasNext() ? added.next() : null;
+        for (int i = 0; i <= terms.length; i++) {
+            // Terms only in changed JSRs, sorted before the next term of this index
+            while (addition != null && (i == terms.length || addition.getKey().compareTo(terms[i]) < 0)) {
+                PostingsBuilder builder = addition.getValue();
+                updatedTerms.add(addition.getKey());
+                updatedPostings.add(Arrays.copyOf(builder.ordinals, builder.size));
+                updatedWeights.add(Arrays.copyOf(builder.weights, builder.size));
+                addition = added.hasNext() ? added.next() : null;
+            }
+            if (i == terms.length)
+                break;
+            PostingsBuilder builder = null;
+            if (addition != null && addition.getKey().equals(terms[i])) {
+                builder = addition.getValue();
+                addition = added.hasNext() ? added.next() : null;
+            }
+            if (builder == null && !removals.contains(terms[i])) {
+                updatedTerms.add(terms[i]);
+                updatedPostings.add(moved != null ? move(postings[i], moved) : postings[i]);
+                updatedWeights.add(weights[i]);
+                continue;
+            }
+            if (moved == null) {
+                splice(i, stale, builder, updatedTerms, updatedPostings, updatedWeights);
+                continue;
+            }
+            // Kept postings and postings of changed JSRs are disjoint, and both are ascending
+            PostingsBuilder merged = new PostingsBuilder();
+            int k = 0, a = 0;
+            while (k < postings[i].length || builder != null && a < builder.size) {
+                if (k < postings[i].length && stale.get(postings[i][k])) {
+                    k++;
+                    continue;
+                }
+                int kept = k < postings[i].length ? moved != null ? moved[postings[i][k]] : postings[i][k] : Integer.MAX_VALUE;
+                if (builder != null && a < builder.size && builder.ordinals[a] < kept) {
+                    merged.append(builder.ordinals[a], builder.weights[a]);
+                    a++;
+                } else {
+                    merged.append(kept, weights[i][k]);
+                    k++;
+                }
+            }
+            if (merged.size > 0) {
+                updatedTerms.add(terms[i]);
+                updatedPostings.add(Arrays.copyOf(merged.ordinals, merged.size));
+                updatedWeights.add(Arrays.copyOf(merged.weights, merged.size));
+            }
+        }
+        return new TextIndex(descriptions, updatedTerms.toArray(new String[0]), updatedPostings.toArray(new int[0][]),
+                updatedWeights.toArray(new float[0][]), jsrs.length);
+    }
+
+    /**
+     * Replaces the postings of stale JSRs in the posting list of a term with the postings of changed JSRs, for an
+     * update where every JSR kept its ordinal. Only the postings of the few changed JSRs are searched for, the rest of
+     * the list is copied in bulk, or shared if the changed JSRs have the same postings as before.
+     */
+    private void splice(int term, BitSet stale, PostingsBuilder additions, List<String> updatedTerms,
+            List<int[]> updatedPostings, List<float[]> updatedWeights) {
+        int[] ordinals = postings[term];
+        float[] termWeights = weights[term];
+        int[] removed = new int[Math.min(stale.cardinality(), ordinals.length)]; // positions, ascending
+        int removedCount = 0;
+        for (int ordinal = stale.nextSetBit(0); ordinal >= 0; ordinal = stale.nextSetBit(ordinal + 1)) {
+            int k = Arrays.binarySearch(ordinals, ordinal);
+            if (k >= 0)
+                removed[removedCount++] = k;
+        }
+        int addedCount = additions != null ? additions.size : 0;
+        if (removedCount == addedCount) {
+            boolean same = true;
+            for (int r = 0; r < removedCount && same; r++)
+                same = ordinals[removed[r]] == additions.ordinals[r] && termWeights[removed[r]] == additions.weights[r];
+            if (same) {
+                updatedTerms.add(terms[term]);
+                updatedPostings.add(ordinals);
+                updatedWeights.add(termWeights);
+                return;
+            }
+        }
+        int size = ordinals.length - removedCount + addedCount;
+        if (size == 0)
+            return;
+        int[] splicedOrdinals = new int[size];
+        float[] splicedWeights = new float[size];
+        int from = 0, to = 0, r = 0, a = 0;
+        while (true) {
+            int nextRemoved = r < removedCount ? removed[r] : ordinals.length;
+            int nextAdded = a < addedCount ? insertionPoint(ordinals, from, additions.ordinals[a]) : ordinals.length;
+            int kept = Math.min(nextRemoved, nextAdded) - from;
+            System.arraycopy(ordinals, from, splicedOrdinals, to, kept);
+            System.arraycopy(termWeights, from, splicedWeights, to, kept);
+            from += kept;
+            to += kept;
+            if (a < addedCount && nextAdded <= nextRemoved) {
+                splicedOrdinals[to] = additions.ordinals[a];
+                splicedWeights[to++] = additions.weights[a++];
+            } else if (r < removedCount) {
+                from++;
+                r++;
+            } else {
+                break;
+            }
+        }
+        updatedTerms.add(terms[term]);
+        updatedPostings.add(splicedOrdinals);
+        updatedWeights.add(splicedWeights);
+    }
+
+    private static int insertionPoint(int[] ordinals, int from, int ordinal) {
+        int k = Arrays.binarySearch(ordinals, from, ordinals.length, ordinal);
+        return k >= 0 ? k : -(k + 1);
+    }
+
+    private static int[] move(int[] ordinals, int[] moved) {
+        int[] result = new int[ordinals.length];
+        for (int k = 0; k < ordinals.length; k++)
+            result[k] = moved[ordinals[k]];
+        return result;
+    }
+
+    /**
+     * Finds the JSRs containing every term of the query. A query term ending with {@code *} matches every word it is a
+     * prefix of.
+     *
+     * @return the ordinals of the matching JSRs, highest score first and then by ordinal
+     */
+    int[] search(String query) {
+        Postings matches = match(query);
+        return rank(matches.ordinals, matches.scores);
+    }
+
+    /**
+     * Finds the JSRs of {@link #search(String)}, but ranks them lazily. Taking the first {@code k} of {@code m}
+     * matching JSRs takes {@code O(m + k log m)} time once the postings of the query terms are intersected.
+     *
+     * @return the ordinals of the matching JSRs, highest score first and then by ordinal
+     */
+    IntStream searchLazily(String query) {
+        Postings matches = match(query);
+        return StreamSupport.intStream(Spliterators.spliterator(new Ranking(matches), matches.ordinals.length,
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.IMMUTABLE), false);
+    }
+
+    /**
+     * @return the ordinals of the JSRs containing every term of the query, ascending
+     */
+    int[] matches(String query) {
+        return match(query).ordinals;
+    }
+
+    /**
+     * @return an upper bound of the number of JSRs containing every term of the query, from the lengths of the posting
+     *         lists of its rarest term without reading them
+     */
+    int estimate(String query) {
+        int estimate = Integer.MAX_VALUE;
+        for (String token : query.trim().split("\\s+")) {
+            boolean prefix = token.endsWith("*");
+            List<String> words = tokenize(prefix ? token.substring(0, token.length() - 1) : token);
+            for (int w = 0; w < words.size(); w++) {
+                String word = words.get(w);
+                int postingCount = 0;
+                if (prefix && w == words.size() - 1) {
+                    int from = lowerBound(word);
+                    for (int t = from, to = prefixUpperBound(word, from); t < to; t++)
+                        postingCount += postings[t].length;
+                } else {
+                    int t = Arrays.binarySearch(terms, word);
+                    postingCount = t >= 0 ? postings[t].length : 0;
+                }
+                estimate = Math.min(estimate, postingCount);
+            }
+        }
+        return estimate != Integer.MAX_VALUE ? estimate : 0;
+    }
+
+    private Postings match(String query) {
+        int[] matches = null;
+        float[] matchScores = null;
+        for (String token : query.trim().split("\\s+")) {
+            boolean prefix = token.endsWith("*");
+            List<String> words = tokenize(prefix ? token.substring(0, token.length() - 1) : token);
+            for (int w = 0; w < words.size(); w++) {
+                String word = words.get(w);
+                int from, to;
+                if (prefix && w == words.size() - 1) {
+                    from = lowerBound(word);
+                    to = prefixUpperBound(word, from);
+                } else {
+                    from = Arrays.binarySearch(terms, word);
+                    if (from < 0)
+                        return NO_MATCHES;
+                    to = from + 1;
+                }
+                Postings termPostings = union(from, to);
+                if (matches == null) {
+                    matches = termPostings.ordinals;
+                    matchScores = termPostings.scores;
+                } else {
+                    Postings intersection = intersect(matches, matchScores, termPostings.ordinals, termPostings.scores);
+                    matches = intersection.ordinals;
+                    matchScores = intersection.scores;
+                }
+                if (matches.length == 0)
+                    return NO_MATCHES;
+            }
+        }
+        return matches != null ? new Postings(matches, matchScores) : NO_MATCHES;
+    }
+
+    private int lowerBound(String word) {
+        int i = Arrays.binarySearch(terms, word);
+        return i >= 0 ? i : -(i + 1);
+    }
+
+    private int prefixUpperBound(String prefix, int from) {
+        int low = from, high = terms.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (terms[mid].startsWith(prefix))
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * Merges the posting lists of the terms in {@code [from, to)}, keeping the highest score of each ordinal.
+     */
+    private Postings union(int from, int to) {
+        if (to - from == 1) {
+            float[] scores = new float[weights[from].length];
+            for (int k = 0; k < scores.length; k++)
+                scores[k] = weights[from][k] * idf[from];
+            return new Postings(postings[from], scores);
+        }
+        PostingsBuilder merged = new PostingsBuilder();
+        for (int t = from; t < to; t++)
+            for (int k = 0; k < postings[t].length; k++)
+                merged.append(postings[t][k], weights[t][k] * idf[t]);
+        return merged.sortAndMergeMax();
+    }
+
+    private static Postings intersect(int[] a, float[] aScores, int[] b, float[] bScores) {
+        int[] ordinals = new int[Math.min(a.length, b.length)];
+        float[] sums = new float[ordinals.length];
+        int n = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length;) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                ordinals[n] = a[i];
+                sums[n++] = aScores[i++] + bScores[j++];
+            }
+        }
+        return new Postings(Arrays.copyOf(ordinals, n), Arrays.copyOf(sums, n));
+    }
+
+    private static int[] rank(int[] ordinals, float[] scores) {
+        Integer[] order = new Integer[ordinals.length];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        Arrays.sort(order, (x, y) -> {
+            int byScore = Float.compare(scores[y], scores[x]);
+            return byScore != 0 ? byScore : Integer.compare(ordinals[x], ordinals[y]);
+        });
+        int[] ranked = new int[ordinals.length];
+        for (int i = 0; i < ranked.length; i++)
+            ranked[i] = ordinals[order[i]];
+        return ranked;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null)
+            return tokens;
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static final Postings NO_MATCHES = new Postings(new int[0], new float[0]);
+
+    private static class Postings {
+        final int[] ordinals;
+        final float[] scores;
+
+        Postings(int[] ordinals, float[] scores) {
+            this.ordinals = ordinals;
+            this.scores = scores;
+        }
+    }
+
+    /**
+     * Matching postings taken highest score first and then by ordinal, from a binary heap built in linear time.
+     */
+    private static class Ranking implements PrimitiveIterator.OfInt {
+        private final int[] ordinals;
+        private final float[] scores;
+        private final int[] heap; // indexes of postings
+        private int size;
+
+        Ranking(Postings matches) {
+            this.ordinals = matches.ordinals;
+            this.scores = matches.scores;
+            this.size = ordinals.length;
+            this.heap = new int[size];
+            for (int i = 0; i < size; i++)
+                heap[i] = i;
+            for (int i = size / 2 - 1; i >= 0; i--)
+                siftDown(i);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return size > 0;
+        }
+
+        @Override
+        public int nextInt() {
+            if (size == 0)
+                throw new NoSuchElementException();
+            int top = heap[0];
+            heap[0] = heap[--size];
+            siftDown(0);
+            return ordinals[top];
+        }
+
+        private boolean ranksBefore(int a, int b) {
+            int byScore = Float.compare(scores[b], scores[a]);
+            return byScore != 0 ? byScore < 0 : ordinals[a] < ordinals[b];
+        }
+
+        private void siftDown(int i) {
+            int posting = heap[i];
+            for (int child = 2 * i + 1; child < size; child = 2 * i + 1) {
+                if (child + 1 < size && ranksBefore(heap[child + 1], heap[child]))
+                    child++;
+                if (!ranksBefore(heap[child], posting))
+                    break;
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = posting;
+        }
+    }
+
+    private static class PostingsBuilder {
+        int[] ordinals = new int[4];
+        float[] weights = new float[4];
+        int size;
+
+        /**
+         * Adds a posting where ordinals arrive in ascending order, summing the weights of repeated ordinals.
+         */
+        void add(int ordinal, float weight) {
+            if (size > 0 && ordinals[size - 1] == ordinal)
+                weights[size - 1] += weight;
+            else
+                append(ordinal, weight);
+        }
+
+        void append(int ordinal, float weight) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            ordinals[size] = ordinal;
+            weights[size++] = weight;
+        }
+
+        void appendAll(PostingsBuilder postings) {
+            for (int i = 0; i < postings.size; i++)
+                append(postings.ordinals[i], postings.weights[i]);
+        }
+
+        Postings sortAndMergeMax() {
+            long[] packed = new long[size]; // ordinal in the high bits for sorting, index of the posting in the low
+            for (int i = 0; i < size; i++)
+                packed[i] = (long) ordinals[i] << 32 | i;
+            Arrays.sort(packed);
+            int[] mergedOrdinals = new int[size];
+            float[] mergedScores = new float[size];
+            int n = 0;
+            for (long p : packed) {
+                int ordinal = (int) (p >>> 32);
+                float score = weights[(int) p];
+                if (n > 0 && mergedOrdinals[n - 1] == ordinal) {
+                    mergedScores[n - 1] = Math.max(mergedScores[n - 1], score);
+                } else {
+                    mergedOrdinals[n] = ordinal;
+                    mergedScores[n++] = score;
+                }
+            }
+            return new Postings(Arrays.copyOf(mergedOrdinals, n), Arrays.copyOf(mergedScores, n));
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package org.secnod.jsr.index;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * An index of the trigrams in a list of texts, for finding the texts closest to a misspelled or partially typed query.
+ * <p>
+ * A trigram is a run of three characters, compared case insensitively. The candidates for a query are the texts
+ * sharing enough of its trigrams to be within the maximum edit distance, since each edit of the query changes at most
+ * four of its trigrams. Only the candidates have their edit distance computed, most shared trigrams first, and a
+ * candidate is abandoned as soon as it cannot rank among the closest texts found so far.
+ * </p>
+ * <p>
+ * The edit distance counts inserted, deleted and substituted characters and swapped adjacent characters. Texts are
+ * matched by prefix, so that a partially typed query matches what it is the start of, or by substring.
+ * </p>
+ * <p>
+ * The shared trigram counts and the other buffers of a query are kept per thread and only the entries of the
+ * candidates are reset, so a query does work and allocates in proportion to the posting lists of its trigrams rather
+ * than to the number of texts.
+ * </p>
+ */
+class TrigramIndex {
+
+    private final String[] texts; // lower case, by id
+    private final boolean substrings;
+    private final int maxLength;
+    private final long[] trigrams; // sorted
+    private final int[][] postings; // ids of the texts containing each trigram, ascending
+    private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+    /**
+     * The buffers of a query, reused by the following queries of the same thread.
+     */
+    private final class Buffers {
+        final int[] shared = new int[texts.length]; // trigrams shared with the query by id, zero after each query
+        final IntList candidates = new IntList();
+        int[] ordered = new int[16];
+        final int[][] rows = new int[3][maxLength + 1];
+    }
+
+    /**
+     * @param texts
+     *            the texts to index, where the position of a text is its id
+     * @param substrings
+     *            if a query matches a substring of a text rather than a prefix
+     */
+    TrigramIndex(String[] texts, boolean substrings) {
+        this.texts = new String[texts.length];
+        this.substrings = substrings;
+        Map<Long, IntList> index = new HashMap<>();
+        int maxLength = 0;
+        for (int id = 0; id < texts.length; id++) {
+            String text = texts[id].toLowerCase();
+            this.texts[id] = text;
+            maxLength = Math.max(maxLength, text.length());
+            for (int i = 0; i + 3 <= text.length(); i++) {
+                IntList ids = index.computeIfAbsent(trigram(text, i), t -> new IntList(2));
+                if (ids.size() == 0 || ids.get(ids.size() - 1) != id)
+                    ids.add(id);
+            }
+        }
+        this.maxLength = maxLength;
+        trigrams = new long[index.size()];
+        int t = 0;
+        for (long trigram : index.keySet())
+            trigrams[t++] = trigram;
+        Arrays.sort(trigrams);
+        postings = new int[trigrams.length][];
+        for (t = 0; t < trigrams.length; t++)
+            postings[t] = index.get(trigrams[t]).toArray();
+    }
+
+    private static long trigram(String text, int i) {
+        return (long) text.charAt(i) << 32 | (long) text.charAt(i + 1) << 16 | text.charAt(i + 2);
+    }
+
+    /**
+     * @return the distinct trigrams of a lower case text, sorted
+     */
+    private static long[] trigrams(String text) {
+        long[] trigrams = new long[Math.max(0, text.length() - 2)];
+        for (int i = 0; i < trigrams.length; i++)
+            trigrams[i] = trigram(text, i);
+        Arrays.sort(trigrams);
+        int n = 0;
+        for (int i = 0; i < trigrams.length; i++)
+            if (n == 0 || trigrams[n - 1] != trigrams[i])
+                trigrams[n++] = trigrams[i];
+        return Arrays.copyOf(trigrams, n);
+    }
+
+    /**
+     * @return the maximum edit distance of a match for a query of the length, one edit per four characters
+     */
+    static int maxDistance(int length) {
+        return Math.max(1, length / 4);
+    }
+
+    /**
+     * Finds the texts closest to a query. Queries shorter than a trigram match nothing.
+     *
+     * @param limit
+     *            the maximum number of texts to return
+     * @return the ids of the texts within the {@linkplain #maxDistance maximum edit distance} of the query, closest
+     *         first, then sharing the most trigrams with the query and then by id
+     */
+    int[] closest(String query, int limit) {
+        String q = query.toLowerCase();
+        long[] queryTrigrams = trigrams(q);
+        if (queryTrigrams.length == 0 || limit <= 0)
+            return new int[0];
+
+        Buffers buffers = this.buffers.get();
+        int[] shared = buffers.shared;
+        IntList candidates = buffers.candidates;
+        for (long trigram : queryTrigrams) {
+            int t = Arrays.binarySearch(trigrams, trigram);
+            if (t >= 0)
+                for (int id : postings[t])
+                    if (shared[id]++ == 0)
+                        candidates.add(id);
+        }
+
+        // Candidates with the most shared trigrams first, bucketed by the number of shared trigrams
+        int maxDistance = maxDistance(q.length());
+        int minShared = Math.max(1, queryTrigrams.length - 4 * maxDistance);
+        int[] bucketStart = new int[queryTrigrams.length + 2];
+        for (int c = 0; c < candidates.size(); c++)
+            bucketStart[queryTrigrams.length - shared[candidates.get(c)] + 1]++;
+        for (int b = 1; b < bucketStart.length; b++)
+            bucketStart[b] += bucketStart[b - 1];
+        if (buffers.ordered.length < candidates.size())
+            buffers.ordered = new int[Math.max(candidates.size(), buffers.ordered.length * 2)];
+        int[] ordered = buffers.ordered;
+        for (int c = 0; c < candidates.size(); c++) {
+            int id = candidates.get(c);
+            ordered[bucketStart[queryTrigrams.length - shared[id]]++] = id;
+        }
+
+        // The closest matches so far, furthest on top, as distance, unshared trigrams and id in descending bit order
+        PriorityQueue<Long> closest = new PriorityQueue<>(Math.min(limit, candidates.size()) + 1,
+                Collections.reverseOrder());
+        for (int c = 0; c < candidates.size(); c++) {
+            int id = ordered[c];
+            if (shared[id] < minShared)
+                break;
+            int unshared = queryTrigrams.length - shared[id];
+            int bound = maxDistance;
+            if (closest.size() == limit) {
+                // Candidates come with ever more unshared trigrams, so only a closer one can replace one with fewer
+                long furthest = closest.peek();
+                bound = (int) (furthest >>> 48);
+                if (unshared > (int) (furthest >>> 32 & 0xffff))
+                    bound--;
+                if (bound < 0)
+                    break;
+            }
+            int distance = distance(q, texts[id], substrings, bound, buffers.rows);
+            if (distance > bound)
+                continue;
+            long match = (long) distance << 48 | (long) unshared << 32 | id;
+            if (closest.size() < limit) {
+                closest.add(match);
+            } else if (match < closest.peek()) {
+                closest.poll();
+                closest.add(match);
+            }
+        }
+        for (int c = 0; c < candidates.size(); c++)
+            shared[candidates.get(c)] = 0;
+        candidates.clear();
+        int[] ids = new int[closest.size()];
+        for (int i = ids.length - 1; i >= 0; i--)
+            ids[i] = (int) (long) closest.poll();
+        return ids;
+    }
+
+    /**
+     * @return the edit distance between the query and the closest prefix of the text, or {@code bound + 1} if it is
+     *         greater than {@code bound}
+     */
+    static int prefixDistance(String query, String text, int bound) {
+        return distance(query, text, false, bound, new int[3][text.length() + 1]);
+    }
+
+    /**
+     * @return the edit distance between the query and the closest substring of the text, or {@code bound + 1} if it is
+     *         greater than {@code bound}
+     */
+    static int substringDistance(String query, String text, int bound) {
+        return distance(query, text, true, bound, new int[3][text.length() + 1]);
+    }
+
+    /**
+     * The optimal string alignment distance of the query to a prefix or substring of the text, by dynamic programming
+     * over one row per query character. A row never has a smaller minimum than the smaller of the two rows above it,
+     * plus one for the row two above, so computing stops once two consecutive rows exceed the bound. A prefix is
+     * further than the bound from the query wherever their lengths differ by more than the bound, so only a band of
+     * each row is computed for prefixes.
+     *
+     * @param rows
+     *            three rows of at least one more element than the text is long, reused between texts
+     */
+    private static int distance(String query, String text, boolean anyStart, int bound, int[][] rows) {
+        int m = query.length(), n = text.length();
+        if (!anyStart && n < m - bound)
+            return bound + 1;
+        int[] previous2 = rows[0], previous = rows[1], row = rows[2];
+        for (int j = 0; j <= n; j++)
+            previous[j] = anyStart ? 0 : j;
+        int previousMin = 0, from = 0, to = n;
+        for (int i = 1; i <= m; i++) {
+            char q = query.charAt(i - 1);
+            from = anyStart ? 1 : Math.max(1, i - bound);
+            to = anyStart ? n : Math.min(n, i + bound);
+            row[from - 1] = from == 1 ? i : bound + 1;
+            if (to < n)
+                row[to + 1] = bound + 1; // read by the next row
+            int rowMin = row[from - 1];
+            for (int j = from; j <= to; j++) {
+                char t = text.charAt(j - 1);
+                int d = Math.min(previous[j - 1] + (q == t ? 0 : 1), Math.min(previous[j], row[j - 1]) + 1);
+                if (i > 1 && j > 1 && q == text.charAt(j - 2) && query.charAt(i - 2) == t)
+                    d = Math.min(d, previous2[j - 2] + 1);
+                row[j] = d;
+                rowMin = Math.min(rowMin, d);
+            }
+            if (rowMin > bound && previousMin > bound)
+                return bound + 1;
+            previousMin = rowMin;
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = row;
+            row = recycled;
+        }
+        // The prefix or substring may end anywhere in the text
+        int distance = bound + 1;
+        for (int j = Math.max(0, from - 1); j <= to; j++)
+            distance = Math.min(distance, previous[j]);
+        return distance;
+    }
+}
@@ -0,0 +1,328 @@
+package org.secnod.jsr.store;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.secnod.jsr.JsrMetadata;
+import org.secnod.jsr.JsrMetadataSource;
+import org.secnod.jsr.JsrStatus;
+
+/**
+ * JSR metadata in a compact binary form that is read in place, typically from a memory mapped file, instead of being
+ * parsed up front like {@code JsrMetadata.json}.
+ * <p>
+ * The metadata of each JSR number is a fixed-width record in a table ordered by JSR number, and the strings of the
+ * records are UTF-8 in a heap after the table. Loading only checks the header. Looking up a JSR number is a binary
+ * search of the table, and each field is only decoded into a {@code String} or {@code URI} when it is accessed, so
+ * metadata that is never shown costs no heap.
+ * </p>
+ * <p>
+ * The Maven build converts the bundled {@code JsrMetadata.json} to the resource {@value #FILENAME} next to this class,
+ * see {@link #main(String[])}.
+ * </p>
+ * <p>
+ * As a {@link JsrMetadataSource}, a store is the lazy metadata of an index that only decodes the fields that are shown.
+ * </p>
+ *
+ * <pre>
+ * store  = magic:int version:int recordCount:int heapByteCount:int record* heap
+ * record = jsrNumber:int status:int title:string description:string detailsPage:string, ascending jsrNumber
+ * string = heapOffset:int byteCount:int, heapOffset -1 for null
+ * heap   = utf8:byte*, each distinct string once
+ * status = JsrStatus.code(), -1 for null
+ * </pre>
+ */
+public final class BinaryMetadataStore implements JsrMetadataSource {
+
+    public static final String FILENAME = "JsrMetadata.bin";
+
+    private static final int MAGIC = 0x4A53524D; // "JSRM"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int RECORD_BYTES = 32;
+    private static final int STATUS = 4, TITLE = 8, DESCRIPTION = 16, DETAILS_PAGE = 24; // field offsets in a record
+
+    private final ByteBuffer buffer; // positions are never changed, reads are absolute or on duplicates
+    private final int recordCount;
+    private final int heapStart;
+
+    private BinaryMetadataStore(ByteBuffer buffer, int recordCount, int heapStart) {
+        this.buffer = buffer;
+        this.recordCount = recordCount;
+        this.heapStart = heapStart;
+    }
+
+    /**
+     * Writes metadata in the binary form. If several entries have the same JSR number, the last one is written.
+     */
+    public static void write(Collection<JsrMetadata> metadata, OutputStream target) throws IOException {
+        Map<Integer, JsrMetadata> byJsrNumber = new TreeMap<>();
+        for (JsrMetadata datum : metadata)
+            byJsrNumber.put(datum.id, datum);
+
+        ByteArrayOutputStream heap = new ByteArrayOutputStream();
+        Map<String, Integer> heapOffsets = new HashMap<>();
+        ByteArrayOutputStream records = new ByteArrayOutputStream(byJsrNumber.size() * RECORD_BYTES);
+        DataOutputStream table = new DataOutputStream(records);
+        for (JsrMetadata datum : byJsrNumber.values()) {
+            table.writeInt(datum.id);
+            table.writeInt(datum.status != null ? datum.status.code() : -1);
+            writeString(table, datum.title, heap, heapOffsets);
+            writeString(table, datum.description, heap, heapOffsets);
+            writeString(table, datum.detailsPage != null ? datum.detailsPage.toString() : null, heap, heapOffsets);
+        }
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(target));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(byJsrNumber.size());
+        out.writeInt(heap.size());
+        records.writeTo(out);
+        heap.writeTo(out);
+        out.flush();
+    }
+
+    private static void writeString(DataOutputStream table, String s, ByteArrayOutputStream heap,
+            Map<String, Integer> heapOffsets) throws IOException {
+        if (s == null) {
+            table.writeInt(-1);
+            table.writeInt(0);
+            return;
+        }
+        byte[] bytes = s.getBytes(UTF_8);
+        Integer offset = heapOffsets.get(s);
+        if (offset == null) {
+            offset = heap.size();
+            heapOffsets.put(s, offset);
+            heap.write(bytes);
+        }
+        table.writeInt(offset);
+        table.writeInt(bytes.length);
+    }
+
+    /**
+     * Reads the store from the current position of the buffer, without decoding any record. The buffer must not be
+     * modified while the store is in use.
+     *
+     * @throws IOException
+     *             if the buffer does not hold a binary metadata store
+     */
+    public static BinaryMetadataStore read(ByteBuffer buffer) throws IOException {
+        ByteBuffer store = buffer.slice();
+        if (store.remaining() < HEADER_BYTES || store.getInt(0) != MAGIC)
+            throw new IOException("Not a binary JSR metadata store");
+        int version = store.getInt(4);
+        if (version != VERSION)
+            throw new IOException("Unsupported binary JSR metadata store version " + version + ", expected " + VERSION);
+        int recordCount = store.getInt(8);
+        int heapBytes = store.getInt(12);
+        if (recordCount < 0 || heapBytes < 0
+                || HEADER_BYTES + (long) recordCount * RECORD_BYTES + heapBytes > store.remaining())
+            throw new IOException("Truncated binary JSR metadata store");
+        return new BinaryMetadataStore(store, recordCount, HEADER_BYTES + recordCount * RECORD_BYTES);
+    }
+
+    /**
+     * Loads a store by memory mapping a file.
+     */
+    public static BinaryMetadataStore load(File store) throws IOException {
+        try (FileChannel channel = FileChannel.open(store.toPath(), StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Loads the bundled store, converted from the bundled {@code JsrMetadata.json}. The store is memory mapped unless
+     * it is packaged in an archive.
+     *
+     * @return the store, or {@code null} if there is no bundled store
+     */
+    public static BinaryMetadataStore load() throws IOException {
+        URL resource = BinaryMetadataStore.class.getResource(FILENAME);
+        if (resource == null)
+            return null;
+        if ("file".equals(resource.getProtocol())) {
+            try {
+                return load(Path.of(resource.toURI()).toFile());
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+        }
+        try (InputStream in = resource.openStream()) {
+            return read(ByteBuffer.wrap(in.readAllBytes()));
+        }
+    }
+
+    /**
+     * @return the number of JSR numbers with metadata
+     */
+    public int size() {
+        return recordCount;
+    }
+
+    @Override
+    public boolean contains(int jsrNumber) {
+        return record(jsrNumber) >= 0;
+    }
+
+    /**
+     * @return the title of the JSR number, or {@code null} if it has no title or no metadata
+     */
+    @Override
+    public String title(int jsrNumber) {
+        int record = record(jsrNumber);
+        return record >= 0 ? stringAt(record + TITLE) : null;
+    }
+
+    /**
+     * @return the description of the JSR number, or {@code null} if it has no description or no metadata
+     */
+    @Override
+    public String description(int jsrNumber) {
+        int record = record(jsrNumber);
+        return record >= 0 ? stringAt(record + DESCRIPTION) : null;
+    }
+
+    /**
+     * @return the status of the JSR number, or {@code null} if it has no status or no metadata
+     */
+    @Override
+    public JsrStatus status(int jsrNumber) {
+        int record = record(jsrNumber);
+        return record >= 0 ? statusAt(record) : null;
+    }
+
+    /**
+     * @return the details page of the JSR number, or {@code null} if it has no details page or no metadata
+     */
+    @Override
+    public URI detailsPage(int jsrNumber) {
+        int record = record(jsrNumber);
+        return record >= 0 ? uriAt(record + DETAILS_PAGE) : null;
+    }
+
+    /**
+     * Decodes all fields of the metadata of one JSR number.
+     *
+     * @return new metadata owned by the caller, or {@code null} if the JSR number has no metadata
+     */
+    public JsrMetadata get(int jsrNumber) {
+        int record = record(jsrNumber);
+        return record >= 0 ? decode(record) : null;
+    }
+
+    /**
+     * @return the metadata of all JSR numbers in ascending order, as an unmodifiable list that decodes each element
+     *         when it is accessed, for instance for {@code JsrIndex.Builder.metadata(Collection)}
+     */
+    public List<JsrMetadata> all() {
+        return new AbstractList<JsrMetadata>() {
+            @Override
+            public JsrMetadata get(int index) {
+                if (index < 0 || index >= recordCount)
+                    throw new IndexOutOfBoundsException(index);
+                return decode(HEADER_BYTES + index * RECORD_BYTES);
+            }
+
+            @Override
+            public int size() {
+                return recordCount;
+            }
+        };
+    }
+
+    /**
+     * @return the buffer position of the record of the JSR number, or -1 if there is none
+     */
+    private int record(int jsrNumber) {
+        int low = 0, high = recordCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int record = HEADER_BYTES + mid * RECORD_BYTES;
+            int c = Integer.compare(buffer.getInt(record), jsrNumber);
+            if (c < 0)
+                low = mid + 1;
+            else if (c > 0)
+                high = mid - 1;
+            else
+                return record;
+        }
+        return -1;
+    }
+
+    private JsrMetadata decode(int record) {
+        JsrMetadata metadata = new JsrMetadata();
+        metadata.id = buffer.getInt(record);
+        metadata.title = stringAt(record + TITLE);
+        metadata.description = stringAt(record + DESCRIPTION);
+        metadata.status = statusAt(record);
+        metadata.detailsPage = uriAt(record + DETAILS_PAGE);
+        return metadata;
+    }
+
+    private JsrStatus statusAt(int record) {
+        int status = buffer.getInt(record + STATUS);
+        return status >= 0 ? JsrStatus.ofCode(status) : null;
+    }
+
+    private String stringAt(int field) {
+        int offset = buffer.getInt(field);
+        if (offset < 0)
+            return null;
+        byte[] bytes = new byte[buffer.getInt(field + 4)];
+        ByteBuffer heap = buffer.duplicate();
+        heap.position(heapStart + offset);
+        heap.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private URI uriAt(int field) {
+        String uri = stringAt(field);
+        return uri != null ? URI.create(uri) : null;
+    }
+
+    /**
+     * Converts {@code JsrMetadata.json} to the binary form. Run by the Maven build for the bundled metadata.
+     *
+     * @param args
+     *            the binary store to write, optionally preceded by the JSON metadata to convert instead of the
+     *            bundled {@code JsrMetadata.json}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.printf("Usage: java %s [<JsrMetadata.json>] <binary store file>%n",
+                    BinaryMetadataStore.class.getName());
+            System.exit(1);
+        }
+        Collection<JsrMetadata> metadata = args.length == 2
+                ? JsrMetadataStore.loadJson(new File(args[0]))
+                : JsrMetadataStore.loadJson();
+        File target = new File(args[args.length - 1]);
+        if (target.getParentFile() != null && !target.getParentFile().isDirectory() && !target.getParentFile().mkdirs())
+            throw new IOException("Could not create directory " + target.getParentFile());
+        try (OutputStream out = new FileOutputStream(target)) {
+            write(metadata, out);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package org.secnod.jsr.store;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.secnod.jsr.Jsr;
+import org.secnod.jsr.JsrId;
+import org.secnod.jsr.JsrMetadata;
+import org.secnod.jsr.JsrStatus;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Hand-written Gson type adapters for the JSON stores, reading and writing fields by name from a stream of tokens
+ * instead of by reflection, and the shared {@link Gson} instances they are registered with.
+ * <p>
+ * Fields are written in declaration order and {@code null} fields are left out, as Gson does by reflection. Unknown
+ * fields are skipped when reading.
+ * </p>
+ */
+final class JsonAdapters {
+
+    /**
+     * A JSR number without a variant as a JSON number, otherwise a string such as {@code "53-servlet"}
+     */
+    static final TypeAdapter<JsrId> JSR_ID = new TypeAdapter<JsrId>() {
+        @Override
+        public void write(JsonWriter out, JsrId id) throws IOException {
+            if (id == null)
+                out.nullValue();
+            else if (id.hasVariant())
+                out.value(id.toString());
+            else
+                out.value(id.jsrNumber);
+        }
+
+        @Override
+        public JsrId read(JsonReader in) throws IOException {
+            switch (in.peek()) {
+            case NULL:
+                in.nextNull();
+                return null;
+            case NUMBER:
+                return JsrId.of(in.nextInt());
+            default:
+                return JsrId.of(in.nextString());
+            }
+        }
+    };
+
+    /**
+     * A status by its {@linkplain JsrStatus#label() label}, read case insensitively
+     */
+    static final TypeAdapter<JsrStatus> JSR_STATUS = new TypeAdapter<JsrStatus>() {
+        @Override
+        public void write(JsonWriter out, JsrStatus status) throws IOException {
+            out.value(status != null ? status.label() : null);
+        }
+
+        @Override
+        public JsrStatus read(JsonReader in) throws IOException {
+            return JsrStatus.parse(nextString(in));
+        }
+    };
+
+    static final TypeAdapter<Jsr> JSR = new TypeAdapter<Jsr>() {
+        @Override
+        public void write(JsonWriter out, Jsr jsr) throws IOException {
+            if (jsr == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            JSR_ID.write(out.name("id"), jsr.id);
+            out.name("title").value(jsr.title);
+            out.name("description").value(jsr.getDescription());
+            JSR_ID.write(out.name("succeeds"), jsr.succeeds);
+            writeStrings(out.name("packages"), jsr.packages);
+            JSR_STATUS.write(out.name("status"), jsr.status);
+            out.name("detailsPage").value(jsr.getDetailsPage() != null ? jsr.getDetailsPage().toString() : null);
+            if (jsr.umbrella != null) {
+                out.name("umbrella").beginArray();
+                for (JsrId id : jsr.umbrella)
+                    JSR_ID.write(out, id);
+                out.endArray();
+            }
+            writeStrings(out.name("tags"), jsr.tags);
+            out.endObject();
+        }
+
+        @Override
+        public Jsr read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            JsrId id = null, succeeds = null;
+            String title = null, description = null;
+            Set<String> packages = null, tags = null;
+            Set<JsrId> umbrella = null;
+            JsrStatus status = null;
+            URI detailsPage = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                case "id":
+                    id = JSR_ID.read(in);
+                    break;
+                case "title":
+                    title = nextString(in);
+                    break;
+                case "description":
+                    description = nextString(in);
+                    break;
+                case "succeeds":
+                    succeeds = JSR_ID.read(in);
+                    break;
+                case "packages":
+                    packages = readStrings(in);
+                    break;
+                case "status":
+                    status = JSR_STATUS.read(in);
+                    break;
+                case "detailsPage":
+                    detailsPage = readUri(in);
+                    break;
+                case "umbrella":
+                    if (in.peek() == JsonToken.NULL) {
+                        in.nextNull();
+                        break;
+                    }
+                    umbrella = new LinkedHashSet<>();
+                    in.beginArray();
+                    while (in.hasNext())
+                        umbrella.add(JSR_ID.read(in));
+                    in.endArray();
+                    break;
+                case "tags":
+                    tags = readStrings(in);
+                    break;
+                default:
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            if (id == null)
+                throw new JsonSyntaxException("JSR without an id at " + in.getPath());
+
+            Jsr jsr = new Jsr(id);
+            jsr.title = title;
+            jsr.description = description;
+            jsr.succeeds = succeeds;
+            jsr.packages = packages;
+            jsr.status = status;
+            jsr.detailsPage = detailsPage;
+            jsr.umbrella = umbrella;
+            jsr.tags = tags;
+            return jsr;
+        }
+    };
+
+    static final TypeAdapter<JsrMetadata> JSR_METADATA = new TypeAdapter<JsrMetadata>() {
+        @Override
+        public void write(JsonWriter out, JsrMetadata metadata) throws IOException {
+            if (metadata == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("id").value(metadata.id);
+            out.name("title").value(metadata.title);
+            out.name("description").value(metadata.description);
+            JSR_STATUS.write(out.name("status"), metadata.status);
+            out.name("detailsPage").value(metadata.detailsPage != null ? metadata.detailsPage.toString() : null);
+            out.endObject();
+        }
+
+        @Override
+        public JsrMetadata read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            JsrMetadata metadata = new JsrMetadata();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                case "id":
+                    metadata.id = in.nextInt();
+                    break;
+                case "title":
+                    metadata.title = nextString(in);
+                    break;
+                case "description":
+                    metadata.description = nextString(in);
+                    break;
+                case "status":
+                    metadata.status = JSR_STATUS.read(in);
+                    break;
+                case "detailsPage":
+                    metadata.detailsPage = readUri(in);
+                    break;
+                default:
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return metadata;
+        }
+    };
+
+    /**
+     * For reading and for writing compact JSON
+     */
+    static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(JsrId.class, JSR_ID)
+            .registerTypeAdapter(JsrStatus.class, JSR_STATUS)
+            .registerTypeAdapter(Jsr.class, JSR)
+            .registerTypeAdapter(JsrMetadata.class, JSR_METADATA)
+            .create();
+
+    /**
+     * For writing the JSON stores
+     */
+    static final Gson PRETTY_GSON = GSON.newBuilder().setPrettyPrinting().create();
+
+    private JsonAdapters() {}
+
+    private static String nextString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    private static URI readUri(JsonReader in) throws IOException {
+        String uri = nextString(in);
+        try {
+            return uri != null ? new URI(uri) : null;
+        } catch (URISyntaxException e) {
+            throw new JsonSyntaxException("Invalid URI before " + in.getPath() + ": " + uri, e);
+        }
+    }
+
+    private static Set<String> readStrings(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        Set<String> strings = new LinkedHashSet<>();
+        in.beginArray();
+        while (in.hasNext())
+            strings.add(nextString(in));
+        in.endArray();
+        return strings;
+    }
+
+    private static void writeStrings(JsonWriter out, Set<String> strings) throws IOException {
+        if (strings == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (String s : strings)
+            out.value(s);
+        out.endArray();
+    }
+}
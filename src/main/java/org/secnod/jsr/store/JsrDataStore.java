@@ -5,20 +5,14 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
 
 import org.secnod.jsr.Jsr;
-import org.secnod.jsr.JsrId;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParseException;
-import com.google.gson.JsonPrimitive;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
 
 public class JsrDataStore {
     public static final String FILENAME = "JsrData.json";
@@ -28,28 +22,36 @@ public class JsrDataStore {
         this.jsrs = jsrs;
     }
 
-    public static Collection<Jsr> loadJson(Reader r) throws IOException {
-        JsonDeserializer<JsrId> idDeserializer = new JsonDeserializer<JsrId>() {
-
-            @Override
-            public JsrId deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context)
-                    throws JsonParseException {
-                JsonPrimitive value = json.getAsJsonPrimitive();
-                if (value.isNumber()) {
-                    return JsrId.of(json.getAsInt());
-                } else {
-                    return JsrId.of(value.getAsString());
-                }
-            }
-        };
+    /**
+     * Reads a JSON array of JSRs one JSR at a time, without collecting them, for instance straight into an index with
+     * {@code readJson(r, builder::add)}.
+     *
+     * @param consumer
+     *            receives each JSR in the order of the array, as a new object owned by the consumer
+     */
+    public static void readJson(Reader r, Consumer<? super Jsr> consumer) throws IOException {
+        JsonReader in = JsonAdapters.GSON.newJsonReader(r);
+        in.beginArray();
+        while (in.hasNext())
+            consumer.accept(JsonAdapters.JSR.read(in));
+        in.endArray();
+    }
 
-        GsonBuilder builder = new GsonBuilder();
-        builder.registerTypeAdapter(JsrId.class, idDeserializer);
-        Gson gson = builder.create();
+    /**
+     * Reads the bundled {@value #FILENAME} one JSR at a time.
+     *
+     * @see #readJson(Reader, Consumer)
+     */
+    public static void readJson(Consumer<? super Jsr> consumer) throws IOException {
+        try (Reader r = new InputStreamReader(JsrDataStore.class.getResourceAsStream(FILENAME), "UTF-8")) {
+            readJson(r, consumer);
+        }
+    }
 
-        Type collectionType = new TypeToken<Collection<Jsr>>(){}.getType();
-        Collection<Jsr> jsrsFromDisk = gson.fromJson(r, collectionType);
-        return jsrsFromDisk;
+    public static Collection<Jsr> loadJson(Reader r) throws IOException {
+        List<Jsr> jsrs = new ArrayList<>();
+        readJson(r, jsrs::add);
+        return jsrs;
     }
 
     public static Collection<Jsr> loadJson() throws IOException {
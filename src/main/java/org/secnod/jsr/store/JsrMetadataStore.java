@@ -7,42 +7,61 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.Writer;
-import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 
 import org.secnod.jsr.JsrMetadata;
-import org.secnod.jsr.JsrStatus;
-
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParseException;
-import com.google.gson.JsonPrimitive;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
+
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
 public class JsrMetadataStore {
 
     public static final String FILENAME = "JsrMetadata.json";
 
-    public static Collection<JsrMetadata> loadJson(Reader r) throws IOException {
-        JsonDeserializer<JsrStatus> statusDeserializer = new JsonDeserializer<JsrStatus>() {
+    /**
+     * The percentage of the existing JSR numbers a sync removes at most, unless removals are allowed. A scrape that
+     * failed part of the way through lists fewer JSRs, and must not remove the metadata of the rest.
+     */
+    public static final int MAXIMUM_REMOVALS_PERCENT = 10;
 
-            @Override
-            public JsrStatus deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context)
-                    throws JsonParseException {
-                return JsrStatus.parse(json.getAsString());
-            }
+    /**
+     * Reads a JSON array of metadata one JSR at a time, without collecting them, for instance straight into an index
+     * with {@code readJson(r, builder::add)}.
+     *
+     * @param consumer
+     *            receives the metadata of each JSR in the order of the array, as a new object owned by the consumer
+     */
+    public static void readJson(Reader r, Consumer<? super JsrMetadata> consumer) throws IOException {
+        JsonReader in = JsonAdapters.GSON.newJsonReader(r);
+        in.beginArray();
+        while (in.hasNext())
+            consumer.accept(JsonAdapters.JSR_METADATA.read(in));
+        in.endArray();
+    }
+
+    /**
+     * Reads the bundled {@value #FILENAME} one JSR at a time.
+     *
+     * @see #readJson(Reader, Consumer)
+     */
+    public static void readJson(Consumer<? super JsrMetadata> consumer) throws IOException {
+        try (Reader r = new InputStreamReader(JsrMetadataStore.class.getResourceAsStream(FILENAME), "UTF-8")) {
+            readJson(r, consumer);
+        }
+    }
 
-        };
-        Gson gson = new GsonBuilder()
-                .registerTypeAdapter(JsrStatus.class, statusDeserializer)
-                .create();
-        Type type = new TypeToken<Collection<JsrMetadata>>(){}.getType();
-        return gson.fromJson(r, type);
+    public static Collection<JsrMetadata> loadJson(Reader r) throws IOException {
+        List<JsrMetadata> metadata = new ArrayList<>();
+        readJson(r, metadata::add);
+        return metadata;
     }
 
     public static Collection<JsrMetadata> loadJson() throws IOException {
@@ -58,17 +77,104 @@ public class JsrMetadataStore {
     }
 
     public static void writeMetadata(Collection<JsrMetadata> metadata, Writer target) {
-        JsonSerializer<JsrStatus> statusSerializer = new JsonSerializer<JsrStatus>() {
+        JsonAdapters.PRETTY_GSON.toJson(metadata, new TypeToken<Collection<JsrMetadata>>(){}.getType(), target);
+    }
 
-            @Override
-            public JsonElement serialize(JsrStatus src, Type typeOfSrc, JsonSerializationContext context) {
-                return new JsonPrimitive(src.label());
+    /**
+     * Merges scraped metadata into existing metadata, without removing more than
+     * {@value #MAXIMUM_REMOVALS_PERCENT}% of the existing JSR numbers.
+     *
+     * @see #syncMetadata(Reader, Collection, Writer, boolean)
+     */
+    public static MetadataSync syncMetadata(Reader existing, Collection<JsrMetadata> scraped, Writer target)
+            throws IOException {
+        return syncMetadata(existing, scraped, target, false);
+    }
+
+    /**
+     * Merges scraped metadata into existing metadata by JSR number, for a sync that only changes what was scraped
+     * differently. The existing metadata is read and the merged metadata written one JSR at a time in ascending order,
+     * formatted as by {@link #writeMetadata(Collection, Writer)}, so unchanged metadata is written straight through
+     * and an unchanged {@value #FILENAME} is written byte for byte as it was.
+     * <p>
+     * JSR numbers missing from the scraped metadata are removed, so an empty or truncated scrape would remove the
+     * metadata of every JSR it missed. Empty scraped metadata is refused, and so are more removals than
+     * {@value #MAXIMUM_REMOVALS_PERCENT}% of the existing JSR numbers unless {@code allowRemovals} is set. A refused
+     * sync may have written part of the merged metadata to {@code target}, which is to be discarded.
+     * </p>
+     *
+     * @param existing
+     *            metadata in ascending order of JSR numbers, as written by this method
+     * @param scraped
+     *            the complete metadata as scraped, in any order. If several entries have the same JSR number, the last
+     *            one is merged.
+     * @param target
+     *            receives the scraped metadata in ascending order, where it is the same as the existing metadata as
+     *            read from {@code existing}
+     * @param allowRemovals
+     *            if more than {@value #MAXIMUM_REMOVALS_PERCENT}% of the existing JSR numbers may be removed
+     * @throws IOException
+     *             if the existing metadata is not in ascending order, or if the sync is refused
+     */
+    public static MetadataSync syncMetadata(Reader existing, Collection<JsrMetadata> scraped, Writer target,
+            boolean allowRemovals) throws IOException {
+        Map<Integer, JsrMetadata> byJsrNumber = new TreeMap<>();
+        for (JsrMetadata datum : scraped)
+            byJsrNumber.put(datum.id, datum);
+        Iterator<JsrMetadata> fresh = byJsrNumber.values().iterator();
+        JsrMetadata next = fresh.hasNext() ? fresh.next() : null;
+
+        List<Integer> added = new ArrayList<>(), changed = new ArrayList<>(), removed = new ArrayList<>();
+        int unchanged = 0;
+        JsonReader in = JsonAdapters.GSON.newJsonReader(existing);
+        JsonWriter out = JsonAdapters.PRETTY_GSON.newJsonWriter(target);
+        in.beginArray();
+        out.beginArray();
+        Integer previous = null;
+        while (in.hasNext()) {
+            JsrMetadata current = JsonAdapters.JSR_METADATA.read(in);
+            if (previous != null && current.id <= previous)
+                throw new IOException("Metadata not in ascending order of JSR numbers: " + current.id + " after "
+                        + previous);
+            previous = current.id;
+            for (; next != null && next.id < current.id; next = fresh.hasNext() ? fresh.next() : null) {
+                added.add(next.id);
+                JsonAdapters.JSR_METADATA.write(out, next);
+            }
+            if (next == null || next.id > current.id) {
+                removed.add(current.id);
+                continue;
+            }
+            if (sameMetadata(current, next)) {
+                unchanged++;
+                JsonAdapters.JSR_METADATA.write(out, current);
+            } else {
+                changed.add(current.id);
+                JsonAdapters.JSR_METADATA.write(out, next);
             }
-        };
-        Gson gson = new GsonBuilder()
-                .registerTypeAdapter(JsrStatus.class, statusSerializer)
-                .setPrettyPrinting()
-                .create();
-        gson.toJson(metadata, target);
+            next = fresh.hasNext() ? fresh.next() : null;
+        }
+        in.endArray();
+        int existingCount = removed.size() + changed.size() + unchanged;
+        if (byJsrNumber.isEmpty() && existingCount > 0)
+            throw new IOException("No scraped metadata, refusing to remove the metadata of " + existingCount + " JSRs");
+        if (!allowRemovals && removed.size() * 100L > existingCount * (long) MAXIMUM_REMOVALS_PERCENT)
+            throw new IOException("Scraped metadata would remove " + removed.size() + " of " + existingCount
+                    + " JSRs, more than " + MAXIMUM_REMOVALS_PERCENT + "% unless removals are allowed");
+        for (; next != null; next = fresh.hasNext() ? fresh.next() : null) {
+            added.add(next.id);
+            JsonAdapters.JSR_METADATA.write(out, next);
+        }
+        out.endArray();
+        out.flush();
+        return new MetadataSync(added, changed, removed, unchanged);
+    }
+
+    private static boolean sameMetadata(JsrMetadata a, JsrMetadata b) {
+        return a.id == b.id
+                && Objects.equals(a.title, b.title)
+                && Objects.equals(a.description, b.description)
+                && a.status == b.status
+                && Objects.equals(a.detailsPage, b.detailsPage);
     }
 }
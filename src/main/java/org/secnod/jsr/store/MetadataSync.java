@@ -0,0 +1,64 @@
+package org.secnod.jsr.store;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of merging scraped metadata into existing metadata with
+ * {@link JsrMetadataStore#syncMetadata(java.io.Reader, java.util.Collection, java.io.Writer)}.
+ */
+public class MetadataSync {
+
+    private final List<Integer> added;
+    private final List<Integer> changed;
+    private final List<Integer> removed;
+    private final int unchanged;
+
+    MetadataSync(List<Integer> added, List<Integer> changed, List<Integer> removed, int unchanged) {
+        this.added = Collections.unmodifiableList(added);
+        this.changed = Collections.unmodifiableList(changed);
+        this.removed = Collections.unmodifiableList(removed);
+        this.unchanged = unchanged;
+    }
+
+    /**
+     * @return the JSR numbers only in the scraped metadata, ascending
+     */
+    public List<Integer> added() {
+        return added;
+    }
+
+    /**
+     * @return the JSR numbers with scraped metadata differing from the existing metadata, ascending
+     */
+    public List<Integer> changed() {
+        return changed;
+    }
+
+    /**
+     * @return the JSR numbers only in the existing metadata, ascending
+     */
+    public List<Integer> removed() {
+        return removed;
+    }
+
+    /**
+     * @return the number of JSR numbers with scraped metadata equal to the existing metadata
+     */
+    public int unchanged() {
+        return unchanged;
+    }
+
+    /**
+     * @return if the merged metadata differs from the existing metadata
+     */
+    public boolean hasChanges() {
+        return !added.isEmpty() || !changed.isEmpty() || !removed.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return added.size() + " added, " + changed.size() + " changed, " + removed.size() + " removed, " + unchanged
+                + " unchanged";
+    }
+}
@@ -2,12 +2,15 @@ package org.secnod.jsr.index;
 
 import static java.util.Arrays.asList;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -84,4 +87,51 @@ public class DiskIndexTest {
         var ee7 = List.of(JsrId.of(339), JsrId.of(340), JsrId.of(342), JsrId.of(345));
         assertThat(toIds(idx.queryByTag("JavaEE7")), equalTo(ee7));
     }
+
+    @Test
+    public void cachedViews() {
+        assertThat(idx.all(), sameInstance(idx.all()));
+        assertThat(idx.findAllTags(), sameInstance(idx.findAllTags()));
+        assertThat(idx.findAllPackages(), sameInstance(idx.findAllPackages()));
+        assertThat(idx.findAllTags(), equalTo(List.copyOf(new TreeSet<>(idx.findAllTags()))));
+        assertThat(idx.findAllPackages(), equalTo(List.copyOf(new TreeSet<>(idx.findAllPackages()))));
+        assertThat(idx.findAllPackages().contains("javax.ws.rs.client"), equalTo(true));
+        assertThat(idx.findAllTags().contains("JavaEE7"), equalTo(true));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void unmodifiableViews() {
+        idx.findAllPackages().add("com.example");
+    }
+
+    @Test
+    public void bulkResolution() {
+        PackageResolution resolution = idx.resolveAll(
+                "javax.servlet.http.HttpServlet",
+                "javax.servlet.http.HttpServletRequest",
+                "javax.ws.rs.core.Response.Status",
+                "javax.ws.rs.client",
+                "com.google.gson.Gson",
+                "javax.servlet.http.HttpServlet",
+                "com.google.gson.Gson");
+
+        assertThat(resolution.resolved().keySet(), equalTo(Set.of(
+                "javax.servlet.http.HttpServlet",
+                "javax.servlet.http.HttpServletRequest",
+                "javax.ws.rs.core.Response.Status",
+                "javax.ws.rs.client")));
+        assertThat(resolution.resolved().get("javax.servlet.http.HttpServletRequest"),
+                equalTo(idx.jsrNumbersForPackage("javax.servlet.http")));
+        assertThat(resolution.resolved().get("javax.ws.rs.core.Response.Status"),
+                equalTo(List.of(JsrId.of(370), JsrId.of(339), JsrId.of(311))));
+        assertThat(resolution.resolved().get("javax.ws.rs.client"), equalTo(List.of(JsrId.of(370), JsrId.of(339))));
+        assertThat(resolution.unresolved(), equalTo(List.of("com.google.gson.Gson")));
+    }
+
+    @Test
+    public void packageOfClassName() {
+        assertThat(JsrIndex.packageOf("javax.ws.rs.core.Response.Status"), equalTo("javax.ws.rs.core"));
+        assertThat(JsrIndex.packageOf("javax.ws.rs.core"), equalTo("javax.ws.rs.core"));
+        assertThat(JsrIndex.packageOf("Response"), equalTo("Response"));
+    }
 }
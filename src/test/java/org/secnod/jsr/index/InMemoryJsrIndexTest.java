@@ -1,6 +1,7 @@
 package org.secnod.jsr.index;
 
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 import java.util.ArrayList;
@@ -86,6 +87,46 @@ public class InMemoryJsrIndexTest {
         assertThat(idx.queryByTag("tag1"), equalTo(Set.of(jsr1, jsr2, umbrella)));
     }
 
+    @Test
+    public void addedJsrsShareCollections() {
+        var jsr1 = new Jsr(100);
+        jsr1.packages = Set.of("javax.jsr1");
+        jsr1.tags = Set.of("own");
+        var umbrella = new Jsr(300);
+        umbrella.tags = Set.of("tag1");
+        umbrella.umbrella = Set.of(jsr1.id);
+        var jsr2 = new Jsr(101);
+        jsr2.packages = Set.of("javax.jsr1");
+
+        JsrIndex idx = new JsrIndex.Builder().add(jsr1).add(umbrella).add(jsr2).build();
+        Jsr indexed1 = idx.queryById(jsr1.id), indexed2 = idx.queryById(jsr2.id);
+        assertThat(indexed2.packages, sameInstance(jsr2.packages));
+        assertThat(indexed2.packages, sameInstance(indexed1.packages));
+        assertThat(indexed1.tags, equalTo(Set.of("own", "tag1")));
+        assertThat(jsr1.tags, equalTo(Set.of("own")));
+    }
+
+    @Test
+    public void idAndNumberLookup() {
+        var servlet = new Jsr(53);
+        servlet.id = JsrId.of(53, "servlet");
+        servlet.packages = Set.of("javax.servlet");
+        var jsp = new Jsr(53);
+        jsp.id = JsrId.of(53, "jsp");
+        jsp.packages = Set.of("javax.servlet.jsp");
+        var jsr154 = new Jsr(154);
+        jsr154.packages = Set.of("javax.servlet");
+
+        JsrIndex idx = new JsrIndex.Builder().data(Set.of(servlet, jsp, jsr154)).build();
+
+        assertThat(idx.queryById(JsrId.of(53, "servlet")), equalTo(servlet));
+        assertThat(idx.queryById(JsrId.of(53)), equalTo(null));
+        assertThat(idx.queryAllByIdOrNumber(JsrId.of(53)), equalTo(List.of(jsp, servlet)));
+        assertThat(idx.queryAllByIdOrNumber(JsrId.of(53, "servlet")), equalTo(List.of(servlet, jsp)));
+        assertThat(idx.queryAllByIdOrNumber(JsrId.of(154)), equalTo(List.of(jsr154)));
+        assertThat(idx.queryAllByIdOrNumber(JsrId.of(155)), equalTo(List.of()));
+    }
+
     @Test(expected = IllegalStateException.class)
     public void missingSuccessor() {
         var jsr1 = new Jsr(100);
@@ -104,4 +145,36 @@ public class InMemoryJsrIndexTest {
         jsr2.tags = Set.of("tag1", "tag2");
         new JsrIndex.Builder().data((Set.of(jsr1, jsr2))).build();
     }
+
+    @Test(expected = IllegalStateException.class)
+    public void cyclicSuccession() {
+        var jsr1 = new Jsr(100);
+        jsr1.packages = Set.of("javax.jsr1");
+        var jsr2 = new Jsr(200);
+        var jsr3 = new Jsr(300);
+        jsr2.succeeds = jsr3.id;
+        jsr3.succeeds = jsr2.id;
+        var jsr4 = new Jsr(400);
+        jsr4.succeeds = jsr3.id;
+        new JsrIndex.Builder().data((Set.of(jsr1, jsr2, jsr3, jsr4))).build();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void selfSuccession() {
+        var jsr1 = new Jsr(100);
+        jsr1.packages = Set.of("javax.jsr1");
+        jsr1.succeeds = jsr1.id;
+        new JsrIndex.Builder().data((Set.of(jsr1))).build();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void succeedsUmbrella() {
+        var jsr1 = new Jsr(100);
+        jsr1.packages = Set.of("javax.jsr1");
+        var umbrella = new Jsr(200);
+        umbrella.umbrella = Set.of(jsr1.id);
+        var jsr3 = new Jsr(300);
+        jsr3.succeeds = umbrella.id;
+        new JsrIndex.Builder().data((Set.of(jsr1, umbrella, jsr3))).build();
+    }
 }
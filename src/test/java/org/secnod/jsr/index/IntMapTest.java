@@ -0,0 +1,63 @@
+package org.secnod.jsr.index;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class IntMapTest {
+
+    @Test
+    public void putGetRemove() {
+        IntMap<String> map = new IntMap<>();
+        assertThat(map.put(220, "JPA"), equalTo(null));
+        assertThat(map.put(-1, "negative"), equalTo(null));
+        assertThat(map.put(220, "EJB"), equalTo("JPA"));
+        assertThat(map.get(220), equalTo("EJB"));
+        assertThat(map.get(221), equalTo(null));
+        assertThat(map.getOrDefault(221, "none"), equalTo("none"));
+        assertThat(map.size(), equalTo(2));
+
+        assertThat(map.remove(220), equalTo("EJB"));
+        assertThat(map.remove(220), equalTo(null));
+        assertThat(map.get(220), equalTo(null));
+        assertThat(map.get(-1), equalTo("negative"));
+        assertThat(map.size(), equalTo(1));
+    }
+
+    /**
+     * Random puts and removes, growing the map and shifting colliding keys back on removal.
+     */
+    @Test
+    public void sameAsHashMap() {
+        Random random = new Random(366);
+        IntMap<Integer> map = new IntMap<>(4);
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(2_000) * 64;
+            if (random.nextInt(3) == 0)
+                assertThat(map.remove(key), equalTo(expected.remove(key)));
+            else
+                assertThat(map.put(key, i), equalTo(expected.put(key, i)));
+        }
+        assertThat(map.size(), equalTo(expected.size()));
+        for (int key = 0; key < 2_000 * 64; key += 64)
+            assertThat(map.get(key), equalTo(expected.get(key)));
+    }
+
+    @Test
+    public void copyIsIndependent() {
+        IntMap<String> map = new IntMap<>();
+        map.put(1, "one");
+        IntMap<String> copy = new IntMap<>(map);
+        copy.put(2, "two");
+        copy.remove(1);
+        assertThat(map.get(1), equalTo("one"));
+        assertThat(map.get(2), equalTo(null));
+        assertThat(copy.get(2), equalTo("two"));
+    }
+}
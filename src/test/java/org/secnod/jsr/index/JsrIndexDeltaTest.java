@@ -0,0 +1,273 @@
+package org.secnod.jsr.index;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.secnod.jsr.Jsr;
+import org.secnod.jsr.JsrId;
+import org.secnod.jsr.JsrMetadata;
+import org.secnod.jsr.JsrStatus;
+import org.secnod.jsr.store.JsrDataStore;
+import org.secnod.jsr.store.JsrMetadataStore;
+
+public class JsrIndexDeltaTest {
+
+    private List<Jsr> data;
+    private List<JsrMetadata> metadata;
+    private JsrIndex idx;
+
+    @Before
+    public void buildIndex() throws IOException {
+        data = new ArrayList<>(JsrDataStore.loadJson());
+        metadata = new ArrayList<>(JsrMetadataStore.loadJson());
+        idx = rebuild();
+        idx.query(JsrQuery.all().titleTerms("java")); // builds the title index for deltas to update
+    }
+
+    private JsrIndex rebuild() {
+        return new JsrIndex.Builder()
+                .data(data)
+                .metadata(metadata)
+                .build();
+    }
+
+    private static byte[] snapshot(JsrIndex index) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsrIndexSnapshot.write(index, new byte[32], out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Asserts that an updated index is the same as an index built from scratch from the updated data and metadata.
+     */
+    private void assertRebuilt(JsrIndex updated) throws IOException {
+        JsrIndex rebuilt = rebuild();
+        assertThat(snapshot(updated), equalTo(snapshot(rebuilt)));
+        assertThat(updated.findAllTags(), equalTo(rebuilt.findAllTags()));
+        for (String tag : rebuilt.findAllTags())
+            assertThat(List.copyOf(updated.queryByTag(tag)), equalTo(List.copyOf(rebuilt.queryByTag(tag))));
+        assertThat(List.copyOf(updated.queryByUmbrella()), equalTo(List.copyOf(rebuilt.queryByUmbrella())));
+        for (JsrStatus status : JsrStatus.values())
+            assertThat(List.copyOf(updated.queryByStatus(status)), equalTo(List.copyOf(rebuilt.queryByStatus(status))));
+        for (Jsr jsr : rebuilt.all()) {
+            assertThat(updated.queryById(jsr.id).title, equalTo(jsr.title));
+            assertThat(List.copyOf(updated.queryAllByIdOrNumber(jsr.id)),
+                    equalTo(List.copyOf(rebuilt.queryAllByIdOrNumber(jsr.id))));
+            assertThat(updated.succession(jsr.id).chain(), equalTo(rebuilt.succession(jsr.id).chain()));
+        }
+        for (String query : List.of("servlet", "java api", "enterprise", "persist*", "specification"))
+            assertThat(updated.search(query), equalTo(rebuilt.search(query)));
+        assertThat(List.copyOf(updated.queryByTitle("java")), equalTo(List.copyOf(rebuilt.queryByTitle("java"))));
+        for (String terms : List.of("servlet", "java api", "jav* api", "hundred", "serv*"))
+            assertThat(List.copyOf(updated.query(JsrQuery.all().titleTerms(terms))),
+                    equalTo(List.copyOf(rebuilt.query(JsrQuery.all().titleTerms(terms)))));
+    }
+
+    private Jsr find(int jsrNumber) {
+        for (Jsr jsr : data)
+            if (jsr.id.equals(JsrId.of(jsrNumber)))
+                return jsr;
+        throw new AssertionError("No JSR " + jsrNumber);
+    }
+
+    private void replace(Jsr jsr) {
+        data.removeIf(j -> j.id.equals(jsr.id));
+        data.add(jsr);
+    }
+
+    @Test
+    public void addSuccessor() throws IOException {
+        Jsr servlet5 = new Jsr(9999);
+        servlet5.succeeds = JsrId.of(369);
+        data.add(servlet5);
+
+        JsrIndex updated = idx.delta().put(servlet5).apply();
+
+        assertRebuilt(updated);
+        assertThat(updated.queryByPackage("javax.servlet").id, equalTo(JsrId.of(9999)));
+        assertThat(idx.queryByPackage("javax.servlet").id, equalTo(JsrId.of(369)));
+    }
+
+    @Test
+    public void addLineageMovingOrdinals() throws IOException {
+        Jsr jsr = new Jsr(100);
+        jsr.packages = Set.of("javax.hundred", "javax.servlet");
+        jsr.title = "A hundred servlets";
+        jsr.tags = Set.of("JavaEE8");
+        data.add(jsr);
+
+        assertRebuilt(idx.delta().put(jsr).apply());
+    }
+
+    @Test
+    public void changeMetadata() throws IOException {
+        JsrMetadata changed = new JsrMetadata();
+        changed.id = 340;
+        changed.title = "Java Servlet 3.1 Specification, revised";
+        changed.description = "Persistent servlets";
+        changed.status = JsrStatus.WITHDRAWN;
+        metadata.removeIf(m -> m.id == 340);
+        metadata.add(changed);
+
+        JsrIndex updated = idx.delta().put(changed).apply();
+
+        assertRebuilt(updated);
+        assertThat(updated.queryById(JsrId.of(340)).title, equalTo(changed.title));
+        assertThat(idx.queryById(JsrId.of(340)).title, not(equalTo(changed.title)));
+
+        // Other lineages are shared with the previous index
+        assertThat(updated.queryById(JsrId.of(221)), sameInstance(idx.queryById(JsrId.of(221))));
+        assertThat(updated.queryAllByPackage("java.sql"), sameInstance(idx.queryAllByPackage("java.sql")));
+        assertThat(updated.successionGraph(), sameInstance(idx.successionGraph()));
+    }
+
+    @Test
+    public void removeMetadata() throws IOException {
+        metadata.removeIf(m -> m.id == 907);
+        assertRebuilt(idx.delta().removeMetadata(907).apply());
+    }
+
+    @Test
+    public void removeHeir() throws IOException {
+        data.remove(find(341));
+        JsrIndex updated = idx.delta().remove(JsrId.of(341)).apply();
+
+        assertRebuilt(updated);
+        assertThat(updated.queryById(JsrId.of(341)), equalTo(null));
+        assertThat(updated.queryByPackage("javax.el").id, equalTo(JsrId.of(245, "el")));
+    }
+
+    @Test
+    public void changeUmbrella() throws IOException {
+        Jsr javaEE8 = new Jsr(find(366));
+        javaEE8.umbrella = Set.of(JsrId.of(369), JsrId.of(338));
+        javaEE8.tags = Set.of("JavaEE8", "Jakarta");
+        replace(javaEE8);
+
+        JsrIndex updated = idx.delta().put(javaEE8).apply();
+
+        assertRebuilt(updated);
+        assertThat(updated.queryById(JsrId.of(338)).tags.contains("Jakarta"), equalTo(true));
+        assertThat(updated.queryByTag("JavaEE8").contains(updated.queryById(JsrId.of(907))), equalTo(false));
+    }
+
+    @Test
+    public void moveToOtherLineage() throws IOException {
+        Jsr moved = new Jsr(find(369));
+        moved.succeeds = null;
+        moved.packages = Set.of("jakarta.servlet");
+        replace(moved);
+
+        JsrIndex updated = idx.delta().put(moved).apply();
+
+        assertRebuilt(updated);
+        assertThat(updated.successionGraph(), not(sameInstance(idx.successionGraph())));
+    }
+
+    @Test
+    public void severalChanges() throws IOException {
+        Jsr added = new Jsr(1);
+        added.packages = Set.of("javax.first");
+        data.add(added);
+        data.remove(find(341));
+        JsrMetadata changed = new JsrMetadata();
+        changed.id = 221;
+        changed.title = "JDBC 4.0 API Specification";
+        metadata.removeIf(m -> m.id == 221);
+        metadata.add(changed);
+
+        JsrIndex updated = idx.delta()
+                .put(added)
+                .remove(JsrId.of(341))
+                .put(changed)
+                .apply();
+
+        assertRebuilt(updated);
+        assertRebuilt(updated.delta().apply());
+    }
+
+    @Test
+    public void sharesInternedSets() {
+        Jsr servlet = idx.queryById(JsrId.of(340));
+        Jsr added = new Jsr(1);
+        added.packages = new LinkedHashSet<>(servlet.packages);
+        JsrIndex updated = idx.delta().put(added).apply();
+        assertThat(updated.queryById(added.id).packages, sameInstance(servlet.packages));
+        Jsr readded = new Jsr(2);
+        readded.packages = new LinkedHashSet<>(servlet.packages);
+        assertThat(updated.delta().put(readded).apply().queryById(readded.id).packages, sameInstance(servlet.packages));
+    }
+
+    /**
+     * Enough deltas on top of each other for the data they keep to be merged into a new base along the way.
+     */
+    @Test
+    public void chainedDeltas() throws IOException {
+        JsrIndex updated = idx;
+        for (int n = 1; n <= 60; n++) {
+            JsrIndex.Delta delta = updated.delta();
+            Jsr added = new Jsr(n);
+            added.title = "Delta " + n;
+            added.packages = Set.of("javax.delta" + n);
+            data.add(added);
+            delta.put(added);
+            if (n % 3 == 0) {
+                data.remove(find(n - 1));
+                delta.remove(JsrId.of(n - 1));
+            }
+            if (n % 4 == 0) {
+                JsrMetadata changed = new JsrMetadata();
+                changed.id = n;
+                changed.title = "Changed delta " + n;
+                changed.status = JsrStatus.FINAL;
+                metadata.add(changed);
+                delta.put(changed);
+            }
+            updated = delta.apply();
+            if (n % 20 == 0)
+                assertRebuilt(updated);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void removePredecessor() {
+        idx.delta().remove(JsrId.of(340)).apply();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void cyclicSuccession() {
+        Jsr servlet = new Jsr(find(154));
+        servlet.succeeds = JsrId.of(369);
+        Jsr servlet3 = new Jsr(find(315));
+        idx.delta().put(servlet).put(servlet3).apply();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void removeUmbrellaTarget() {
+        idx.delta().remove(JsrId.of(907)).apply();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void removeUnknownJsr() {
+        idx.delta().remove(JsrId.of(9999));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void snapshotIndex() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsrIndexSnapshot.write(idx, new byte[32], out);
+        JsrIndexSnapshot.read(ByteBuffer.wrap(out.toByteArray())).delta();
+    }
+}
@@ -0,0 +1,107 @@
+package org.secnod.jsr.index;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+import org.secnod.jsr.Jsr;
+import org.secnod.jsr.JsrId;
+import org.secnod.jsr.JsrMetadata;
+
+public class JsrIndexHolderTest {
+
+    /**
+     * @return a lineage of JSRs 1..generations where only the first JSR specifies packages
+     */
+    private static List<Jsr> lineage(int generations) {
+        Jsr[] jsrs = new Jsr[generations];
+        for (int i = 0; i < generations; i++) {
+            jsrs[i] = new Jsr(i + 1);
+            jsrs[i].tags = Set.of("generations" + generations);
+            if (i == 0)
+                jsrs[i].packages = Set.of("javax.lineage");
+            else
+                jsrs[i].succeeds = jsrs[i - 1].id;
+        }
+        return List.of(jsrs);
+    }
+
+    @Test
+    public void buildDoesNotModifyData() {
+        List<Jsr> data = lineage(2);
+        new JsrIndex.Builder().data(data).build();
+        assertThat(data.get(1).packages, equalTo(null));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void indexedJsrsAreFrozen() {
+        JsrIndex idx = new JsrIndex.Builder().data(lineage(2)).build();
+        idx.queryById(JsrId.of(2)).tag(Set.of("tag"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void indexedJsrsRejectMetadata() {
+        JsrIndex idx = new JsrIndex.Builder().data(lineage(2)).build();
+        assertThat(idx.queryById(JsrId.of(1)).isFrozen(), equalTo(true));
+        idx.queryById(JsrId.of(1)).merge(new JsrMetadata());
+    }
+
+    @Test
+    public void copiesAreNotFrozen() {
+        JsrIndex idx = new JsrIndex.Builder().data(lineage(2)).build();
+        Jsr copy = new Jsr(idx.queryById(JsrId.of(2)));
+        assertThat(copy.isFrozen(), equalTo(false));
+        copy.tag(Set.of("tag"));
+        assertThat(copy.tags.contains("tag"), equalTo(true));
+    }
+
+    @Test
+    public void swap() {
+        JsrIndex first = new JsrIndex.Builder().data(lineage(1)).build();
+        JsrIndexHolder holder = new JsrIndexHolder(first);
+        JsrIndex second = holder.reload(lineage(2), List.of());
+        assertThat(holder.get(), sameInstance(second));
+        assertThat(holder.set(first), sameInstance(second));
+        assertThat(holder.get(), sameInstance(first));
+    }
+
+    @Test
+    public void readersSeeConsistentSnapshots() throws Exception {
+        JsrIndexHolder holder = new JsrIndexHolder(new JsrIndex.Builder().data(lineage(1)).build());
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService readers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> reads = new ArrayList<>();
+            for (int r = 0; r < 4; r++) {
+                reads.add(readers.submit(() -> {
+                    int count = 0;
+                    while (!done.get()) {
+                        JsrIndex idx = holder.get();
+                        int generations = idx.all().size();
+                        assertThat(idx.queryAllByPackage("javax.lineage.Class").size(), equalTo(generations));
+                        assertThat(idx.queryByTag("generations" + generations).size(), equalTo(generations));
+                        count++;
+                    }
+                    return count;
+                }));
+            }
+            for (int generations = 2; generations <= 50; generations++)
+                holder.reload(lineage(generations), List.of());
+            done.set(true);
+            for (Future<Integer> read : reads)
+                read.get(10, TimeUnit.SECONDS);
+        } finally {
+            readers.shutdownNow();
+        }
+    }
+}
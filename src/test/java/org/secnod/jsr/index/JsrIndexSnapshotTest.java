@@ -0,0 +1,121 @@
+package org.secnod.jsr.index;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.secnod.jsr.Jsr;
+import org.secnod.jsr.JsrStatus;
+import org.secnod.jsr.store.JsrDataStore;
+import org.secnod.jsr.store.JsrMetadataStore;
+
+public class JsrIndexSnapshotTest {
+
+    private static JsrIndex built;
+
+    @BeforeClass
+    public static void buildIndex() throws IOException {
+        built = new JsrIndex.Builder()
+                .data(JsrDataStore.loadJson())
+                .metadata(JsrMetadataStore.loadJson())
+                .build();
+    }
+
+    private static JsrIndex roundTrip(JsrIndex index) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsrIndexSnapshot.write(index, JsrIndexSnapshot.digest(new ByteArrayInputStream(new byte[0])), out);
+        return JsrIndexSnapshot.read(ByteBuffer.wrap(out.toByteArray()));
+    }
+
+    private static List<String> describe(JsrIndex index) {
+        List<String> description = new ArrayList<>();
+        for (Jsr jsr : index.all())
+            description.add(String.join("|", String.valueOf(jsr.id), jsr.title, jsr.description,
+                    String.valueOf(jsr.succeeds), String.valueOf(jsr.packages), String.valueOf(jsr.status),
+                    String.valueOf(jsr.detailsPage), String.valueOf(jsr.umbrella), String.valueOf(jsr.tags)));
+        for (String packageName : index.findAllPackages())
+            description.add(packageName + " " + index.queryAllByPackage(packageName));
+        for (String tag : index.findAllTags())
+            description.add(tag + " " + index.queryByTag(tag));
+        return description;
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        JsrIndex loaded = roundTrip(built);
+        List<String> expected = describe(built);
+        List<String> actual = describe(loaded);
+        for (Iterator<String> e = expected.iterator(), a = actual.iterator(); e.hasNext() && a.hasNext();)
+            assertThat(a.next(), equalTo(e.next()));
+        assertThat(actual.size(), equalTo(expected.size()));
+    }
+
+    @Test
+    public void bundledSnapshot() throws IOException {
+        assertThat("Bundled snapshot is current", JsrIndexSnapshot.isCurrent(), equalTo(true));
+        assertThat(describe(JsrIndexSnapshot.load()), equalTo(describe(built)));
+    }
+
+    @Test
+    public void statusCodesAreStable() {
+        JsrStatus[] written = { JsrStatus.ACTIVE, JsrStatus.FINAL, JsrStatus.MAINTENANCE, JsrStatus.INACTIVE,
+                JsrStatus.WITHDRAWN, JsrStatus.REJECTED, JsrStatus.DORMANT };
+        for (int code = 0; code < written.length; code++) {
+            assertThat(written[code].code(), equalTo(code));
+            assertThat(JsrStatus.ofCode(code), equalTo(written[code]));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void notASnapshot() throws IOException {
+        JsrIndexSnapshot.read(ByteBuffer.wrap(new byte[64]));
+    }
+
+    private static byte[] snapshot() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsrIndexSnapshot.write(built, new byte[32], out);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void truncated() throws IOException {
+        byte[] snapshot = snapshot();
+        for (int length = 0; length < snapshot.length; length++) {
+            try {
+                JsrIndexSnapshot.read(ByteBuffer.wrap(snapshot, 0, length));
+                throw new AssertionError("Read a snapshot truncated to " + length + " bytes");
+            } catch (IOException expected) {
+                // Continue
+            }
+        }
+    }
+
+    /**
+     * Corrupt snapshots either fail with an IOException or read as some index.
+     */
+    @Test
+    public void corrupt() throws IOException {
+        byte[] snapshot = snapshot();
+        Random random = new Random(366);
+        for (int i = 0; i < 500; i++) {
+            byte[] corrupt = snapshot.clone();
+            for (int k = random.nextInt(4); k >= 0; k--)
+                corrupt[8 + 32 + random.nextInt(corrupt.length - 40)] = (byte) random.nextInt();
+            try {
+                JsrIndexSnapshot.read(ByteBuffer.wrap(corrupt));
+            } catch (IOException expected) {
+                // Continue
+            }
+        }
+    }
+}
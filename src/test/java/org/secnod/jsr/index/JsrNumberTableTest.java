@@ -0,0 +1,45 @@
+package org.secnod.jsr.index;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+import org.secnod.jsr.Jsr;
+import org.secnod.jsr.JsrId;
+
+public class JsrNumberTableTest {
+
+    @Test
+    public void variants() {
+        Jsr[] ordinals = { new Jsr(JsrId.of(220)), new Jsr(JsrId.of(220, "mr")), new Jsr(JsrId.of(220, "public")),
+                new Jsr(JsrId.of(221)), new Jsr(JsrId.of(315, "mr")) };
+        JsrNumberTable table = new JsrNumberTable(ordinals);
+        for (int o = 0; o < ordinals.length; o++)
+            assertThat(table.ordinalOf(ordinals, ordinals[o].id), equalTo(o));
+        assertThat(table.ordinalOf(ordinals, JsrId.of(220, "final")), equalTo(-1));
+        assertThat(table.ordinalOf(ordinals, JsrId.of(315)), equalTo(-1));
+        assertThat(table.ordinalOf(ordinals, JsrId.of(222)), equalTo(-1));
+    }
+
+    /**
+     * Random JSR numbers, many of them colliding in a table this full.
+     */
+    @Test
+    public void sameAsBinarySearch() {
+        Random random = new Random(366);
+        TreeSet<JsrId> ids = new TreeSet<>();
+        while (ids.size() < 5_000)
+            ids.add(random.nextInt(4) == 0 ? JsrId.of(random.nextInt(10_000), "v" + random.nextInt(3))
+                    : JsrId.of(random.nextInt(10_000)));
+        Jsr[] ordinals = ids.stream().map(Jsr::new).toArray(Jsr[]::new);
+        JsrNumberTable table = new JsrNumberTable(ordinals);
+        for (int i = 0; i < 20_000; i++) {
+            JsrId id = random.nextBoolean() ? JsrId.of(random.nextInt(10_000)) : JsrId.of(random.nextInt(10_000), "v1");
+            int expected = ids.contains(id) ? ids.headSet(id).size() : -1;
+            assertThat(id.toString(), table.ordinalOf(ordinals, id), equalTo(expected));
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.secnod.jsr.index;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.secnod.jsr.Jsr;
+import org.secnod.jsr.JsrId;
+import org.secnod.jsr.JsrStatus;
+import org.secnod.jsr.store.JsrDataStore;
+import org.secnod.jsr.store.JsrMetadataStore;
+
+public class JsrQueryTest {
+
+    private static JsrIndex idx;
+
+    @BeforeClass
+    public static void buildIndex() throws IOException {
+        idx = new JsrIndex.Builder()
+                .data(JsrDataStore.loadJson())
+                .metadata(JsrMetadataStore.loadJson())
+                .build();
+    }
+
+    private static List<JsrId> ids(Collection<Jsr> jsrs) {
+        List<JsrId> ids = new ArrayList<>();
+        for (Jsr jsr : jsrs)
+            ids.add(jsr.id);
+        return ids;
+    }
+
+    private static List<JsrId> ids(Object... ids) {
+        List<JsrId> jsrIds = new ArrayList<>();
+        for (Object id : ids)
+            jsrIds.add(JsrId.of(id.toString()));
+        return jsrIds;
+    }
+
+    private static List<JsrId> filter(Predicate<Jsr> predicate) {
+        List<Jsr> matches = new ArrayList<>();
+        for (Jsr jsr : idx.all())
+            if (predicate.test(jsr))
+                matches.add(jsr);
+        return ids(matches);
+    }
+
+    private static boolean hasPackageUnder(Jsr jsr, String parent) {
+        if (jsr.packages != null)
+            for (String packageName : jsr.packages)
+                if (packageName.equals(parent) || packageName.startsWith(parent + "."))
+                    return true;
+        return false;
+    }
+
+    @Test
+    public void singlePredicates() {
+        assertThat(ids(idx.query(JsrQuery.all())), equalTo(ids(idx.all())));
+        assertThat(ids(idx.query(JsrQuery.all().packagePrefix("javax.servlet"))),
+                equalTo(ids("53-jsp", "53-servlet", 152, 154, 245, 315, 340, 369)));
+        assertThat(ids(idx.query(JsrQuery.all().packagePrefix("javax.ws.rs.client"))), equalTo(ids(339, 370)));
+        assertThat(ids(idx.query(JsrQuery.all().packagePrefix("javax.serv"))), equalTo(List.of()));
+        assertThat(ids(idx.query(JsrQuery.all().tag("JavaEE7"))), equalTo(ids(idx.queryByTag("JavaEE7"))));
+        assertThat(ids(idx.query(JsrQuery.all().status(JsrStatus.ACTIVE, JsrStatus.MAINTENANCE))),
+                equalTo(filter(j -> j.status == JsrStatus.ACTIVE || j.status == JsrStatus.MAINTENANCE)));
+        assertThat(ids(idx.query(JsrQuery.all().titleTerms("Servlet"))),
+                equalTo(filter(j -> TextIndex.tokenize(j.title).contains("servlet"))));
+        assertThat(ids(idx.query(JsrQuery.all().titleTerms("enterprise java*"))),
+                equalTo(filter(j -> j.title.toLowerCase().matches(".*\\benterprise\\b.*")
+                        && j.title.toLowerCase().matches(".*\\bjava.*"))));
+        List<JsrId> javApi = filter(j -> j.title.toLowerCase().matches(".*\\bjav.*")
+                && TextIndex.tokenize(j.title).contains("api"));
+        assertThat(javApi.isEmpty(), equalTo(false));
+        assertThat(ids(idx.query(JsrQuery.all().titleTerms("jav* api"))), equalTo(javApi));
+        // Few JSRs left, so the title terms filter rather than scan the title index
+        assertThat(ids(idx.query(JsrQuery.all().succeeds(JsrId.of(154)).titleTerms("serv* 3"))),
+                equalTo(ids(315, 340)));
+        assertThat(ids(idx.query(JsrQuery.all().memberOf(JsrId.of(342)))), equalTo(ids(339, 340, 345)));
+        assertThat(ids(idx.query(JsrQuery.all().memberOf(JsrId.of(339)))), equalTo(List.of()));
+        assertThat(ids(idx.query(JsrQuery.all().succeeds(JsrId.of(154)))), equalTo(ids(315, 340, 369)));
+    }
+
+    @Test
+    public void combinedPredicates() {
+        assertThat(ids(idx.query(JsrQuery.all().packagePrefix("javax.ws").tag("JavaEE7"))), equalTo(ids(339)));
+        assertThat(ids(idx.query(JsrQuery.all().packagePrefix("javax").tags(TagQuery.parse("JavaEE6 OR JavaEE7"))
+                .status(JsrStatus.FINAL, JsrStatus.MAINTENANCE))),
+                equalTo(filter(j -> hasPackageUnder(j, "javax") && j.isTagged()
+                        && (j.tags.contains("JavaEE6") || j.tags.contains("JavaEE7"))
+                        && (j.status == JsrStatus.FINAL || j.status == JsrStatus.MAINTENANCE))));
+        assertThat(ids(idx.query(JsrQuery.all().succeeds(JsrId.of("53-servlet")).memberOf(JsrId.of(316)))),
+                equalTo(ids(315)));
+        assertThat(ids(idx.query(JsrQuery.all().titleTerms("servlet").tag("JavaEE8"))), equalTo(ids(369)));
+        assertThat(ids(idx.query(JsrQuery.all().tag("JavaEE8").tag("JavaEE5"))), equalTo(List.of()));
+    }
+
+    @Test
+    public void plan() {
+        JsrQuery query = JsrQuery.all()
+                .status(JsrStatus.FINAL)
+                .packagePrefix("javax")
+                .tag("JavaEE7")
+                .memberOf(JsrId.of(342));
+        List<String> steps = idx.explain(query).steps();
+        assertThat(steps.size(), equalTo(4));
+        assertThat(steps.get(0), equalTo("scan member of 342 (estimate 3)"));
+        assertThat(steps.get(1).startsWith("filter tags JavaEE7"), equalTo(true)); // few JSRs left
+        assertThat(steps.get(2).startsWith("filter status [FINAL]"), equalTo(true));
+        assertThat(steps.get(3).startsWith("filter package javax"), equalTo(true));
+
+        assertThat(idx.explain(JsrQuery.all().succeeds(JsrId.of(154))).steps(),
+                equalTo(List.of("scan succeeds 154 (estimate 3)")));
+        assertThat(idx.explain(JsrQuery.all().titleTerms("java")).steps().get(0).startsWith("scan title java"),
+                equalTo(true));
+
+        JsrQuery intersected = JsrQuery.all().packagePrefix("javax").tags(TagQuery.parse("NOT JavaEE8"));
+        List<String> intersectedSteps = idx.explain(intersected).steps();
+        assertThat(intersectedSteps.get(1).startsWith("intersect "), equalTo(true));
+        assertThat(ids(idx.query(intersected)),
+                equalTo(filter(j -> hasPackageUnder(j, "javax") && !(j.isTagged() && j.tags.contains("JavaEE8")))));
+    }
+
+    @Test
+    public void statusIndex() {
+        for (JsrStatus status : JsrStatus.values())
+            assertThat(ids(idx.queryByStatus(status)), equalTo(filter(j -> j.status == status)));
+        assertThat(ids(idx.queryByStatus(JsrStatus.FINAL, JsrStatus.MAINTENANCE)),
+                equalTo(filter(j -> j.status == JsrStatus.FINAL || j.status == JsrStatus.MAINTENANCE)));
+
+        JsrQuery finalJavax = JsrQuery.all().status(JsrStatus.FINAL).packagePrefix("javax");
+        assertThat(idx.explain(finalJavax).steps().get(1).startsWith("intersect package javax"), equalTo(true));
+        assertThat(ids(idx.query(finalJavax)),
+                equalTo(filter(j -> j.status == JsrStatus.FINAL && hasPackageUnder(j, "javax"))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void noTitleTerms() {
+        JsrQuery.all().titleTerms(" * ");
+    }
+}
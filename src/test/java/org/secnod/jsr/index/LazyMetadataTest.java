@@ -0,0 +1,156 @@
+package org.secnod.jsr.index;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.secnod.jsr.Jsr;
+import org.secnod.jsr.JsrId;
+import org.secnod.jsr.JsrMetadata;
+import org.secnod.jsr.JsrMetadataSource;
+import org.secnod.jsr.JsrStatus;
+import org.secnod.jsr.store.BinaryMetadataStore;
+import org.secnod.jsr.store.JsrDataStore;
+import org.secnod.jsr.store.JsrMetadataStore;
+
+public class LazyMetadataTest {
+
+    private static List<Jsr> data;
+    private static BinaryMetadataStore store;
+    private static JsrIndex eager;
+
+    @BeforeClass
+    public static void load() throws IOException {
+        data = List.copyOf(JsrDataStore.loadJson());
+        List<JsrMetadata> metadata = List.copyOf(JsrMetadataStore.loadJson());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryMetadataStore.write(metadata, out);
+        store = BinaryMetadataStore.read(ByteBuffer.wrap(out.toByteArray()));
+        eager = new JsrIndex.Builder().data(data).metadata(metadata).build();
+    }
+
+    /**
+     * Counts the descriptions and details pages fetched from the bundled metadata
+     */
+    private static class CountingSource implements JsrMetadataSource {
+        final AtomicInteger fetched = new AtomicInteger();
+
+        @Override
+        public boolean contains(int jsrNumber) {
+            return store.contains(jsrNumber);
+        }
+
+        @Override
+        public String title(int jsrNumber) {
+            return store.title(jsrNumber);
+        }
+
+        @Override
+        public String description(int jsrNumber) {
+            fetched.incrementAndGet();
+            return store.description(jsrNumber);
+        }
+
+        @Override
+        public JsrStatus status(int jsrNumber) {
+            return store.status(jsrNumber);
+        }
+
+        @Override
+        public URI detailsPage(int jsrNumber) {
+            fetched.incrementAndGet();
+            return store.detailsPage(jsrNumber);
+        }
+    }
+
+    @Test
+    public void sameAsEager() {
+        JsrIndex lazy = new JsrIndex.Builder().data(data).lazyMetadata(store).build();
+        assertThat(lazy.all().size(), equalTo(eager.all().size()));
+        Iterator<Jsr> expected = eager.all().iterator();
+        for (Jsr jsr : lazy.all()) {
+            Jsr e = expected.next();
+            assertThat(jsr.id, equalTo(e.id));
+            assertThat(jsr.id + " title", jsr.title, equalTo(e.title));
+            assertThat(jsr.id + " status", jsr.status, equalTo(e.status));
+            assertThat(jsr.id + " description", jsr.getDescription(), equalTo(e.getDescription()));
+            assertThat(jsr.id + " details page", jsr.getDetailsPage(), equalTo(e.getDetailsPage()));
+            assertThat(jsr.id + " tags", jsr.tags, equalTo(e.tags));
+        }
+        for (JsrStatus status : JsrStatus.values())
+            assertThat(status.toString(), lazy.queryByStatus(status), equalTo(eager.queryByStatus(status)));
+        assertThat(lazy.queryByTitle("persistence"), equalTo(eager.queryByTitle("persistence")));
+        for (String query : new String[] { "servlet", "web services", "persist*", "api" })
+            assertThat(query, lazy.search(query), equalTo(eager.search(query)));
+        assertThat(lazy.query(JsrQuery.all().status(JsrStatus.FINAL).titleTerms("web")),
+                equalTo(eager.query(JsrQuery.all().status(JsrStatus.FINAL).titleTerms("web"))));
+    }
+
+    @Test
+    public void fetchedOnFirstAccess() {
+        CountingSource source = new CountingSource();
+        JsrIndex lazy = new JsrIndex.Builder().data(data).lazyMetadata(source).build();
+        assertThat(source.fetched.get(), equalTo(0));
+
+        Jsr servlet = lazy.queryByPackage("javax.servlet");
+        assertThat(servlet.description, nullValue());
+        String description = servlet.getDescription();
+        assertThat(description, equalTo(eager.queryById(servlet.id).getDescription()));
+        assertThat(servlet.getDescription(), equalTo(description));
+        assertThat(source.fetched.get(), equalTo(1));
+
+        Jsr copy = new Jsr(servlet);
+        assertThat(copy.description, equalTo(description));
+        assertThat(copy.detailsPage, equalTo(eager.queryById(servlet.id).detailsPage));
+        assertThat(source.fetched.get(), equalTo(2));
+    }
+
+    @Test
+    public void titleTermsFetchNoDescriptions() {
+        CountingSource source = new CountingSource();
+        JsrIndex lazy = new JsrIndex.Builder().data(data).lazyMetadata(source).build();
+        JsrQuery query = JsrQuery.all().titleTerms("servlet").status(JsrStatus.FINAL);
+        assertThat(lazy.query(query), equalTo(eager.query(query)));
+        assertThat(lazy.explain(query).steps().get(0), equalTo(eager.explain(query).steps().get(0)));
+        assertThat(source.fetched.get(), equalTo(0));
+    }
+
+    @Test
+    public void addedMetadataWithoutSource() {
+        JsrMetadata metadata = new JsrMetadata();
+        metadata.id = 315;
+        metadata.title = "Servlet 3.0";
+        metadata.description = "Added";
+        metadata.status = JsrStatus.FINAL;
+        JsrIndex lazy = new JsrIndex.Builder()
+                .data(data)
+                .add(metadata)
+                .lazyMetadata(new CountingSource() {
+                    @Override
+                    public boolean contains(int jsrNumber) {
+                        return jsrNumber != 315 && super.contains(jsrNumber);
+                    }
+                })
+                .build();
+        Jsr jsr = lazy.queryById(JsrId.of(315));
+        assertThat(jsr.description, equalTo("Added"));
+        assertThat(jsr.getDescription(), equalTo("Added"));
+        assertThat(lazy.queryById(JsrId.of(340)).getDescription(),
+                equalTo(eager.queryById(JsrId.of(340)).getDescription()));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void cannotBeUpdated() {
+        new JsrIndex.Builder().data(data).lazyMetadata(store).build().delta();
+    }
+}
@@ -0,0 +1,79 @@
+package org.secnod.jsr.index;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.secnod.jsr.Jsr;
+
+public class PackageQueryCacheTest {
+
+    private JsrIndex idx;
+    private Jsr servlet;
+
+    @Before
+    public void buildIndex() {
+        servlet = new Jsr(154);
+        servlet.packages = Set.of("javax.servlet");
+        idx = new JsrIndex.Builder().data(Set.of(servlet)).build();
+    }
+
+    @Test
+    public void cachesHitsAndMisses() {
+        PackageQueryCache cache = new PackageQueryCache(idx, 10);
+        assertThat(cache.queryAllByPackage("javax.servlet.http.HttpServlet"), equalTo(List.of(servlet)));
+        assertThat(cache.queryAllByPackage("javax.servlet.http.HttpServletRequest"), equalTo(List.of(servlet)));
+        assertThat(cache.queryAllByPackage("com.google.gson.Gson"), equalTo(List.of()));
+        assertThat(cache.queryAllByPackage("com.google.gson.JsonElement"), equalTo(List.of()));
+        assertThat(cache.queryByPackage("javax.servlet"), equalTo(servlet));
+
+        assertThat(cache.missCount(), equalTo(3L));
+        assertThat(cache.hitCount(), equalTo(2L));
+        assertThat(cache.size(), equalTo(3));
+        assertThat(cache.evictionCount(), equalTo(0L));
+        assertThat(cache.queryAllByPackage("javax.servlet.http"), sameInstance(idx.queryAllByPackage("javax.servlet")));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        PackageQueryCache cache = new PackageQueryCache(idx, 2);
+        cache.queryAllByPackage("a.A");
+        cache.queryAllByPackage("b.B");
+        cache.queryAllByPackage("a.A");
+        cache.queryAllByPackage("c.C"); // evicts b
+        assertThat(cache.evictionCount(), equalTo(1L));
+        assertThat(cache.size(), equalTo(2));
+
+        long misses = cache.missCount();
+        cache.queryAllByPackage("a.A");
+        assertThat(cache.missCount(), equalTo(misses));
+        cache.queryAllByPackage("b.B");
+        assertThat(cache.missCount(), equalTo(misses + 1));
+    }
+
+    @Test
+    public void swappedIndex() {
+        JsrIndexHolder holder = new JsrIndexHolder(idx);
+        PackageQueryCache cache = new PackageQueryCache(holder, 10);
+        assertThat(cache.queryAllByPackage("javax.servlet.http.HttpServlet"), equalTo(List.of(servlet)));
+        assertThat(cache.queryAllByPackage("javax.servlet.http.HttpServletRequest"), equalTo(List.of(servlet)));
+
+        Jsr servlet3 = new Jsr(315);
+        servlet3.packages = Set.of("javax.servlet");
+        holder.set(new JsrIndex.Builder().data(Set.of(servlet, servlet3)).build());
+        assertThat(cache.queryAllByPackage("javax.servlet.http.Cookie"), equalTo(List.of(servlet, servlet3)));
+        assertThat(cache.missCount(), equalTo(2L));
+        assertThat(cache.hitCount(), equalTo(1L));
+        assertThat(cache.size(), equalTo(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void positiveSize() {
+        new PackageQueryCache(idx, 0);
+    }
+}
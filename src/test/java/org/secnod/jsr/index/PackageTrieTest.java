@@ -0,0 +1,78 @@
+package org.secnod.jsr.index;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.secnod.jsr.Jsr;
+
+public class PackageTrieTest {
+
+    private final Jsr servlet = new Jsr(154);
+    private final Jsr jsp = new Jsr(152);
+    private final Jsr ws = new Jsr(311);
+    private final Jsr wsClient = new Jsr(339);
+
+    private PackageTrie trie() {
+        PackageTrie trie = new PackageTrie();
+        trie.put("javax.servlet", List.of(servlet));
+        trie.put("javax.servlet.jsp", List.of(jsp));
+        trie.put("javax.ws.rs.client", List.of(wsClient));
+        trie.put("javax.ws.rs", List.of(ws));
+        return trie;
+    }
+
+    @Test
+    public void exactMatch() {
+        PackageTrie trie = trie();
+        assertThat(trie.longestMatch("javax.servlet"), equalTo(List.of(servlet)));
+        assertThat(trie.longestMatch("javax.servlet.jsp"), equalTo(List.of(jsp)));
+        assertThat(trie.longestMatch("javax.ws.rs"), equalTo(List.of(ws)));
+        assertThat(trie.longestMatch("javax.ws.rs.client"), equalTo(List.of(wsClient)));
+    }
+
+    @Test
+    public void parentPackageMatch() {
+        PackageTrie trie = trie();
+        assertThat(trie.longestMatch("javax.servlet.http.HttpServlet"), equalTo(List.of(servlet)));
+        assertThat(trie.longestMatch("javax.servlet.jsp.tagext"), equalTo(List.of(jsp)));
+        assertThat(trie.longestMatch("javax.ws.rs.core.Response"), equalTo(List.of(ws)));
+        assertThat(trie.longestMatch(new StringBuilder("javax.ws.rs.client.Client")), equalTo(List.of(wsClient)));
+    }
+
+    @Test
+    public void onlyWholeSegmentsMatch() {
+        PackageTrie trie = trie();
+        assertThat(trie.longestMatch("javax.servletx"), equalTo(List.of()));
+        assertThat(trie.longestMatch("javax.servlet.jspx.Page"), equalTo(List.of(servlet)));
+        assertThat(trie.longestMatch("javax.ws"), equalTo(List.of()));
+        assertThat(trie.longestMatch("javax"), equalTo(List.of()));
+        assertThat(trie.longestMatch(""), equalTo(List.of()));
+        assertThat(trie.longestMatch("com.example"), equalTo(List.of()));
+    }
+
+    @Test
+    public void copyWithChangedPackages() {
+        PackageTrie trie = trie();
+        PackageTrie changed = trie
+                .with("javax.servlet", List.of(jsp, servlet))
+                .with("javax.ws.rs.client", List.of())
+                .with("javax.ws", List.of(ws))
+                .with("javax.servl", List.of(wsClient));
+
+        assertThat(changed.get("javax.servlet"), equalTo(List.of(jsp, servlet)));
+        assertThat(changed.longestMatch("javax.ws.rs.client.Client"), equalTo(List.of(ws)));
+        assertThat(changed.longestMatch("javax.ws.Other"), equalTo(List.of(ws)));
+        assertThat(changed.get("javax.servl"), equalTo(List.of(wsClient)));
+        assertThat(changed.get("javax.servlet.jsp"), equalTo(List.of(jsp)));
+
+        // The original is unchanged
+        assertThat(trie.get("javax.servlet"), equalTo(List.of(servlet)));
+        assertThat(trie.longestMatch("javax.ws.rs.client.Client"), equalTo(List.of(wsClient)));
+        assertThat(trie.get("javax.ws"), equalTo(List.of()));
+        assertThat(trie.get("javax.servl"), equalTo(List.of()));
+        assertThat(trie.longestMatch("javax.servl"), equalTo(List.of()));
+    }
+}
@@ -0,0 +1,129 @@
+package org.secnod.jsr.index;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+import org.secnod.jsr.Jsr;
+import org.secnod.jsr.JsrId;
+import org.secnod.jsr.JsrMetadata;
+import org.secnod.jsr.store.JsrDataStore;
+import org.secnod.jsr.store.JsrMetadataStore;
+
+public class ParallelBuildTest {
+
+    private static JsrIndex build(Collection<Jsr> data, Collection<JsrMetadata> metadata, int parallelism) {
+        return new JsrIndex.Builder()
+                .data(data)
+                .metadata(metadata)
+                .parallelism(parallelism)
+                .build();
+    }
+
+    /**
+     * @return the snapshot of the index, which holds every JSR and the query result of every package
+     */
+    private static byte[] snapshot(JsrIndex index) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsrIndexSnapshot.write(index, new byte[32], out);
+        return out.toByteArray();
+    }
+
+    private static void assertIdentical(JsrIndex expected, JsrIndex actual, String... queries) throws IOException {
+        assertThat(snapshot(actual), equalTo(snapshot(expected)));
+        assertThat(actual.findAllTags(), equalTo(expected.findAllTags()));
+        for (String tag : expected.findAllTags())
+            assertThat(List.copyOf(actual.queryByTag(tag)), equalTo(List.copyOf(expected.queryByTag(tag))));
+        for (String query : queries)
+            assertThat(actual.search(query), equalTo(expected.search(query)));
+    }
+
+    @Test
+    public void bundledData() throws IOException {
+        Collection<Jsr> data = JsrDataStore.loadJson();
+        Collection<JsrMetadata> metadata = JsrMetadataStore.loadJson();
+        JsrIndex sequential = build(data, metadata, 1);
+        for (int parallelism : new int[] { 2, 3, 8 })
+            assertIdentical(sequential, build(data, metadata, parallelism), "servlet", "java", "web serv*", "api");
+    }
+
+    /**
+     * Lineages in reverse JSR ID order, with the package of each lineage extended halfway, and umbrella JSRs tagging
+     * every tenth lineage.
+     */
+    @Test
+    public void syntheticData() throws IOException {
+        int lineages = 500, generations = 12;
+        List<Jsr> data = new ArrayList<>();
+        for (int l = 0; l < lineages; l++) {
+            int first = l * generations + 1;
+            for (int g = 0; g < generations; g++) {
+                Jsr jsr = new Jsr(first + g);
+                jsr.title = "Lineage " + l + " generation " + (generations - g) + (l % 3 == 0 ? " web" : " enterprise");
+                jsr.description = "Specification " + (first + g) + " of lineage " + l;
+                if (g == generations - 1)
+                    jsr.packages = Set.of("javax.lineage" + l);
+                else
+                    jsr.succeeds = JsrId.of(first + g + 1);
+                if (g == generations / 2)
+                    jsr.packages = new LinkedHashSet<>(List.of("javax.lineage" + l, "javax.lineage" + l + ".more"));
+                data.add(jsr);
+            }
+        }
+        for (int u = 0; u < lineages / 10; u++) {
+            Jsr umbrella = new Jsr(lineages * generations + u + 1);
+            umbrella.title = "Umbrella " + u;
+            umbrella.umbrella = Set.of(JsrId.of(u * 10 * generations + 1), JsrId.of(u * 10 * generations + 2));
+            umbrella.tags = Set.of("umbrella" + u % 4);
+            data.add(umbrella);
+        }
+
+        JsrIndex sequential = build(data, List.of(), 1);
+        for (int parallelism : new int[] { 2, 5, 16 })
+            assertIdentical(sequential, build(data, List.of(), parallelism), "web", "lineage 7", "generation 1*");
+    }
+
+    @Test
+    public void pendingMetadata() throws Exception {
+        Collection<Jsr> data = JsrDataStore.loadJson();
+        Collection<JsrMetadata> metadata = JsrMetadataStore.loadJson();
+        JsrIndex sequential = build(data, metadata, 1);
+        for (int parallelism : new int[] { 1, 4 }) {
+            CompletableFuture<Collection<JsrMetadata>> loading = new CompletableFuture<>();
+            JsrIndex.Builder builder = new JsrIndex.Builder().data(data).parallelism(parallelism)
+                    .pendingMetadata(() -> {
+                        loading.complete(metadata);
+                        return loading.join();
+                    });
+            assertThat(loading.isDone(), equalTo(false));
+            JsrIndex pending = builder.build();
+            assertThat(loading.isDone(), equalTo(true));
+            assertIdentical(sequential, pending, "servlet", "web serv*");
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidParallelism() {
+        new JsrIndex.Builder().parallelism(0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void cyclicSuccession() {
+        Jsr a = new Jsr(1);
+        a.packages = Set.of("javax.a");
+        Jsr b = new Jsr(2);
+        b.succeeds = JsrId.of(3);
+        Jsr c = new Jsr(3);
+        c.succeeds = JsrId.of(2);
+        new JsrIndex.Builder().data(List.of(a, b, c)).parallelism(4).build();
+    }
+}
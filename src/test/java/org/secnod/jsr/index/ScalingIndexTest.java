@@ -0,0 +1,60 @@
+package org.secnod.jsr.index;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+import org.secnod.jsr.Jsr;
+import org.secnod.jsr.JsrId;
+
+/**
+ * Builds indexes of synthetic datasets far larger than the bundled data.
+ */
+public class ScalingIndexTest {
+
+    /**
+     * @return a lineage where every JSR succeeds the JSR with the next higher number, so that JSR ID order is the
+     *         reverse of succession order
+     */
+    private static List<Jsr> reverseLineage(int firstJsrNumber, int generations, String packageName) {
+        List<Jsr> jsrs = new ArrayList<>(generations);
+        for (int i = 0; i < generations; i++) {
+            Jsr jsr = new Jsr(firstJsrNumber + i);
+            if (i == generations - 1)
+                jsr.packages = Set.of(packageName);
+            else
+                jsr.succeeds = JsrId.of(firstJsrNumber + i + 1);
+            jsrs.add(jsr);
+        }
+        return jsrs;
+    }
+
+    @Test(timeout = 10_000)
+    public void longOutOfOrderLineage() {
+        int generations = 30_000;
+        JsrIndex idx = new JsrIndex.Builder().data(reverseLineage(1, generations, "javax.chain")).build();
+
+        List<Jsr> lineage = idx.queryAllByPackage("javax.chain");
+        assertThat(lineage.size(), equalTo(generations));
+        assertThat(lineage.get(0).id, equalTo(JsrId.of(1)));
+        assertThat(lineage.get(generations - 1).id, equalTo(JsrId.of(generations)));
+    }
+
+    @Test(timeout = 10_000)
+    public void manyOutOfOrderLineages() {
+        int lineages = 2_000, generations = 25;
+        List<Jsr> data = new ArrayList<>();
+        for (int i = 0; i < lineages; i++)
+            data.addAll(reverseLineage(i * generations + 1, generations, "javax.lineage" + i));
+        JsrIndex idx = new JsrIndex.Builder().data(data).build();
+
+        assertThat(idx.all().size(), equalTo(lineages * generations));
+        assertThat(idx.findAllPackages().size(), equalTo(lineages));
+        for (int i = 0; i < lineages; i += 100)
+            assertThat(idx.queryAllByPackage("javax.lineage" + i).size(), equalTo(generations));
+    }
+}
@@ -0,0 +1,57 @@
+package org.secnod.jsr.index;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.secnod.jsr.Jsr;
+import org.secnod.jsr.store.JsrDataStore;
+import org.secnod.jsr.store.JsrMetadataStore;
+
+public class StreamingQueryTest {
+
+    private static JsrIndex idx;
+
+    @BeforeClass
+    public static void buildIndex() throws IOException {
+        idx = new JsrIndex.Builder()
+                .data(JsrDataStore.loadJson())
+                .metadata(JsrMetadataStore.loadJson())
+                .build();
+    }
+
+    /**
+     * Asserts that every page of the stream is the same page of the complete query result.
+     */
+    private static void assertPages(Collection<Jsr> complete, Supplier<Stream<Jsr>> query) {
+        List<Jsr> expected = new ArrayList<>(complete);
+        assertThat(query.get().collect(Collectors.toList()), equalTo(expected));
+        for (int offset : new int[] { 0, 1, 7, Math.max(0, expected.size() - 1), expected.size(), expected.size() + 3 })
+            for (int limit : new int[] { 0, 1, 5, 100 })
+                assertThat(query.get().skip(offset).limit(limit).collect(Collectors.toList()),
+                        equalTo(expected.subList(Math.min(offset, expected.size()),
+                                Math.min(offset + limit, expected.size()))));
+    }
+
+    @Test
+    public void samePagesAsCompleteResults() {
+        assertPages(idx.all(), () -> idx.all().stream());
+        assertPages(idx.queryByTag("JavaEE7"), () -> idx.queryByTag("JavaEE7").stream());
+        assertPages(idx.queryByTags(TagQuery.parse("JavaEE8 OR JavaEE6")),
+                () -> idx.queryByTags(TagQuery.parse("JavaEE8 OR JavaEE6")).stream());
+        assertPages(idx.queryByUmbrella(), () -> idx.queryByUmbrella().stream());
+        for (String phrase : List.of("java", "Servlet", "no such title"))
+            assertPages(idx.queryByTitle(phrase), () -> idx.streamByTitle(phrase));
+        for (String query : List.of("java", "api", "enterprise", "persist*", "no such words"))
+            assertPages(idx.search(query), () -> idx.streamSearch(query));
+    }
+}
@@ -0,0 +1,102 @@
+package org.secnod.jsr.index;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+import org.secnod.jsr.Jsr;
+import org.secnod.jsr.JsrId;
+import org.secnod.jsr.store.JsrDataStore;
+import org.secnod.jsr.store.JsrMetadataStore;
+
+public class SuccessionTest {
+
+    private static List<JsrId> ids(List<Jsr> jsrs) {
+        List<JsrId> ids = new ArrayList<>();
+        for (Jsr jsr : jsrs)
+            ids.add(jsr.id);
+        return ids;
+    }
+
+    private static List<JsrId> ids(int... jsrNumbers) {
+        List<JsrId> ids = new ArrayList<>();
+        for (int jsrNumber : jsrNumbers)
+            ids.add(JsrId.of(jsrNumber));
+        return ids;
+    }
+
+    private static Jsr jsr(int jsrNumber, Integer succeeds) {
+        Jsr jsr = new Jsr(jsrNumber);
+        if (succeeds != null)
+            jsr.succeeds = JsrId.of(succeeds);
+        else
+            jsr.packages = Set.of("javax.jsr" + jsrNumber);
+        return jsr;
+    }
+
+    @Test
+    public void bundledData() throws IOException {
+        JsrIndex idx = new JsrIndex.Builder()
+                .data(JsrDataStore.loadJson())
+                .metadata(JsrMetadataStore.loadJson())
+                .build();
+
+        Succession servlet3 = idx.succession(JsrId.of(315));
+        assertThat(servlet3.jsr().id, equalTo(JsrId.of(315)));
+        assertThat(servlet3.predecessor().id, equalTo(JsrId.of(154)));
+        assertThat(ids(servlet3.successors()), equalTo(ids(340)));
+        assertThat(servlet3.heir().id, equalTo(JsrId.of(369)));
+        assertThat(ids(servlet3.chain()), equalTo(List.of(JsrId.of("53-servlet"), JsrId.of(154), JsrId.of(315),
+                JsrId.of(340), JsrId.of(369))));
+        assertThat(servlet3.position(), equalTo(2));
+        assertThat(ids(servlet3.descendants()), equalTo(ids(340, 369)));
+
+        Succession servlet = idx.succession(JsrId.of("53-servlet"));
+        assertThat(servlet.predecessor(), equalTo(null));
+        assertThat(servlet.position(), equalTo(0));
+        assertThat(servlet.heir().id, equalTo(JsrId.of(369)));
+
+        Succession javaEE8 = idx.succession(JsrId.of(366));
+        assertThat(ids(javaEE8.chain()), equalTo(ids(366)));
+        assertThat(javaEE8.heir().id, equalTo(JsrId.of(366)));
+        assertThat(javaEE8.successors(), equalTo(List.of()));
+
+        assertThat(idx.succession(JsrId.of(9999)), equalTo(null));
+
+        for (Jsr jsr : idx.all()) {
+            Succession succession = idx.succession(jsr.id);
+            assertThat(succession.chain().get(succession.position()), equalTo(jsr));
+            if (jsr.succeeds != null && !jsr.isUmbrella())
+                assertThat(succession.predecessor().id, equalTo(jsr.succeeds));
+        }
+    }
+
+    /**
+     * 1 is succeeded by 2 and 3, and 2 by 4. 3 is the heir, after the successors of 2 in the chain.
+     */
+    @Test
+    public void branchingSuccession() {
+        JsrIndex idx = new JsrIndex.Builder()
+                .data(List.of(jsr(4, 2), jsr(3, 1), jsr(2, 1), jsr(1, null), jsr(5, null)))
+                .build();
+
+        Succession first = idx.succession(JsrId.of(1));
+        assertThat(ids(first.chain()), equalTo(ids(1, 2, 4, 3)));
+        assertThat(ids(first.successors()), equalTo(ids(2, 3)));
+        assertThat(ids(first.descendants()), equalTo(ids(2, 4, 3)));
+        assertThat(first.heir().id, equalTo(JsrId.of(3)));
+
+        Succession second = idx.succession(JsrId.of(2));
+        assertThat(ids(second.descendants()), equalTo(ids(4)));
+        assertThat(second.position(), equalTo(1));
+        assertThat(idx.succession(JsrId.of(4)).position(), equalTo(2));
+        assertThat(idx.succession(JsrId.of(3)).position(), equalTo(3));
+        assertThat(idx.succession(JsrId.of(4)).heir().id, equalTo(JsrId.of(3)));
+        assertThat(ids(idx.succession(JsrId.of(5)).chain()), equalTo(ids(5)));
+    }
+}
@@ -0,0 +1,162 @@
+package org.secnod.jsr.index;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.secnod.jsr.Jsr;
+import org.secnod.jsr.JsrId;
+import org.secnod.jsr.store.JsrDataStore;
+import org.secnod.jsr.store.JsrMetadataStore;
+
+public class SuggestionTest {
+
+    private static JsrIndex idx;
+
+    @BeforeClass
+    public static void buildIndex() throws IOException {
+        idx = new JsrIndex.Builder()
+                .data(JsrDataStore.loadJson())
+                .metadata(JsrMetadataStore.loadJson())
+                .build();
+    }
+
+    /**
+     * The optimal string alignment distance by the textbook recurrence, without bounds.
+     */
+    private static int osa(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++)
+            d[i][0] = i;
+        for (int j = 0; j <= b.length(); j++)
+            d[0][j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(d[i - 1][j - 1] + cost, Math.min(d[i - 1][j], d[i][j - 1]) + 1);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1))
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    private static int prefixOsa(String query, String text) {
+        int distance = Integer.MAX_VALUE;
+        for (int end = 0; end <= text.length(); end++)
+            distance = Math.min(distance, osa(query, text.substring(0, end)));
+        return distance;
+    }
+
+    private static int substringOsa(String query, String text) {
+        int distance = Integer.MAX_VALUE;
+        for (int start = 0; start <= text.length(); start++)
+            for (int end = start; end <= text.length(); end++)
+                distance = Math.min(distance, osa(query, text.substring(start, end)));
+        return distance;
+    }
+
+    private static boolean sharesTrigram(String query, String text) {
+        for (int i = 0; i + 3 <= query.length(); i++)
+            if (text.contains(query.substring(i, i + 3)))
+                return true;
+        return false;
+    }
+
+    private static List<JsrId> ids(List<Jsr> jsrs) {
+        List<JsrId> ids = new ArrayList<>();
+        for (Jsr jsr : jsrs)
+            ids.add(jsr.id);
+        return ids;
+    }
+
+    @Test
+    public void misspelledPackage() {
+        assertThat(idx.suggestPackages("javax.servelt", 1), equalTo(List.of("javax.servlet")));
+        assertThat(idx.suggestPackages("JAVAX.WS.RS.CLINET", 1), equalTo(List.of("javax.ws.rs.client")));
+        assertThat(idx.suggestPackages("javax.servlet", 2), equalTo(List.of("javax.servlet", "javax.servlet.jsp")));
+        assertThat(idx.suggestPackages("javax.servlet", 0), equalTo(List.of()));
+        assertThat(idx.suggestPackages("jx", 10), equalTo(List.of()));
+        assertThat(idx.suggestPackages("org.example.nothing", 10), equalTo(List.of()));
+    }
+
+    /**
+     * The shared trigram counts of a query are kept for the next query of the thread.
+     */
+    @Test
+    public void repeatedQueries() {
+        List<String> expected = idx.suggestPackages("javax.servelt", 3);
+        for (int i = 0; i < 3; i++) {
+            assertThat(idx.suggestPackages("javax.servlet.jsp", 1), equalTo(List.of("javax.servlet.jsp")));
+            assertThat(idx.suggestPackages("javax.servelt", 3), equalTo(expected));
+        }
+    }
+
+    @Test
+    public void misspelledTitle() {
+        List<JsrId> servlets = ids(idx.suggestByTitle("servelt", 100));
+        for (Jsr jsr : idx.queryByTitle("servlet"))
+            assertThat(jsr.id + " suggested", servlets.contains(jsr.id), equalTo(true));
+        assertThat(ids(idx.suggestByTitle("Persistance", 100)),
+                equalTo(ids(new ArrayList<>(idx.queryByTitle("persistence")))));
+    }
+
+    @Test
+    public void suggestionsAreTheClosestSharingATrigram() {
+        for (String query : List.of("javax.servelt", "javax.ws.rs", "jaavx.xml", "java.util.conc", "ejb")) {
+            String q = query.toLowerCase();
+            int maxDistance = TrigramIndex.maxDistance(q.length());
+            TreeSet<String> expected = new TreeSet<>();
+            for (String packageName : idx.findAllPackages())
+                if (sharesTrigram(q, packageName) && prefixOsa(q, packageName) <= maxDistance)
+                    expected.add(packageName);
+            List<String> suggested = idx.suggestPackages(query, Integer.MAX_VALUE);
+            assertThat(query, new TreeSet<>(suggested), equalTo(expected));
+            for (int i = 1; i < suggested.size(); i++)
+                assertThat(query, prefixOsa(q, suggested.get(i - 1)) <= prefixOsa(q, suggested.get(i)), equalTo(true));
+        }
+        for (String query : List.of("servelt", "enterprize java", "xml bnding")) {
+            int maxDistance = TrigramIndex.maxDistance(query.length());
+            List<JsrId> expected = new ArrayList<>();
+            for (Jsr jsr : idx.all()) {
+                String title = jsr.title.toLowerCase();
+                if (sharesTrigram(query, title) && substringOsa(query, title) <= maxDistance)
+                    expected.add(jsr.id);
+            }
+            assertThat(query, new TreeSet<>(ids(idx.suggestByTitle(query, Integer.MAX_VALUE))),
+                    equalTo(new TreeSet<>(expected)));
+        }
+    }
+
+    @Test
+    public void boundedDistance() {
+        assertThat(TrigramIndex.prefixDistance("javax.servelt", "javax.servlet.jsp", 3), equalTo(1));
+        assertThat(TrigramIndex.substringDistance("servelt", "java servlet 4.0", 1), equalTo(1));
+        assertThat(TrigramIndex.prefixDistance("servlet", "javax.servlet", 2), equalTo(3));
+
+        Random random = new Random(20);
+        for (int n = 0; n < 2000; n++) {
+            String query = randomString(random, 1 + random.nextInt(8));
+            String text = randomString(random, random.nextInt(12));
+            int bound = random.nextInt(4);
+            assertThat(query + " " + text, TrigramIndex.prefixDistance(query, text, bound),
+                    equalTo(Math.min(prefixOsa(query, text), bound + 1)));
+            assertThat(query + " " + text, TrigramIndex.substringDistance(query, text, bound),
+                    equalTo(Math.min(substringOsa(query, text), bound + 1)));
+        }
+    }
+
+    private static String randomString(Random random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++)
+            chars[i] = (char) ('a' + random.nextInt(3));
+        return new String(chars);
+    }
+}
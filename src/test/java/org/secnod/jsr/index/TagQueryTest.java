@@ -0,0 +1,94 @@
+package org.secnod.jsr.index;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.secnod.jsr.Jsr;
+
+public class TagQueryTest {
+
+    private static Jsr jsr100, jsr200, jsr300, ee6, ee7;
+    private static JsrIndex idx;
+
+    @BeforeClass
+    public static void buildIndex() {
+        jsr100 = new Jsr(100);
+        jsr100.packages = Set.of("javax.jsr100");
+        jsr200 = new Jsr(200);
+        jsr200.packages = Set.of("javax.jsr200");
+        jsr300 = new Jsr(300);
+        jsr300.packages = Set.of("javax.jsr300");
+        jsr300.tags = Set.of("Standalone");
+
+        ee6 = new Jsr(316);
+        ee6.tags = Set.of("JavaEE6");
+        ee6.umbrella = Set.of(jsr100.id);
+        ee7 = new Jsr(342);
+        ee7.tags = Set.of("JavaEE7");
+        ee7.umbrella = Set.of(jsr100.id, jsr200.id);
+
+        idx = new JsrIndex.Builder().data(Set.of(jsr100, jsr200, jsr300, ee6, ee7)).build();
+    }
+
+    @Test
+    public void singleTag() {
+        assertThat(idx.queryByTags(TagQuery.tag("JavaEE7")), equalTo(Set.of(jsr100, jsr200, ee7)));
+        assertThat(List.copyOf(idx.queryByTags(TagQuery.tag("JavaEE7"))), equalTo(List.of(jsr100, jsr200, ee7)));
+        assertThat(idx.queryByTags(TagQuery.tag("JavaEE8")), equalTo(Set.of()));
+    }
+
+    @Test
+    public void booleanOperators() {
+        assertThat(idx.queryByTags(TagQuery.tag("JavaEE7").andNot(TagQuery.tag("JavaEE6"))),
+                equalTo(Set.of(jsr200, ee7)));
+        assertThat(idx.queryByTags(TagQuery.tag("JavaEE7").and(TagQuery.tag("JavaEE6"))),
+                equalTo(Set.of(jsr100)));
+        assertThat(idx.queryByTags(TagQuery.tag("JavaEE6").or(TagQuery.tag("Standalone"))),
+                equalTo(Set.of(jsr100, jsr300, ee6)));
+        assertThat(idx.queryByTags(TagQuery.not(TagQuery.tag("JavaEE7"))),
+                equalTo(Set.of(jsr300, ee6)));
+    }
+
+    @Test
+    public void estimates() {
+        for (String expression : new String[] { "JavaEE7", "JavaEE8", "NOT JavaEE7", "JavaEE7 AND NOT JavaEE6",
+                "JavaEE6 OR Standalone", "NOT (JavaEE6 OR JavaEE7)", "JavaEE6 OR JavaEE7 OR Standalone" }) {
+            TagQuery query = TagQuery.parse(expression);
+            int estimate = idx.countTagged(query);
+            assertThat(expression, estimate >= idx.queryByTags(query).size(), equalTo(true));
+            assertThat(expression, estimate <= idx.all().size(), equalTo(true));
+        }
+        assertThat(idx.countTagged(TagQuery.parse("JavaEE7")), equalTo(3));
+        assertThat(idx.countTagged(TagQuery.parse("NOT JavaEE7")), equalTo(2));
+        assertThat(idx.countTagged(TagQuery.parse("JavaEE7 AND JavaEE6")), equalTo(2));
+    }
+
+    @Test
+    public void parsing() {
+        assertThat(idx.queryByTags(TagQuery.parse("JavaEE7 AND NOT JavaEE6")), equalTo(Set.of(jsr200, ee7)));
+        assertThat(idx.queryByTags(TagQuery.parse("not (JavaEE6 or JavaEE7)")), equalTo(Set.of(jsr300)));
+        assertThat(idx.queryByTags(TagQuery.parse("Standalone OR JavaEE6 AND JavaEE7")),
+                equalTo(Set.of(jsr100, jsr300)));
+        assertThat(TagQuery.parse("a OR b AND NOT c").toString(), equalTo("(a OR (b AND NOT c))"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingOperand() {
+        TagQuery.parse("JavaEE7 AND");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unbalancedParentheses() {
+        TagQuery.parse("(JavaEE7 OR JavaEE6");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingOperator() {
+        TagQuery.parse("JavaEE7 JavaEE6");
+    }
+}
@@ -0,0 +1,77 @@
+package org.secnod.jsr.index;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.secnod.jsr.Jsr;
+
+public class TextIndexTest {
+
+    private static Jsr servlet, jaxRs, jaxRsNext, jms;
+    private static JsrIndex idx;
+
+    @BeforeClass
+    public static void buildIndex() {
+        servlet = jsr(154, "Java Servlet 2.4 Specification", "Servlets for web applications.");
+        jaxRs = jsr(311, "JAX-RS: The Java API for RESTful Web Services", "An API for RESTful web services.");
+        jaxRsNext = jsr(339, "JAX-RS 2.0", "The next version of the API for RESTful Web Services.");
+        jms = jsr(914, "Java Message Service (JMS) API", "Messaging for the Java platform.");
+        idx = new JsrIndex.Builder().data(Set.of(servlet, jaxRs, jaxRsNext, jms)).build();
+    }
+
+    private static Jsr jsr(int number, String title, String description) {
+        Jsr jsr = new Jsr(number);
+        jsr.title = title;
+        jsr.description = description;
+        jsr.packages = Set.of("javax.jsr" + number);
+        return jsr;
+    }
+
+    @Test
+    public void singleTerm() {
+        assertThat(idx.search("servlet"), equalTo(List.of(servlet)));
+        assertThat(idx.search("SERVLET"), equalTo(List.of(servlet)));
+        assertThat(idx.search("corba"), equalTo(List.of()));
+    }
+
+    @Test
+    public void allTermsMustMatch() {
+        assertThat(Set.copyOf(idx.search("web services")), equalTo(Set.of(jaxRs, jaxRsNext)));
+        assertThat(idx.search("java messaging"), equalTo(List.of(jms)));
+        assertThat(idx.search("servlet messaging"), equalTo(List.of()));
+    }
+
+    @Test
+    public void titleMatchesRankHigher() {
+        // "API" is in both titles but the description of JSR 311 mentions it a second time
+        assertThat(idx.search("api restful"), equalTo(List.of(jaxRs, jaxRsNext)));
+        // "web" is in the title of JSR 311, equal scores are ordered by JSR ID
+        assertThat(idx.search("web"), equalTo(List.of(jaxRs, servlet, jaxRsNext)));
+    }
+
+    @Test
+    public void prefixTerms() {
+        assertThat(Set.copyOf(idx.search("serv*")), equalTo(Set.of(servlet, jaxRs, jaxRsNext, jms)));
+        assertThat(idx.search("servlet*"), equalTo(List.of(servlet)));
+        assertThat(idx.search("mess* java"), equalTo(List.of(jms)));
+        assertThat(idx.search("xyz*"), equalTo(List.of()));
+    }
+
+    @Test
+    public void lazyRanking() {
+        for (String query : List.of("web", "serv*", "api restful", "java", "corba", " "))
+            assertThat(idx.streamSearch(query).collect(Collectors.toList()), equalTo(idx.search(query)));
+        assertThat(idx.streamSearch("web").skip(1).limit(1).collect(Collectors.toList()), equalTo(List.of(servlet)));
+    }
+
+    @Test
+    public void blankQuery() {
+        assertThat(idx.search(" "), equalTo(List.of()));
+    }
+}
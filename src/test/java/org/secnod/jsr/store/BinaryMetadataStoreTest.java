@@ -0,0 +1,105 @@
+package org.secnod.jsr.store;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Test;
+import org.secnod.jsr.JsrMetadata;
+import org.secnod.jsr.JsrStatus;
+
+public class BinaryMetadataStoreTest {
+
+    private static BinaryMetadataStore convert(Collection<JsrMetadata> metadata) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryMetadataStore.write(metadata, out);
+        return BinaryMetadataStore.read(ByteBuffer.wrap(out.toByteArray()));
+    }
+
+    private static void assertSameMetadata(JsrMetadata actual, JsrMetadata expected) {
+        assertThat(actual.id, equalTo(expected.id));
+        assertThat(actual.id + " title", actual.title, equalTo(expected.title));
+        assertThat(actual.id + " description", actual.description, equalTo(expected.description));
+        assertThat(actual.id + " status", actual.status, equalTo(expected.status));
+        assertThat(actual.id + " details page", actual.detailsPage, equalTo(expected.detailsPage));
+    }
+
+    private static JsrMetadata metadata(int id, String title, JsrStatus status) {
+        JsrMetadata metadata = new JsrMetadata();
+        metadata.id = id;
+        metadata.title = title;
+        metadata.status = status;
+        return metadata;
+    }
+
+    @Test
+    public void convertBundledMetadata() throws IOException {
+        Map<Integer, JsrMetadata> json = new TreeMap<>();
+        for (JsrMetadata metadata : JsrMetadataStore.loadJson())
+            json.put(metadata.id, metadata);
+        BinaryMetadataStore store = convert(json.values());
+
+        assertThat(store.size(), equalTo(json.size()));
+        List<JsrMetadata> all = store.all();
+        int i = 0;
+        for (JsrMetadata expected : json.values()) {
+            assertSameMetadata(all.get(i++), expected);
+            assertSameMetadata(store.get(expected.id), expected);
+            assertThat(store.title(expected.id), equalTo(expected.title));
+            assertThat(store.description(expected.id), equalTo(expected.description));
+            assertThat(store.status(expected.id), equalTo(expected.status));
+            assertThat(store.detailsPage(expected.id), equalTo(expected.detailsPage));
+        }
+        assertThat(store.get(-1), nullValue());
+        assertThat(store.contains(Integer.MAX_VALUE), equalTo(false));
+    }
+
+    @Test
+    public void bundledStore() throws IOException {
+        BinaryMetadataStore store = BinaryMetadataStore.load();
+        Collection<JsrMetadata> json = JsrMetadataStore.loadJson();
+        assertThat(store.size(), equalTo(json.size()));
+        for (JsrMetadata expected : json)
+            assertSameMetadata(store.get(expected.id), expected);
+    }
+
+    @Test
+    public void nullsDuplicatesAndUnicode() throws IOException {
+        List<JsrMetadata> metadata = new ArrayList<>();
+        metadata.add(metadata(7, "Replaced", JsrStatus.ACTIVE));
+        metadata.add(metadata(3, null, null));
+        JsrMetadata unicode = metadata(7, "Jakarta™ été 🚀", JsrStatus.FINAL);
+        unicode.detailsPage = URI.create("https://www.jcp.org/en/jsr/detail?id=7");
+        metadata.add(unicode);
+        BinaryMetadataStore store = convert(metadata);
+
+        assertThat(store.size(), equalTo(2));
+        assertSameMetadata(store.get(3), metadata.get(1));
+        assertSameMetadata(store.get(7), unicode);
+        assertThat(store.all().get(0).id, equalTo(3));
+    }
+
+    @Test(expected = IOException.class)
+    public void notAStore() throws IOException {
+        BinaryMetadataStore.read(ByteBuffer.wrap(new byte[64]));
+    }
+
+    @Test(expected = IOException.class)
+    public void recordCountOverflow() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryMetadataStore.write(List.of(), out);
+        ByteBuffer store = ByteBuffer.wrap(out.toByteArray());
+        store.putInt(8, 1 << 27); // times the record size wraps around to 0
+        BinaryMetadataStore.read(store);
+    }
+}
@@ -0,0 +1,216 @@
+package org.secnod.jsr.store;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.junit.Test;
+import org.secnod.jsr.Jsr;
+import org.secnod.jsr.JsrId;
+import org.secnod.jsr.JsrMetadata;
+import org.secnod.jsr.JsrStatus;
+import org.secnod.jsr.index.JsrIndex;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+public class JsonStoreTest {
+
+    private static String resource(String filename) throws IOException {
+        try (InputStream in = JsrDataStore.class.getResourceAsStream(filename)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void assertSameJsr(Jsr actual, Jsr expected) {
+        assertThat(actual.id, equalTo(expected.id));
+        assertThat(actual.id + " title", actual.title, equalTo(expected.title));
+        assertThat(actual.id + " description", actual.description, equalTo(expected.description));
+        assertThat(actual.id + " succeeds", actual.succeeds, equalTo(expected.succeeds));
+        assertThat(actual.id + " packages", actual.packages, equalTo(expected.packages));
+        assertThat(actual.id + " status", actual.status, equalTo(expected.status));
+        assertThat(actual.id + " details page", actual.detailsPage, equalTo(expected.detailsPage));
+        assertThat(actual.id + " umbrella", actual.umbrella, equalTo(expected.umbrella));
+        assertThat(actual.id + " tags", actual.tags, equalTo(expected.tags));
+    }
+
+    @Test
+    public void sameAsReflection() throws IOException {
+        Collection<Jsr> reflected = new GsonBuilder()
+                .registerTypeAdapter(JsrId.class, JsonAdapters.JSR_ID)
+                .create()
+                .fromJson(resource(JsrDataStore.FILENAME), new TypeToken<Collection<Jsr>>(){}.getType());
+        Collection<Jsr> streamed = JsrDataStore.loadJson();
+        assertThat(streamed.size(), equalTo(reflected.size()));
+        Iterator<Jsr> expected = reflected.iterator();
+        for (Jsr jsr : streamed)
+            assertSameJsr(jsr, expected.next());
+    }
+
+    @Test
+    public void metadataRoundTrip() throws IOException {
+        StringWriter written = new StringWriter();
+        JsrMetadataStore.writeMetadata(JsrMetadataStore.loadJson(), written);
+        assertThat(written.toString(), equalTo(resource(JsrMetadataStore.FILENAME)));
+    }
+
+    @Test
+    public void readFields() throws IOException {
+        List<Jsr> jsrs = new ArrayList<>();
+        JsrDataStore.readJson(new StringReader("[{\"id\": \"53-servlet\", \"packages\": [\"javax.servlet\"], "
+                + "\"unknown\": {\"nested\": [1, 2]}, \"succeeds\": null}, "
+                + "{\"id\": 342, \"umbrella\": [339, \"340\"], \"tags\": [\"JavaEE7\"], \"status\": \"final\"}]"),
+                jsrs::add);
+        assertThat(jsrs.size(), equalTo(2));
+        assertThat(jsrs.get(0).id, equalTo(JsrId.of(53, "servlet")));
+        assertThat(jsrs.get(0).packages, equalTo(Set.of("javax.servlet")));
+        assertThat(jsrs.get(0).succeeds, nullValue());
+        assertThat(jsrs.get(1).umbrella, equalTo(Set.of(JsrId.of(339), JsrId.of(340))));
+        assertThat(jsrs.get(1).tags, equalTo(Set.of("JavaEE7")));
+        assertThat(jsrs.get(1).status, equalTo(JsrStatus.FINAL));
+
+        List<JsrMetadata> metadata = new ArrayList<>();
+        JsrMetadataStore.readJson(new StringReader("[{\"id\": 1, \"status\": \"Withdrawn\", \"extra\": true}]"),
+                metadata::add);
+        assertThat(metadata.get(0).id, equalTo(1));
+        assertThat(metadata.get(0).status, equalTo(JsrStatus.WITHDRAWN));
+        assertThat(metadata.get(0).title, nullValue());
+    }
+
+    private static JsrMetadata copy(JsrMetadata metadata) {
+        JsrMetadata copy = new JsrMetadata();
+        copy.id = metadata.id;
+        copy.title = metadata.title;
+        copy.description = metadata.description;
+        copy.status = metadata.status;
+        copy.detailsPage = metadata.detailsPage;
+        return copy;
+    }
+
+    @Test
+    public void syncUnchanged() throws IOException {
+        List<JsrMetadata> scraped = new ArrayList<>(JsrMetadataStore.loadJson());
+        Collections.reverse(scraped);
+        StringWriter written = new StringWriter();
+        MetadataSync sync = JsrMetadataStore.syncMetadata(new StringReader(resource(JsrMetadataStore.FILENAME)),
+                scraped, written);
+        assertThat(sync.hasChanges(), equalTo(false));
+        assertThat(sync.unchanged(), equalTo(scraped.size()));
+        assertThat(written.toString(), equalTo(resource(JsrMetadataStore.FILENAME)));
+    }
+
+    @Test
+    public void syncChanges() throws IOException {
+        List<JsrMetadata> existing = new ArrayList<>(JsrMetadataStore.loadJson());
+        Map<Integer, JsrMetadata> scraped = new TreeMap<>();
+        for (JsrMetadata metadata : existing)
+            scraped.put(metadata.id, copy(metadata));
+        int first = existing.get(0).id, last = existing.get(existing.size() - 1).id;
+        scraped.remove(first);
+        scraped.remove(existing.get(10).id);
+        scraped.get(existing.get(20).id).status = JsrStatus.WITHDRAWN == existing.get(20).status
+                ? JsrStatus.FINAL : JsrStatus.WITHDRAWN;
+        scraped.get(last).description = "Changed";
+        JsrMetadata between = new JsrMetadata();
+        between.id = first + 1;
+        while (scraped.containsKey(between.id) || between.id == existing.get(10).id)
+            between.id++; // the first gap in the JSR numbers
+        between.title = "Added";
+        scraped.put(between.id, between);
+        JsrMetadata after = new JsrMetadata();
+        after.id = last + 1;
+        after.status = JsrStatus.ACTIVE;
+        scraped.put(after.id, after);
+
+        StringWriter written = new StringWriter();
+        MetadataSync sync = JsrMetadataStore.syncMetadata(new StringReader(resource(JsrMetadataStore.FILENAME)),
+                scraped.values(), written);
+        assertThat(sync.added(), equalTo(List.of(between.id, after.id)));
+        assertThat(sync.changed(), equalTo(List.of(existing.get(20).id, last)));
+        assertThat(sync.removed(), equalTo(List.of(first, existing.get(10).id)));
+        assertThat(sync.unchanged(), equalTo(existing.size() - 4));
+        assertThat(sync.toString(), equalTo("2 added, 2 changed, 2 removed, " + (existing.size() - 4) + " unchanged"));
+
+        StringWriter expected = new StringWriter();
+        JsrMetadataStore.writeMetadata(scraped.values(), expected);
+        assertThat(written.toString(), equalTo(expected.toString()));
+    }
+
+    @Test
+    public void syncIntoEmpty() throws IOException {
+        StringWriter written = new StringWriter();
+        MetadataSync sync = JsrMetadataStore.syncMetadata(new StringReader("[]"), JsrMetadataStore.loadJson(),
+                written);
+        assertThat(sync.added().size(), equalTo(JsrMetadataStore.loadJson().size()));
+        assertThat(written.toString(), equalTo(resource(JsrMetadataStore.FILENAME)));
+    }
+
+    @Test(expected = IOException.class)
+    public void syncEmptyScrape() throws IOException {
+        JsrMetadataStore.syncMetadata(new StringReader(resource(JsrMetadataStore.FILENAME)), List.of(),
+                new StringWriter(), true);
+    }
+
+    @Test
+    public void syncTruncatedScrape() throws IOException {
+        List<JsrMetadata> existing = new ArrayList<>(JsrMetadataStore.loadJson());
+        List<JsrMetadata> scraped = existing.subList(0, existing.size() / 2);
+        try {
+            JsrMetadataStore.syncMetadata(new StringReader(resource(JsrMetadataStore.FILENAME)), scraped,
+                    new StringWriter());
+            fail("Removed half of the metadata");
+        } catch (IOException expected) {
+        }
+
+        StringWriter written = new StringWriter();
+        MetadataSync sync = JsrMetadataStore.syncMetadata(new StringReader(resource(JsrMetadataStore.FILENAME)),
+                scraped, written, true);
+        assertThat(sync.removed().size(), equalTo(existing.size() - scraped.size()));
+        StringWriter expected = new StringWriter();
+        JsrMetadataStore.writeMetadata(scraped, expected);
+        assertThat(written.toString(), equalTo(expected.toString()));
+    }
+
+    @Test(expected = IOException.class)
+    public void syncUnordered() throws IOException {
+        JsrMetadataStore.syncMetadata(new StringReader("[{\"id\": 2}, {\"id\": 1}]"), List.of(), new StringWriter());
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void jsrWithoutId() throws IOException {
+        JsrDataStore.loadJson(new StringReader("[{\"title\": \"No id\"}]"));
+    }
+
+    @Test
+    public void streamIntoBuilder() throws IOException {
+        JsrIndex.Builder builder = new JsrIndex.Builder();
+        JsrDataStore.readJson(builder::add);
+        JsrMetadataStore.readJson(builder::add);
+        JsrIndex streamed = builder.build();
+        JsrIndex collected = new JsrIndex.Builder()
+                .data(JsrDataStore.loadJson())
+                .metadata(JsrMetadataStore.loadJson())
+                .build();
+        assertThat(streamed.all().size(), equalTo(collected.all().size()));
+        Iterator<Jsr> expected = collected.all().iterator();
+        for (Jsr jsr : streamed.all())
+            assertSameJsr(jsr, expected.next());
+        assertThat(streamed.findAllPackages(), equalTo(collected.findAllPackages()));
+    }
+}